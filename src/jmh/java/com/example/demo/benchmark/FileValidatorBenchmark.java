@@ -0,0 +1,54 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.metrics.GenerationMetrics;
+import com.example.demo.service.codec.GenerationFileCodec;
+import com.example.demo.service.domain.ValidatedGenerationFile;
+import com.example.demo.web.validator.FileValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of an uploaded file, as done on POST and PUT.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileValidatorBenchmark {
+
+    private FileValidator fileValidator;
+    private MockMultipartFile file;
+
+    @Setup
+    public void setUp() {
+        fileValidator = new FileValidator(new GenerationFileCodec(new ObjectMapper()), new GenerationMetrics(new SimpleMeterRegistry()));
+        file = new MockMultipartFile(
+                "file",
+                "test.json",
+                MediaType.APPLICATION_JSON_VALUE,
+                "{\n  \"valueX\": 8,\n  \"valueY\": 5\n}".getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    @Benchmark
+    public ValidatedGenerationFile validateFile() throws Exception {
+        return fileValidator.validateFile(file);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.compute.GenerationComputeEngine;
+import com.example.demo.service.compute.OperandSums;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Element-wise sums of operand arrays, on a single loop and split across a growing number of threads, to show how
+ * the sums scale with the cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerationComputeEngineBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int length;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private GenerationComputeEngine sequentialEngine;
+    private GenerationComputeEngine parallelEngine;
+    private long[] valuesX;
+    private long[] valuesY;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        valuesX = random.longs(length).toArray();
+        valuesY = random.longs(length).toArray();
+        sequentialEngine = new GenerationComputeEngine(new ForkJoinPool(1), Integer.MAX_VALUE);
+        parallelEngine = new GenerationComputeEngine(new ForkJoinPool(parallelism), 65_536);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sequentialEngine.close();
+        parallelEngine.close();
+    }
+
+    @Benchmark
+    public OperandSums sequential() {
+        return sequentialEngine.sum(valuesX, valuesY);
+    }
+
+    @Benchmark
+    public OperandSums parallel() {
+        return parallelEngine.sum(valuesX, valuesY);
+    }
+}
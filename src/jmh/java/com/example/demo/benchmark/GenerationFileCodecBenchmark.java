@@ -0,0 +1,75 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dao.domain.GenerationFileContent;
+import com.example.demo.service.codec.GenerationFileCodec;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and rendering of a generation file by the codec, against the databind round trip through
+ * {@link ObjectMapper} it replaced.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerationFileCodecBenchmark {
+
+    private ObjectMapper objectMapper;
+    private GenerationFileCodec generationFileCodec;
+    private byte[] data;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+        generationFileCodec = new GenerationFileCodec(new ObjectMapper());
+        data = "{\n  \"valueX\": 8,\n  \"valueY\": 5\n}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public GenerationFileContent readContent() throws IOException {
+        return generationFileCodec.readContent(data);
+    }
+
+    @Benchmark
+    public GenerationFileContent readContentWithObjectMapper() throws IOException {
+        return objectMapper.readValue(data, GenerationFileContent.class);
+    }
+
+    @Benchmark
+    public byte[] writeResult() throws IOException {
+        return generationFileCodec.writeResult(8L, 5L, 13L);
+    }
+
+    @Benchmark
+    public byte[] writeResultWithObjectMapper() throws IOException {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("valueX", 8L);
+        result.put("valueY", 5L);
+        result.put("result", 13L);
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public String contentHash() {
+        return generationFileCodec.contentHash(8L, 5L, 13L);
+    }
+}
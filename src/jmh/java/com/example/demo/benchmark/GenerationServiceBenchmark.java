@@ -0,0 +1,108 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.GenerationProperties;
+import com.example.demo.dao.OffHeapGenerationStore;
+import com.example.demo.dao.domain.GenerationFileContent;
+import com.example.demo.metrics.GenerationMetrics;
+import com.example.demo.service.GenerationServiceImpl;
+import com.example.demo.service.aggregate.GenerationResultAggregates;
+import com.example.demo.service.cache.GenerationResultCache;
+import com.example.demo.service.codec.GenerationFileCodec;
+import com.example.demo.service.codec.PayloadCompressor;
+import com.example.demo.service.compute.GenerationComputeEngine;
+import com.example.demo.service.domain.GetGenerationFileResponse;
+import com.example.demo.service.domain.ValidatedGenerationFile;
+import com.example.demo.service.operation.OperationCompiler;
+import com.example.demo.web.GenerationFileResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full service path of GET and PUT, from the validated file to the rendered result, against the in-memory store so
+ * that the database is left out of the measure. GET is measured both when the result cache answers and when it is
+ * disabled.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerationServiceBenchmark {
+
+    private GenerationServiceImpl cachedGenerationService;
+    private GenerationServiceImpl uncachedGenerationService;
+    private ValidatedGenerationFile file;
+    private Long fileId;
+
+    @Setup
+    public void setUp() {
+        OffHeapGenerationStore generationStore = new OffHeapGenerationStore();
+        GenerationFileCodec generationFileCodec = new GenerationFileCodec(new ObjectMapper());
+        GenerationProperties generationProperties = new GenerationProperties();
+        GenerationMetrics generationMetrics = new GenerationMetrics(new SimpleMeterRegistry());
+        GenerationComputeEngine generationComputeEngine = new GenerationComputeEngine(ForkJoinPool.commonPool(), 65_536);
+        OperationCompiler operationCompiler = new OperationCompiler(1_000);
+        PayloadCompressor payloadCompressor = new PayloadCompressor(true, 65_536, -1);
+        cachedGenerationService = new GenerationServiceImpl(
+                generationStore,
+                generationFileCodec,
+                new GenerationResultCache(10_000, Duration.ofMinutes(10), Clock.systemUTC()),
+                generationProperties,
+                generationMetrics,
+                generationComputeEngine,
+                operationCompiler,
+                new GenerationResultAggregates(),
+                payloadCompressor
+        );
+        uncachedGenerationService = new GenerationServiceImpl(
+                generationStore,
+                generationFileCodec,
+                new GenerationResultCache(0, Duration.ZERO, Clock.systemUTC()),
+                generationProperties,
+                generationMetrics,
+                generationComputeEngine,
+                operationCompiler,
+                new GenerationResultAggregates(),
+                payloadCompressor
+        );
+        file = new ValidatedGenerationFile(
+                "test.json",
+                "{\n  \"valueX\": 8,\n  \"valueY\": 5\n}".getBytes(StandardCharsets.UTF_8),
+                new GenerationFileContent(8L, 5L)
+        );
+        fileId = cachedGenerationService.uploadGenerationFile(file).getId();
+    }
+
+    @Benchmark
+    public GetGenerationFileResponse getCached() throws IOException {
+        return cachedGenerationService.getGenerationFile(fileId);
+    }
+
+    @Benchmark
+    public GetGenerationFileResponse getUncached() throws IOException {
+        return uncachedGenerationService.getGenerationFile(fileId);
+    }
+
+    @Benchmark
+    public GenerationFileResponse update() {
+        return uncachedGenerationService.updateGenerationFile(fileId, file);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.dao.GenerationDao;
+import com.example.demo.dao.GenerationStore;
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paths of the database storage that only need the metadata of a file, for documents of growing size: they should not
+ * depend on the size of the uploaded content, which is kept in its own table. Loading the entity of the file is the
+ * path that used to read the content along with it. Streaming the content is measured alongside, as the path that does
+ * read it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JpaGenerationStoreBenchmark {
+
+    @Param({"1024", "1048576", "16777216"})
+    private int dataSize;
+
+    private ConfigurableApplicationContext context;
+    private GenerationStore generationStore;
+    private GenerationDao generationDao;
+    private Long fileId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("generation.storage.type=jpa", "logging.level.root=warn")
+                .run();
+        generationStore = context.getBean(GenerationStore.class);
+        generationDao = context.getBean(GenerationDao.class);
+        fileId = generationStore.save(new GenerationFileEntity("large.json", document(dataSize), 8L, 5L, 13L, null)).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean existsById() {
+        return generationStore.existsById(fileId);
+    }
+
+    @Benchmark
+    public Optional<String> findNameById() {
+        return generationStore.findNameById(fileId);
+    }
+
+    @Benchmark
+    public Optional<GenerationFileResultView> findResultViewById() {
+        return generationStore.findResultViewById(fileId);
+    }
+
+    @Benchmark
+    public Optional<GenerationFileEntity> findEntityById() {
+        return generationDao.findById(fileId);
+    }
+
+    @Benchmark
+    public boolean transferDataById() {
+        return generationStore.transferDataById(fileId, OutputStream.nullOutputStream());
+    }
+
+    /**
+     * A valid document padded with whitespace up to the given size.
+     */
+    private static byte[] document(int size) {
+        byte[] content = "{\"valueX\": 8, \"valueY\": 5}".getBytes(StandardCharsets.UTF_8);
+        byte[] document = new byte[Math.max(size, content.length)];
+        System.arraycopy(content, 0, document, 0, content.length);
+        Arrays.fill(document, content.length, document.length, (byte) ' ');
+        return document;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mixed load on the generation endpoints of the application started on a random port, first cold, right after
+ * startup with an empty database, then warm. Prints the throughput and latency percentiles of each endpoint and
+ * writes their HdrHistogram distributions. Run with: mvn -P loadtest test
+ * <p>
+ * The clients are closed-loop, each one waits for a response before sending its next request, so latencies measured
+ * while the application is saturated do not include the time requests would have waited to be sent.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "logging.level.com.example.demo=warn"
+)
+class GenerationLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void runMixedWorkload() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        GenerationWorkload workload = new GenerationWorkload(URI.create("http://localhost:" + port + "/"), settings);
+
+        LatencyReport cold = workload.run("cold", settings.getColdDuration());
+        LatencyReport warm = workload.run("warm", settings.getDuration());
+
+        cold.print(System.out);
+        warm.print(System.out);
+        cold.write(settings.getOutputDirectory());
+        warm.write(settings.getOutputDirectory());
+        assertTrue(warm.totalCount() > 0, "No request got a response");
+    }
+}
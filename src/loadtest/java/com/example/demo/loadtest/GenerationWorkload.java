@@ -0,0 +1,195 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed workload of POST, GET, PUT and DELETE requests sent by concurrent clients to a running application.
+ * GET, PUT and DELETE target files uploaded by earlier POST requests of the workload, or fall back to a POST when
+ * there is none left.
+ */
+class GenerationWorkload {
+
+    enum Endpoint {
+        POST, GET, PUT, DELETE
+    }
+
+    private static final String BOUNDARY = "generation-load-test-boundary";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(REQUEST_TIMEOUT)
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI baseUri;
+    private final LoadTestSettings settings;
+    private final List<byte[]> multipartBodies;
+    private final LiveIds liveIds = new LiveIds();
+
+    GenerationWorkload(URI baseUri, LoadTestSettings settings) throws IOException {
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.multipartBodies = readDocuments(settings.getDocuments()).stream()
+                .map(GenerationWorkload::multipartBody)
+                .toList();
+    }
+
+    /**
+     * Send requests from all the clients during the given duration.
+     * @param phase the name of the phase, used in the report.
+     * @param duration how long to send requests for.
+     * @return the latencies and errors of each endpoint.
+     * @throws InterruptedException
+     */
+    LatencyReport run(String phase, Duration duration) throws InterruptedException {
+        LatencyReport report = new LatencyReport(phase);
+        ExecutorService clients = Executors.newFixedThreadPool(settings.getClients());
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (int client = 0; client < settings.getClients(); client++) {
+            SplittableRandom random = new SplittableRandom(settings.getSeed() * 31 + phase.hashCode() * 17L + client);
+            clients.execute(() -> {
+                while (System.nanoTime() < end) {
+                    send(random, report);
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.plus(REQUEST_TIMEOUT).toMillis(), TimeUnit.MILLISECONDS);
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - start));
+        return report;
+    }
+
+    private void send(SplittableRandom random, LatencyReport report) {
+        Endpoint endpoint = pickEndpoint(random);
+        Long id = switch (endpoint) {
+            case GET, PUT -> liveIds.pick(random);
+            case DELETE -> liveIds.remove(random);
+            case POST -> null;
+        };
+        if (endpoint != Endpoint.POST && id == null) {
+            endpoint = Endpoint.POST;
+        }
+        HttpRequest request = request(endpoint, id, random);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            report.record(endpoint, System.nanoTime() - start, response.statusCode());
+            if (endpoint == Endpoint.POST && response.statusCode() / 100 == 2) {
+                liveIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+            }
+        } catch (IOException ex) {
+            report.recordFailure(endpoint);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Endpoint pickEndpoint(SplittableRandom random) {
+        int total = settings.getPostWeight() + settings.getGetWeight() + settings.getPutWeight() + settings.getDeleteWeight();
+        int pick = random.nextInt(total);
+        if ((pick -= settings.getPostWeight()) < 0) {
+            return Endpoint.POST;
+        }
+        if ((pick -= settings.getGetWeight()) < 0) {
+            return Endpoint.GET;
+        }
+        if (pick - settings.getPutWeight() < 0) {
+            return Endpoint.PUT;
+        }
+        return Endpoint.DELETE;
+    }
+
+    private HttpRequest request(Endpoint endpoint, Long id, SplittableRandom random) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(REQUEST_TIMEOUT);
+        return switch (endpoint) {
+            case POST -> builder.uri(baseUri.resolve("v1/api/generation/upload"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(pickBody(random)))
+                    .build();
+            case GET -> builder.uri(baseUri.resolve("v1/api/generation/" + id))
+                    .GET()
+                    .build();
+            case PUT -> builder.uri(baseUri.resolve("v1/api/generation/update/" + id))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(pickBody(random)))
+                    .build();
+            case DELETE -> builder.uri(baseUri.resolve("v1/api/generation/delete/" + id))
+                    .DELETE()
+                    .build();
+        };
+    }
+
+    private byte[] pickBody(SplittableRandom random) {
+        return multipartBodies.get(random.nextInt(multipartBodies.size()));
+    }
+
+    private static List<byte[]> readDocuments(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        if (fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")) {
+            return Files.readAllLines(path).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(line -> line.getBytes(StandardCharsets.UTF_8))
+                    .toList();
+        }
+        return List.of(Files.readAllBytes(path));
+    }
+
+    private static byte[] multipartBody(byte[] document) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"document.json\"\r\n"
+                + "Content-Type: application/json\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(document);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    /**
+     * Ids of the files uploaded and not deleted yet by the workload.
+     */
+    private static final class LiveIds {
+
+        private long[] ids = new long[1024];
+        private int size;
+
+        synchronized void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        synchronized Long pick(SplittableRandom random) {
+            return size == 0 ? null : ids[random.nextInt(size)];
+        }
+
+        synchronized Long remove(SplittableRandom random) {
+            if (size == 0) {
+                return null;
+            }
+            int index = random.nextInt(size);
+            long id = ids[index];
+            ids[index] = ids[--size];
+            return id;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors of each endpoint during a phase of the load test.
+ */
+class LatencyReport {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String phase;
+    private final Map<GenerationWorkload.Endpoint, Histogram> latencies = new EnumMap<>(GenerationWorkload.Endpoint.class);
+    private final Map<GenerationWorkload.Endpoint, LongAdder> errors = new EnumMap<>(GenerationWorkload.Endpoint.class);
+    private Duration elapsed = Duration.ZERO;
+
+    LatencyReport(String phase) {
+        this.phase = phase;
+        for (GenerationWorkload.Endpoint endpoint : GenerationWorkload.Endpoint.values()) {
+            latencies.put(endpoint, new ConcurrentHistogram(3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    /**
+     * Record a request that got a response, an error if its status is not 2xx.
+     * @param endpoint the endpoint of the request.
+     * @param latencyNanos time from sending the request to receiving the whole response.
+     * @param status the status of the response.
+     */
+    void record(GenerationWorkload.Endpoint endpoint, long latencyNanos, int status) {
+        latencies.get(endpoint).recordValue(latencyNanos);
+        if (status < 200 || status >= 300) {
+            errors.get(endpoint).increment();
+        }
+    }
+
+    /**
+     * Record a request that did not get any response.
+     * @param endpoint the endpoint of the request.
+     */
+    void recordFailure(GenerationWorkload.Endpoint endpoint) {
+        errors.get(endpoint).increment();
+    }
+
+    void setElapsed(Duration elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    long totalCount() {
+        return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+
+    /**
+     * Print, for each endpoint, the number of requests, errors, throughput and latency percentiles in milliseconds.
+     * @param out the stream to print into.
+     */
+    void print(PrintStream out) {
+        double seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+        out.printf("%n%s phase, %.1f s%n", phase, seconds);
+        out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (GenerationWorkload.Endpoint endpoint : GenerationWorkload.Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint);
+            out.printf("%-8s %10d %8d %10.1f %9.3f %9.3f %9.3f %9.3f%n",
+                    endpoint,
+                    histogram.getTotalCount(),
+                    errors.get(endpoint).sum(),
+                    histogram.getTotalCount() / seconds,
+                    histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                    histogram.getMaxValue() / NANOS_PER_MILLI);
+        }
+    }
+
+    /**
+     * Write the percentile distribution of each endpoint, in milliseconds, as phase-endpoint.hgrm files that can be
+     * plotted with the HdrHistogram plotter.
+     * @param directory the directory to write the files into.
+     * @throws IOException
+     */
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (GenerationWorkload.Endpoint endpoint : GenerationWorkload.Endpoint.values()) {
+            Path path = directory.resolve(phase + "-" + endpoint.name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(path))) {
+                latencies.get(endpoint).outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the load test, read from the system properties under the "loadtest" prefix, e.g. -Dloadtest.clients=32.
+ */
+@AllArgsConstructor
+@Getter
+class LoadTestSettings {
+
+    /**
+     * Number of concurrent clients, each one sending its next request once it got the response to the previous one.
+     */
+    private int clients;
+    /**
+     * Duration of the cold phase, measured right after the application started, with an empty database.
+     */
+    private Duration coldDuration;
+    /**
+     * Duration of the warm phase, measured after the cold phase.
+     */
+    private Duration duration;
+    /**
+     * Relative weights of POST, GET, PUT and DELETE requests in the workload.
+     */
+    private int postWeight;
+    private int getWeight;
+    private int putWeight;
+    private int deleteWeight;
+    /**
+     * Seed of the random choices of the clients, so that a workload can be replayed.
+     */
+    private long seed;
+    /**
+     * Documents uploaded by POST and PUT: a json file, or a file with one json document per line.
+     */
+    private Path documents;
+    /**
+     * Directory where the HdrHistogram percentile distributions are written.
+     */
+    private Path outputDirectory;
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.clients", 16),
+                Duration.ofSeconds(Long.getLong("loadtest.cold-seconds", 10)),
+                Duration.ofSeconds(Long.getLong("loadtest.seconds", 30)),
+                Integer.getInteger("loadtest.post-weight", 20),
+                Integer.getInteger("loadtest.get-weight", 60),
+                Integer.getInteger("loadtest.put-weight", 15),
+                Integer.getInteger("loadtest.delete-weight", 5),
+                Long.getLong("loadtest.seed", 42),
+                Path.of(System.getProperty("loadtest.documents", "sample.json")),
+                Path.of(System.getProperty("loadtest.output-directory", "target/loadtest"))
+        );
+    }
+}
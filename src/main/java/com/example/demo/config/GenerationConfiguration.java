@@ -0,0 +1,52 @@
+package com.example.demo.config;
+
+import com.example.demo.service.cache.GenerationResultCache;
+import com.example.demo.service.codec.PayloadCompressor;
+import com.example.demo.service.compute.GenerationComputeEngine;
+import com.example.demo.service.operation.OperationCompiler;
+import com.example.demo.web.GenerationRequestEventInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Clock;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Wiring of the components that are configured through {@link GenerationProperties}.
+ */
+@Configuration
+public class GenerationConfiguration implements WebMvcConfigurer {
+
+    @Bean
+    public GenerationResultCache generationResultCache(GenerationProperties generationProperties) {
+        GenerationProperties.Cache cache = generationProperties.getCache();
+        return new GenerationResultCache(cache.getMaxSize(), cache.getTtl(), Clock.systemUTC());
+    }
+
+    @Bean
+    public GenerationComputeEngine generationComputeEngine(GenerationProperties generationProperties) {
+        GenerationProperties.Compute compute = generationProperties.getCompute();
+        ForkJoinPool forkJoinPool = compute.getParallelism() > 0
+                ? new ForkJoinPool(compute.getParallelism())
+                : ForkJoinPool.commonPool();
+        return new GenerationComputeEngine(forkJoinPool, compute.getParallelThreshold());
+    }
+
+    @Bean
+    public OperationCompiler operationCompiler(GenerationProperties generationProperties) {
+        return new OperationCompiler(generationProperties.getOperation().getCacheSize());
+    }
+
+    @Bean
+    public PayloadCompressor payloadCompressor(GenerationProperties generationProperties) {
+        GenerationProperties.Compression compression = generationProperties.getCompression();
+        return new PayloadCompressor(compression.isEnabled(), compression.getThreshold().toBytes(), compression.getLevel());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new GenerationRequestEventInterceptor()).addPathPatterns("/v1/api/generation/**");
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Application properties under the "generation" prefix.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "generation")
+public class GenerationProperties {
+
+    private Cache cache = new Cache();
+    private Bulk bulk = new Bulk();
+    private Ingest ingest = new Ingest();
+    private Storage storage = new Storage();
+    private Compute compute = new Compute();
+    private Operation operation = new Operation();
+    private Compression compression = new Compression();
+
+    @Getter
+    @Setter
+    public static class Cache {
+        /**
+         * Maximum number of rendered results kept in memory.
+         */
+        private int maxSize = 10_000;
+        /**
+         * Time after which a cached result is discarded, even if it was not invalidated.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Bulk {
+        /**
+         * Maximum number of ids that can be requested at once, either as a list or as a range.
+         */
+        private int maxIds = 10_000;
+        /**
+         * Maximum number of files listed in a single page.
+         */
+        private int maxPageSize = 1_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Ingest {
+        /**
+         * Number of records committed together while ingesting a stream.
+         */
+        private int chunkSize = 500;
+        /**
+         * Maximum length in bytes of a single record of a stream.
+         */
+        private int maxLineLength = 65_536;
+        /**
+         * Maximum number of rejected records reported in the response of an ingestion.
+         */
+        private int maxReportedErrors = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Storage {
+        /**
+         * Storage of the uploaded files: "jpa" for the database, "file" for a memory-mapped local file, "memory" for
+         * off-heap primitive columns which do not survive a restart, "log" for a durable log of local segment files.
+         */
+        private String type = "jpa";
+        /**
+         * Directory of the local files, when the storage is "file" or "log".
+         */
+        private Path directory = Path.of("generation-store");
+        /**
+         * Size the local file is first mapped with. Whenever it is full, a new region as large as the file is mapped.
+         */
+        private DataSize initialSize = DataSize.ofMegabytes(16);
+        /**
+         * Size from which the active segment is sealed and a new one is started, when the storage is "log".
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+        /**
+         * Delay between two checks of the space taken by old versions and tombstones, when the storage is "log".
+         */
+        private Duration compactionInterval = Duration.ofMinutes(1);
+        /**
+         * Share of the sealed segments taken by old versions and tombstones from which they are compacted, or, when the
+         * storage is "file", share of the file from which it is compacted when it is opened.
+         */
+        private double compactionGarbageRatio = 0.5;
+    }
+
+    @Getter
+    @Setter
+    public static class Compute {
+        /**
+         * Number of operands from which the operand arrays of a file are summed in parallel.
+         */
+        private int parallelThreshold = 65_536;
+        /**
+         * Number of threads the operand arrays are summed on, 0 for the common fork-join pool.
+         */
+        private int parallelism = 0;
+    }
+
+    @Getter
+    @Setter
+    public static class Operation {
+        /**
+         * Maximum number of distinct operations kept compiled. Operations seen once it is reached are compiled on every use.
+         */
+        private int cacheSize = 1_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Compression {
+        /**
+         * Whether the uploaded contents are stored compressed and the results sent compressed to the clients accepting it.
+         */
+        private boolean enabled = true;
+        /**
+         * Size from which an uploaded content or a result is compressed.
+         */
+        private DataSize threshold = DataSize.ofKilobytes(64);
+        /**
+         * Deflate compression level, from 0 to 9, or -1 for the default one.
+         */
+        private int level = -1;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.demo.dao;
+
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.service.codec.PayloadCompressor;
+import lombok.AllArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Dao to read the stored content of the uploaded files as a stream, through jdbc, since its entity loads it in memory.
+ * A content stored compressed is decompressed as it is copied.
+ * <p>
+ * It also counts the files referencing each content. Its statements do not go through the persistence context, so
+ * they neither load the contents nor flush the pending inserts of the files, which are still batched.
+ * <p>
+ * The metadata of a file is replaced or deleted here too, in a single statement that also reads the row as it was
+ * before, from the old table of the statement, a data change delta table of H2. The previous content and result of
+ * the file are then known without a select before the write.
+ */
+@AllArgsConstructor
+@Repository
+public class GenerationContentDao {
+
+    private static final String SELECT_DATA_BY_ID = "select d.compressed, d.data from generation_file_entity e " +
+            "left join generation_file_data_entity d on d.hash = e.data_hash where e.id = ?";
+    private static final String FILE_COLUMNS = "id, name, data_hash, valuex, valuey, operation, result, content_hash";
+    private static final String SELECT_BY_ID_FOR_UPDATE =
+            "select " + FILE_COLUMNS + " from generation_file_entity where id = ? for update";
+    private static final String UPDATE_BY_ID = "select " + FILE_COLUMNS + " from old table (" +
+            "update generation_file_entity set name = ?, data_size = ?, data_hash = ?, valuex = ?, valuey = ?, " +
+            "operation = ?, result = ?, content_hash = ? where id = ?";
+    private static final String DELETE_BY_ID =
+            "select " + FILE_COLUMNS + " from old table (delete from generation_file_entity where id = ?)";
+    private static final String ADD_REFERENCES =
+            "update generation_file_data_entity set reference_count = reference_count + ? where hash = ?";
+    private static final String INSERT_DATA =
+            "insert into generation_file_data_entity (hash, data, compressed, reference_count) values (?, ?, ?, ?)";
+    private static final String REMOVE_REFERENCE =
+            "update generation_file_data_entity set reference_count = reference_count - 1 where hash = ?";
+    private static final String DELETE_UNREFERENCED =
+            "delete from generation_file_data_entity where hash = ? and reference_count <= 0";
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private static final RowMapper<GenerationFileEntity> FILE_ROW_MAPPER = (resultSet, rowNum) -> {
+        GenerationFileEntity generationFileEntity = new GenerationFileEntity(
+                resultSet.getLong(1),
+                resultSet.getString(2),
+                null,
+                resultSet.getObject(4, Long.class),
+                resultSet.getObject(5, Long.class),
+                resultSet.getString(6),
+                resultSet.getObject(7, Long.class),
+                resultSet.getString(8)
+        );
+        generationFileEntity.setDataHash(resultSet.getString(3));
+        return generationFileEntity;
+    };
+
+    private JdbcTemplate jdbcTemplate;
+    private PayloadCompressor payloadCompressor;
+
+    /**
+     * Copy the stored content of a file into a stream, straight from the binary stream of the database, decompressing
+     * it in small buffers if it is stored compressed.
+     * @param id the id of the file.
+     * @param outputStream the stream to copy the content into, which is left open.
+     * @return true if the file exists, false otherwise.
+     * @throws UncheckedIOException if the content cannot be copied.
+     */
+    public boolean transferDataById(Long id, OutputStream outputStream) {
+        Boolean found = jdbcTemplate.query(SELECT_DATA_BY_ID, resultSet -> {
+            if (!resultSet.next()) {
+                return false;
+            }
+            boolean compressed = resultSet.getBoolean(1);
+            InputStream data = resultSet.getBinaryStream(2);
+            if (data == null) {
+                return true;
+            }
+            try (InputStream content = compressed ? payloadCompressor.inflating(data) : data) {
+                content.transferTo(outputStream);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return true;
+        }, id);
+        return Boolean.TRUE.equals(found);
+    }
+
+    /**
+     * Read the metadata of a file and lock it until the end of the transaction, so that it cannot change before it is
+     * written from what was read. Its content is not read.
+     * @param id the id of the file.
+     * @return the file, without its content, which is read by {@link GenerationFileEntity#getDataHash()}, or empty if
+     * it does not exist.
+     */
+    public Optional<GenerationFileEntity> findByIdForUpdate(Long id) {
+        return jdbcTemplate.query(SELECT_BY_ID_FOR_UPDATE, FILE_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    /**
+     * Replace the metadata of a file and read its previous metadata with the same statement, only if its current
+     * content hash is one of the expected ones when they are given. Its uploaded content is replaced separately.
+     * @param id the id of the file.
+     * @param name the new name of the file.
+     * @param dataSize the length in bytes of the new uploaded content.
+     * @param dataHash the hash of the new uploaded content.
+     * @param valueX the new valueX.
+     * @param valueY the new valueY.
+     * @param operation the new operation, null for the sum of the operands.
+     * @param result the new result.
+     * @param contentHash the hash of the new result.
+     * @param expectedContentHashes the hashes the file must currently have, or null to update it unconditionally.
+     * @return the file before the update, without its content, or empty if the file does not exist or its content hash
+     * is not an expected one.
+     */
+    public Optional<GenerationFileEntity> updateById(Long id, String name, Integer dataSize, String dataHash, Long valueX,
+                                                     Long valueY, String operation, Long result, String contentHash,
+                                                     Collection<String> expectedContentHashes) {
+        List<Object> parameters = new ArrayList<>(Arrays.asList(name, dataSize, dataHash, valueX, valueY, operation, result,
+                contentHash, id));
+        if (expectedContentHashes == null) {
+            return jdbcTemplate.query(UPDATE_BY_ID + ")", FILE_ROW_MAPPER, parameters.toArray()).stream().findFirst();
+        }
+        if (expectedContentHashes.isEmpty()) {
+            return Optional.empty();
+        }
+        parameters.addAll(expectedContentHashes);
+        String sql = UPDATE_BY_ID + " and content_hash in ("
+                + String.join(", ", Collections.nCopies(expectedContentHashes.size(), "?")) + "))";
+        return jdbcTemplate.query(sql, FILE_ROW_MAPPER, parameters.toArray()).stream().findFirst();
+    }
+
+    /**
+     * Delete a file and read its metadata with the same statement. The content it references is released separately.
+     * @param id the id of the file.
+     * @return the file deleted, without its content, or empty if it does not exist.
+     */
+    public Optional<GenerationFileEntity> deleteById(Long id) {
+        return jdbcTemplate.query(DELETE_BY_ID, FILE_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    /**
+     * Count new references to contents, with a single batch for the contents already stored. The other ones are
+     * stored, compressed if they are large enough and get smaller. A content stored meanwhile by a concurrent
+     * transaction makes the insert fail on its key. The insert is rolled back to a savepoint taken just before it, since
+     * some databases, PostgreSQL among them, abort the whole transaction otherwise, and the content is then referenced.
+     * @param references the number of new references to each content, by hash.
+     * @param contents the contents, by hash.
+     * @throws ConcurrencyFailureException if a content keeps being stored and deleted by concurrent transactions.
+     */
+    public void addReferences(Map<String, Long> references, Map<String, byte[]> contents) {
+        List<Map.Entry<String, Long>> entries = List.copyOf(references.entrySet());
+        int[] updated = jdbcTemplate.batchUpdate(ADD_REFERENCES, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
+                preparedStatement.setLong(1, entries.get(i).getValue());
+                preparedStatement.setString(2, entries.get(i).getKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+        for (int i = 0; i < entries.size(); i++) {
+            if (updated[i] == 0) {
+                insertData(entries.get(i).getKey(), contents.get(entries.get(i).getKey()), entries.get(i).getValue());
+            }
+        }
+    }
+
+    /**
+     * Count one less file referencing a content, and delete it if it was the last one. The count is decremented first,
+     * so that the row stays locked until the transaction ends.
+     * @param hash the hash of the content.
+     */
+    public void removeReference(String hash) {
+        if (jdbcTemplate.update(REMOVE_REFERENCE, hash) > 0) {
+            jdbcTemplate.update(DELETE_UNREFERENCED, hash);
+        }
+    }
+
+    private void insertData(String hash, byte[] data, long references) {
+        byte[] storedData = data;
+        boolean compressed = false;
+        if (payloadCompressor.isCompressible(data.length)) {
+            byte[] deflated = payloadCompressor.deflate(data);
+            if (deflated.length < data.length) {
+                storedData = deflated;
+                compressed = true;
+            }
+        }
+        for (int attempt = 0; attempt < MAX_INSERT_ATTEMPTS; attempt++) {
+            // A content found stored by the insert may be deleted before it is referenced, it is then inserted again.
+            if (insertDataIfAbsent(hash, storedData, compressed, references)
+                    || jdbcTemplate.update(ADD_REFERENCES, references, hash) > 0) {
+                return;
+            }
+        }
+        throw new ConcurrencyFailureException("The content " + hash + " keeps being stored and deleted concurrently");
+    }
+
+    /**
+     * Insert a content, within a savepoint of the current transaction so that only the insert is rolled back if the
+     * content is already stored.
+     * @return true if the content was inserted, false if it is already stored.
+     */
+    private boolean insertDataIfAbsent(String hash, byte[] data, boolean compressed, long references) {
+        Boolean inserted = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_DATA)) {
+                preparedStatement.setString(1, hash);
+                preparedStatement.setBytes(2, data);
+                preparedStatement.setBoolean(3, compressed);
+                preparedStatement.setLong(4, references);
+                preparedStatement.executeUpdate();
+            } catch (SQLException ex) {
+                connection.rollback(savepoint);
+                if (jdbcTemplate.getExceptionTranslator().translate("insertData", INSERT_DATA, ex) instanceof DuplicateKeyException) {
+                    return false;
+                }
+                throw ex;
+            }
+            connection.releaseSavepoint(savepoint);
+            return true;
+        });
+        return Boolean.TRUE.equals(inserted);
+    }
+}
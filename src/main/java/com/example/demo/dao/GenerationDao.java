@@ -1,10 +1,121 @@
 package com.example.demo.dao;
 
 import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * Dao interface to interact with the database for managing the uploaded file.
  */
 public interface GenerationDao extends JpaRepository<GenerationFileEntity, Long> {
+
+    /**
+     * Retrieve the materialized operands and result of a file without loading its content.
+     * @param id the id of the file.
+     * @return the projection of the file, or empty if it does not exist.
+     */
+    @Query("select new com.example.demo.dao.domain.GenerationFileResultView(e.id, e.name, e.valueX, e.valueY, e.operation, e.result, e.contentHash) " +
+            "from GenerationFileEntity e where e.id = :id")
+    Optional<GenerationFileResultView> findResultViewById(@Param("id") Long id);
+
+    /**
+     * Retrieve only the name of a file.
+     * @param id the id of the file.
+     * @return the name of the file, or empty if it does not exist.
+     */
+    @Query("select e.name from GenerationFileEntity e where e.id = :id")
+    Optional<String> findNameById(@Param("id") Long id);
+
+    /**
+     * Retrieve only the content hash of a file, to answer conditional requests without rendering it.
+     * @param id the id of the file.
+     * @return the content hash of the file, or empty if it does not exist or it has no hash.
+     */
+    @Query("select e.contentHash from GenerationFileEntity e where e.id = :id")
+    Optional<String> findContentHashById(@Param("id") Long id);
+
+    /**
+     * Stream, ordered by id, the materialized operands and result of the given files without loading their content.
+     * Must be consumed within a transaction and closed.
+     * @param ids the ids of the files.
+     * @return the projections of the files that exist.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.demo.dao.domain.GenerationFileResultView(e.id, e.name, e.valueX, e.valueY, e.operation, e.result, e.contentHash) " +
+            "from GenerationFileEntity e where e.id in :ids order by e.id")
+    Stream<GenerationFileResultView> streamResultViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stream, ordered by id, the materialized operands and result of the files in a range of ids without loading their content.
+     * Must be consumed within a transaction and closed.
+     * @param from the first id of the range.
+     * @param to the last id of the range.
+     * @return the projections of the files that exist.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.demo.dao.domain.GenerationFileResultView(e.id, e.name, e.valueX, e.valueY, e.operation, e.result, e.contentHash) " +
+            "from GenerationFileEntity e where e.id between :from and :to order by e.id")
+    Stream<GenerationFileResultView> streamResultViewsByIdBetween(@Param("from") Long from, @Param("to") Long to);
+
+    /**
+     * Retrieve the next files, ordered by id, to list them, seeking on the primary key and without selecting their content.
+     * @param id the files returned have an id greater than this one.
+     * @param pageable the maximum number of files returned.
+     * @return the projections of the files.
+     */
+    @Query("select new com.example.demo.dao.domain.GenerationFileSummaryView(e.id, e.name, e.dataSize, e.result) " +
+            "from GenerationFileEntity e where e.id > :id order by e.id")
+    List<GenerationFileSummaryView> findSummaryViewsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Retrieve the next files, ordered by id, with a given name, to list them, seeking on the index on the name and the
+     * id and without selecting their content.
+     * @param name the exact name of the files.
+     * @param id the files returned have an id greater than this one.
+     * @param pageable the maximum number of files returned.
+     * @return the projections of the files.
+     */
+    @Query("select new com.example.demo.dao.domain.GenerationFileSummaryView(e.id, e.name, e.dataSize, e.result) " +
+            "from GenerationFileEntity e where e.name = :name and e.id > :id order by e.id")
+    List<GenerationFileSummaryView> findSummaryViewsByNameAndIdGreaterThan(@Param("name") String name, @Param("id") Long id,
+                                                                           Pageable pageable);
+
+    /**
+     * Set the patched operands of a file along with its result and content hash, in a single statement.
+     * @param id the id of the file.
+     * @param valueX the new valueX.
+     * @param valueY the new valueY.
+     * @param result the new result.
+     * @param contentHash the hash of the new result.
+     * @return the number of files updated, 0 if the file does not exist.
+     */
+    @Modifying
+    @Query("update GenerationFileEntity e set " +
+            "e.valueX = :valueX, e.valueY = :valueY, e.result = :result, e.contentHash = :contentHash " +
+            "where e.id = :id")
+    int updateValuesById(@Param("id") Long id, @Param("valueX") Long valueX, @Param("valueY") Long valueY,
+                         @Param("result") Long result, @Param("contentHash") String contentHash);
+
+    /**
+     * Retrieve the next files, ordered by id, whose result or content hash has not been materialized yet.
+     * @param id the files returned have an id greater than this one.
+     * @param pageable the maximum number of files returned.
+     * @return the files, without their content, which is read by {@link GenerationFileEntity#getDataHash()}.
+     */
+    @Query("select e from GenerationFileEntity e where e.contentHash is null and e.id > :id order by e.id")
+    List<GenerationFileEntity> findWithoutContentHashAfter(@Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,11 @@
+package com.example.demo.dao;
+
+import com.example.demo.dao.domain.GenerationFileDataEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Dao interface to interact with the database for reading the uploaded contents, stored once for each distinct
+ * content and addressed by their hash. They are written and counted by {@link GenerationContentDao}.
+ */
+public interface GenerationDataDao extends JpaRepository<GenerationFileDataEntity, String> {
+}
@@ -0,0 +1,152 @@
+package com.example.demo.dao;
+
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import com.example.demo.error.WrongContentFileFormatException;
+
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Storage of the uploaded files. The implementation is selected with the property generation.storage.type.
+ */
+public interface GenerationStore {
+
+    /**
+     * Save a new file, or replace an existing one if it has an id.
+     * @param generationFileEntity the file.
+     * @return the file saved, with its id.
+     */
+    GenerationFileEntity save(GenerationFileEntity generationFileEntity);
+
+    /**
+     * Save many files at once.
+     * @param generationFileEntities the files.
+     * @return the files saved, with their ids, in the same order.
+     */
+    List<GenerationFileEntity> saveAll(List<GenerationFileEntity> generationFileEntities);
+
+    /**
+     * Check, before it is saved, that a file can be stored, so that a file the store does not support is rejected like
+     * a file with a wrong format. Every file can be stored unless the store restricts them.
+     * @param generationFileEntity the file.
+     * @throws WrongContentFileFormatException if the file cannot be stored.
+     */
+    default void checkStorable(GenerationFileEntity generationFileEntity) {
+    }
+
+    /**
+     * @param id the id of the file.
+     * @return true if the file exists, false otherwise.
+     */
+    boolean existsById(Long id);
+
+    /**
+     * Retrieve the materialized operands and result of a file without loading its content.
+     * @param id the id of the file.
+     * @return the projection of the file, or empty if it does not exist.
+     */
+    Optional<GenerationFileResultView> findResultViewById(Long id);
+
+    /**
+     * Retrieve only the name of a file.
+     * @param id the id of the file.
+     * @return the name of the file, or empty if it does not exist.
+     */
+    Optional<String> findNameById(Long id);
+
+    /**
+     * Retrieve only the content hash of a file.
+     * @param id the id of the file.
+     * @return the content hash of the file, or empty if it does not exist or it has no hash.
+     */
+    Optional<String> findContentHashById(Long id);
+
+    /**
+     * Stream, ordered by id, the materialized operands and result of the given files without loading their content.
+     * Must be consumed within a transaction and closed.
+     * @param ids the ids of the files.
+     * @return the projections of the files that exist.
+     */
+    Stream<GenerationFileResultView> streamResultViewsByIdIn(Collection<Long> ids);
+
+    /**
+     * Stream, ordered by id, the materialized operands and result of the files in a range of ids without loading their content.
+     * Must be consumed within a transaction and closed.
+     * @param from the first id of the range.
+     * @param to the last id of the range.
+     * @return the projections of the files that exist.
+     */
+    Stream<GenerationFileResultView> streamResultViewsByIdBetween(Long from, Long to);
+
+    /**
+     * Retrieve the next files, ordered by id, to list them, without loading their content. The files are found by
+     * seeking to the given id, among the files with the given name if there is one, so retrieving a page does not
+     * depend on how many files come before it.
+     * @param id the files returned have an id greater than this one.
+     * @param name the exact name of the files returned, or null for all the files.
+     * @param limit the maximum number of files returned.
+     * @return the projections of the files.
+     */
+    List<GenerationFileSummaryView> findSummaryViewsAfter(Long id, String name, int limit);
+
+    /**
+     * Copy the stored content of a file into a stream without loading it in memory.
+     * @param id the id of the file.
+     * @param outputStream the stream to copy the content into, which is left open.
+     * @return true if the file exists, false otherwise.
+     * @throws java.io.UncheckedIOException if the content cannot be copied.
+     */
+    boolean transferDataById(Long id, OutputStream outputStream);
+
+    /**
+     * Replace the content of a file without loading it first. Its previous result is read from the row it replaces,
+     * while no other write of the file can run.
+     * @return the result of the file before and after the update, or empty if the file does not exist.
+     */
+    Optional<GenerationFileResultChange> updateById(Long id, String name, byte[] data, Long valueX, Long valueY, String operation,
+                                                    Long result, String contentHash);
+
+    /**
+     * Replace the content of a file, only if its current content hash is one of the expected ones. Its previous result
+     * is read from the row it replaces, while no other write of the file can run.
+     * @return the result of the file before and after the update, or empty if the file does not exist or its content
+     * hash is not an expected one.
+     */
+    Optional<GenerationFileResultChange> updateByIdAndContentHashIn(Long id, String name, byte[] data, Long valueX, Long valueY,
+                                                                    String operation, Long result, String contentHash,
+                                                                    Collection<String> expectedContentHashes);
+
+    /**
+     * Change the operands of a materialized file with a single write. Its new operands, result and content hash are
+     * computed from its current ones while no other write of the file can run.
+     * @param id the id of the file.
+     * @param patch computes the patched projection of the file from its current one. It may throw to reject the patch,
+     * nothing is then written.
+     * @return the result of the file before and after the patch, or empty if the file does not exist, its result has not
+     * been materialized, its operands are arrays or it declares an operation.
+     */
+    Optional<GenerationFileResultChange> updateValuesById(Long id, UnaryOperator<GenerationFileResultView> patch);
+
+    /**
+     * Delete a file without loading it first. Its previous result is read from the row it deletes, while no other write
+     * of the file can run.
+     * @param id the id of the file.
+     * @return the result of the file before the delete, with no result after it, or empty if the file does not exist.
+     */
+    Optional<GenerationFileResultChange> deleteFileById(Long id);
+
+    /**
+     * Retrieve the next files, ordered by id, whose result or content hash has not been materialized yet.
+     * @param id the files returned have an id greater than this one.
+     * @param limit the maximum number of files returned.
+     * @return the files, with their content.
+     */
+    List<GenerationFileEntity> findWithoutContentHashAfter(Long id, int limit);
+}
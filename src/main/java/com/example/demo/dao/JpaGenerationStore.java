@@ -0,0 +1,249 @@
+package com.example.demo.dao;
+
+import com.example.demo.dao.domain.GenerationFileDataEntity;
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import com.example.demo.service.codec.Digests;
+import com.example.demo.service.codec.PayloadCompressor;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Storage of the uploaded files in the database, through JPA, and through jdbc for streaming their content.
+ * This is the default storage.
+ * <p>
+ * The metadata of a file and its uploaded content are two tables, so that finding, checking, patching or deleting a
+ * file never reads its content. The contents are addressed by their SHA-256 hash and stored once for all the files
+ * uploading the same document, each file only referencing it: a content counts the files referencing it, and is
+ * deleted with the last one. Writing a file and its references is done in one transaction. A replaced or deleted
+ * file is written by a single statement which also returns its previous row, giving the hash of its previous content
+ * and its previous result, while a patched file is read first under a row lock, its new operands depending on its
+ * current ones. The references are counted through jdbc, with one batch for all the files saved together, so that
+ * the inserts of the files stay batched. A content from the compression threshold is stored compressed with Deflate,
+ * unless it does not get smaller, and decompressed as it is read.
+ */
+@AllArgsConstructor
+@Repository
+@ConditionalOnProperty(prefix = "generation.storage", name = "type", havingValue = "jpa", matchIfMissing = true)
+public class JpaGenerationStore implements GenerationStore {
+
+    private GenerationDao generationDao;
+    private GenerationDataDao generationDataDao;
+    private GenerationContentDao generationContentDao;
+    private PayloadCompressor payloadCompressor;
+
+    @Override
+    @Transactional
+    public GenerationFileEntity save(GenerationFileEntity generationFileEntity) {
+        if (generationFileEntity.getId() == null) {
+            acquireData(List.of(generationFileEntity));
+            return generationDao.save(generationFileEntity);
+        }
+        Optional<String> previousDataHash = generationContentDao.findByIdForUpdate(generationFileEntity.getId())
+                .map(GenerationFileEntity::getDataHash);
+        acquireData(List.of(generationFileEntity));
+        GenerationFileEntity merged = generationDao.save(generationFileEntity);
+        previousDataHash.ifPresent(generationContentDao::removeReference);
+        return new GenerationFileEntity(merged.getId(), merged.getName(), generationFileEntity.getData(), merged.getValueX(),
+                merged.getValueY(), merged.getOperation(), merged.getResult(), merged.getContentHash());
+    }
+
+    @Override
+    @Transactional
+    public List<GenerationFileEntity> saveAll(List<GenerationFileEntity> generationFileEntities) {
+        if (generationFileEntities.stream().anyMatch(generationFileEntity -> generationFileEntity.getId() != null)) {
+            return generationFileEntities.stream().map(this::save).toList();
+        }
+        acquireData(generationFileEntities);
+        return generationDao.saveAll(generationFileEntities);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return generationDao.existsById(id);
+    }
+
+    @Override
+    public Optional<GenerationFileResultView> findResultViewById(Long id) {
+        return generationDao.findResultViewById(id);
+    }
+
+    @Override
+    public Optional<String> findNameById(Long id) {
+        return generationDao.findNameById(id);
+    }
+
+    @Override
+    public Optional<String> findContentHashById(Long id) {
+        return generationDao.findContentHashById(id);
+    }
+
+    @Override
+    public Stream<GenerationFileResultView> streamResultViewsByIdIn(Collection<Long> ids) {
+        return generationDao.streamResultViewsByIdIn(ids);
+    }
+
+    @Override
+    public Stream<GenerationFileResultView> streamResultViewsByIdBetween(Long from, Long to) {
+        return generationDao.streamResultViewsByIdBetween(from, to);
+    }
+
+    @Override
+    public List<GenerationFileSummaryView> findSummaryViewsAfter(Long id, String name, int limit) {
+        if (name == null) {
+            return generationDao.findSummaryViewsByIdGreaterThan(id, PageRequest.of(0, limit));
+        }
+        return generationDao.findSummaryViewsByNameAndIdGreaterThan(name, id, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public boolean transferDataById(Long id, OutputStream outputStream) {
+        return generationContentDao.transferDataById(id, outputStream);
+    }
+
+    @Override
+    @Transactional
+    public Optional<GenerationFileResultChange> updateById(Long id, String name, byte[] data, Long valueX, Long valueY,
+                                                           String operation, Long result, String contentHash) {
+        return updateByIdAndContentHashIn(id, name, data, valueX, valueY, operation, result, contentHash, null);
+    }
+
+    /**
+     * The file is replaced by a single statement reading its previous row, without expected content hashes for
+     * {@link #updateById}. Its contents are then referenced and released.
+     */
+    @Override
+    @Transactional
+    public Optional<GenerationFileResultChange> updateByIdAndContentHashIn(Long id, String name, byte[] data, Long valueX, Long valueY,
+                                                                           String operation, Long result, String contentHash,
+                                                                           Collection<String> expectedContentHashes) {
+        String dataHash = dataHashOf(data);
+        Optional<GenerationFileEntity> previous = generationContentDao.updateById(id, name, sizeOf(data), dataHash, valueX,
+                valueY, operation, result, contentHash, expectedContentHashes);
+        if (previous.isEmpty()) {
+            return Optional.empty();
+        }
+        replaceData(previous.get().getDataHash(), dataHash, data);
+        return Optional.of(new GenerationFileResultChange(previous.get().getResult(), result));
+    }
+
+    /**
+     * The file is read under a row lock, so that the patch is computed from its committed operands, then written by a
+     * single update statement.
+     */
+    @Override
+    @Transactional
+    public Optional<GenerationFileResultChange> updateValuesById(Long id, UnaryOperator<GenerationFileResultView> patch) {
+        Optional<GenerationFileEntity> current = generationContentDao.findByIdForUpdate(id)
+                .filter(generationFileEntity -> generationFileEntity.getResult() != null && generationFileEntity.getValueX() != null
+                        && generationFileEntity.getValueY() != null && generationFileEntity.getOperation() == null);
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+        GenerationFileEntity generationFileEntity = current.get();
+        GenerationFileResultView patched = patch.apply(new GenerationFileResultView(id, generationFileEntity.getName(),
+                generationFileEntity.getValueX(), generationFileEntity.getValueY(), generationFileEntity.getResult(),
+                generationFileEntity.getContentHash()));
+        generationDao.updateValuesById(id, patched.getValueX(), patched.getValueY(), patched.getResult(), patched.getContentHash());
+        return Optional.of(new GenerationFileResultChange(generationFileEntity.getResult(), patched.getResult()));
+    }
+
+    @Override
+    @Transactional
+    public Optional<GenerationFileResultChange> deleteFileById(Long id) {
+        Optional<GenerationFileEntity> previous = generationContentDao.deleteById(id);
+        if (previous.isEmpty()) {
+            return Optional.empty();
+        }
+        if (previous.get().getDataHash() != null) {
+            generationContentDao.removeReference(previous.get().getDataHash());
+        }
+        return Optional.of(new GenerationFileResultChange(previous.get().getResult(), null));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<GenerationFileEntity> findWithoutContentHashAfter(Long id, int limit) {
+        List<GenerationFileEntity> generationFileEntities = generationDao.findWithoutContentHashAfter(id, PageRequest.of(0, limit));
+        List<String> dataHashes = generationFileEntities.stream()
+                .map(GenerationFileEntity::getDataHash)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<String, GenerationFileDataEntity> dataByHash = generationDataDao.findAllById(dataHashes).stream()
+                .collect(Collectors.toMap(GenerationFileDataEntity::getHash, Function.identity()));
+        return generationFileEntities.stream()
+                .map(generationFileEntity -> new GenerationFileEntity(generationFileEntity.getId(), generationFileEntity.getName(),
+                        dataOf(dataByHash.get(generationFileEntity.getDataHash())), generationFileEntity.getValueX(),
+                        generationFileEntity.getValueY(), generationFileEntity.getOperation(), generationFileEntity.getResult(),
+                        generationFileEntity.getContentHash()))
+                .toList();
+    }
+
+    /**
+     * Set the hash of the content of files and reference it from them, storing the contents no file referenced yet.
+     * @param generationFileEntities the files, with their content.
+     */
+    private void acquireData(List<GenerationFileEntity> generationFileEntities) {
+        Map<String, Long> references = new LinkedHashMap<>();
+        Map<String, byte[]> contents = new HashMap<>();
+        for (GenerationFileEntity generationFileEntity : generationFileEntities) {
+            String dataHash = dataHashOf(generationFileEntity.getData());
+            generationFileEntity.setDataHash(dataHash);
+            if (dataHash != null) {
+                references.merge(dataHash, 1L, Long::sum);
+                contents.putIfAbsent(dataHash, generationFileEntity.getData());
+            }
+        }
+        if (!references.isEmpty()) {
+            generationContentDao.addReferences(references, contents);
+        }
+    }
+
+    private byte[] dataOf(GenerationFileDataEntity generationFileDataEntity) {
+        if (generationFileDataEntity == null) {
+            return null;
+        }
+        return generationFileDataEntity.isCompressed()
+                ? payloadCompressor.inflate(generationFileDataEntity.getData())
+                : generationFileDataEntity.getData();
+    }
+
+    private void replaceData(String previousDataHash, String dataHash, byte[] data) {
+        if (dataHash != null) {
+            generationContentDao.addReferences(Map.of(dataHash, 1L), Map.of(dataHash, data));
+        }
+        if (previousDataHash != null) {
+            generationContentDao.removeReference(previousDataHash);
+        }
+    }
+
+    private static String dataHashOf(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return Digests.sha256Hex(data);
+    }
+
+    private static Integer sizeOf(byte[] data) {
+        return data != null ? data.length : null;
+    }
+}
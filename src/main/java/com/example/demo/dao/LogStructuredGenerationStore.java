@@ -0,0 +1,962 @@
+package com.example.demo.dao;
+
+import com.example.demo.config.GenerationProperties;
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Durable storage of the uploaded files in a log of local segment files, with an in-memory index from id to the
+ * location of the last version of each file.
+ * <p>
+ * Every write appends a new version of the file, or a tombstone when it is deleted, to the active segment, which is
+ * the write-ahead log: a write returns once the segment has been synced to the disk. Concurrent writers share the
+ * same sync, the first one waiting syncs everything appended so far for the others. The active segment is sealed
+ * once it reaches generation.storage.segment-size and a new one is started, the directory being synced once it is
+ * created so that the segment is still found after a crash.
+ * <p>
+ * Each record is checksummed, so a record interrupted by a crash is dropped when the index is rebuilt on startup, by
+ * replaying the segments in order. The time this takes is logged and available with {@link #getRecoveryTime()}.
+ * <p>
+ * A background task compacts the sealed segments once enough of them is taken by old versions and tombstones: the
+ * last version of each file is copied into a single compacted segment, which replaces the sealed ones. The compacted
+ * segment starts with a tombstone of the greatest id assigned, so that ids are never reused after a restart.
+ * <p>
+ * The channels of the segments are shared by every request. A thread interrupted during an I/O closes the channel it
+ * uses: its request fails, and the channel is reopened for the others, which retry their I/O.
+ * <p>
+ * Layout of a record: int length of the body, int CRC32 of the body, then the body: long id, byte flags, long valueX,
+ * long valueY, long result, then the content hash, the name, the content and, only if the file declares one, the
+ * operation, each one as an int length followed by its bytes. The body of a tombstone is only the id and the flags.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "generation.storage", name = "type", havingValue = "log")
+public class LogStructuredGenerationStore implements GenerationStore, Closeable {
+
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String COMPACTED_PREFIX = "compacted-";
+    static final String SUFFIX = ".log";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int SUMMARY_READ_SIZE = 512;
+
+    private static final byte DELETED = 1;
+    private static final byte HAS_VALUE_X = 1 << 1;
+    private static final byte HAS_VALUE_Y = 1 << 2;
+    private static final byte HAS_RESULT = 1 << 3;
+    private static final byte HAS_OPERATION = 1 << 4;
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int ID_OFFSET = 0;
+    private static final int FLAGS_OFFSET = ID_OFFSET + Long.BYTES;
+    private static final int VALUE_X_OFFSET = FLAGS_OFFSET + 1;
+    private static final int VALUE_Y_OFFSET = VALUE_X_OFFSET + Long.BYTES;
+    private static final int RESULT_OFFSET = VALUE_Y_OFFSET + Long.BYTES;
+    private static final int CONTENT_HASH_OFFSET = RESULT_OFFSET + Long.BYTES;
+    private static final int TOMBSTONE_LENGTH = FLAGS_OFFSET + 1;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final double compactionGarbageRatio;
+    private final ConcurrentSkipListMap<Long, Location> index = new ConcurrentSkipListMap<>();
+    private final NameIndex nameIndex = new NameIndex();
+    private final ScheduledExecutorService compactor;
+    private final Duration recoveryTime;
+
+    // Guarded by this. Ordered as they are replayed, the last one is the active segment.
+    private final List<Segment> segments = new ArrayList<>();
+    private long lastId;
+    private long appended;
+
+    private final Object syncMonitor = new Object();
+    // Guarded by syncMonitor.
+    private long synced;
+    private boolean syncing;
+
+    public LogStructuredGenerationStore(GenerationProperties generationProperties) throws IOException {
+        GenerationProperties.Storage storage = generationProperties.getStorage();
+        directory = storage.getDirectory();
+        segmentSize = storage.getSegmentSize().toBytes();
+        compactionGarbageRatio = storage.getCompactionGarbageRatio();
+        Files.createDirectories(directory);
+
+        long start = System.nanoTime();
+        recover();
+        recoveryTime = Duration.ofNanos(System.nanoTime() - start);
+        log.info("Recovered {} files from {} segments of {} in {} ms", index.size(), segments.size(), directory, recoveryTime.toMillis());
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "generation-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = storage.getCompactionInterval().toMillis();
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the time it took to rebuild the index from the segments when the store was opened.
+     */
+    public Duration getRecoveryTime() {
+        return recoveryTime;
+    }
+
+    @Override
+    public GenerationFileEntity save(GenerationFileEntity generationFileEntity) {
+        GenerationFileEntity saved;
+        long end;
+        synchronized (this) {
+            saved = store(generationFileEntity, previousNameOf(generationFileEntity.getId()));
+            end = appended;
+        }
+        awaitSynced(end);
+        return saved;
+    }
+
+    @Override
+    public List<GenerationFileEntity> saveAll(List<GenerationFileEntity> generationFileEntities) {
+        List<GenerationFileEntity> saved = new ArrayList<>(generationFileEntities.size());
+        long end;
+        synchronized (this) {
+            for (GenerationFileEntity generationFileEntity : generationFileEntities) {
+                saved.add(store(generationFileEntity, previousNameOf(generationFileEntity.getId())));
+            }
+            end = appended;
+        }
+        awaitSynced(end);
+        return saved;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return index.containsKey(id);
+    }
+
+    @Override
+    public Optional<GenerationFileResultView> findResultViewById(Long id) {
+        return readById(id).map(LogStructuredGenerationStore::readResultView);
+    }
+
+    @Override
+    public Optional<String> findNameById(Long id) {
+        return readById(id).map(record -> readString(record, skip(record, CONTENT_HASH_OFFSET)));
+    }
+
+    @Override
+    public Optional<String> findContentHashById(Long id) {
+        return readById(id).map(record -> readString(record, CONTENT_HASH_OFFSET));
+    }
+
+    @Override
+    public Stream<GenerationFileResultView> streamResultViewsByIdIn(Collection<Long> ids) {
+        return ids.stream()
+                .distinct()
+                .sorted()
+                .map(this::findResultViewById)
+                .flatMap(Optional::stream);
+    }
+
+    @Override
+    public Stream<GenerationFileResultView> streamResultViewsByIdBetween(Long from, Long to) {
+        return index.subMap(from, true, to, true)
+                .keySet()
+                .stream()
+                .map(this::findResultViewById)
+                .flatMap(Optional::stream);
+    }
+
+    @Override
+    public List<GenerationFileSummaryView> findSummaryViewsAfter(Long id, String name, int limit) {
+        List<GenerationFileSummaryView> generationFileSummaryViews = new ArrayList<>();
+        Collection<Long> ids = name == null ? index.tailMap(id, false).keySet() : nameIndex.idsAfter(name, id);
+        for (Long next : ids) {
+            if (generationFileSummaryViews.size() == limit) {
+                break;
+            }
+            readSummaryViewById(next)
+                    .filter(view -> name == null || name.equals(view.getName()))
+                    .ifPresent(generationFileSummaryViews::add);
+        }
+        return generationFileSummaryViews;
+    }
+
+    /**
+     * Only the beginning of the record is read, to find where its content starts, and the content is then transferred
+     * from the segment straight to the stream, without being loaded on the heap. If the record is moved by a compaction
+     * meanwhile, the transfer resumes from where it stopped in the compacted segment.
+     */
+    @Override
+    public boolean transferDataById(Long id, OutputStream outputStream) {
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        long transferred = 0;
+        while (true) {
+            Location location = index.get(id);
+            if (location == null) {
+                if (transferred > 0) {
+                    throw new UncheckedIOException(new EOFException("File with id " + id + " deleted while it was transferred"));
+                }
+                return false;
+            }
+            try {
+                ByteBuffer record = read(location, HEADER_SIZE, SUMMARY_READ_SIZE);
+                if (!containsDataSize(record)) {
+                    record = read(location, HEADER_SIZE);
+                }
+                int dataPosition = skip(record, skip(record, CONTENT_HASH_OFFSET));
+                int length = record.getInt(dataPosition);
+                long position = location.position() + HEADER_SIZE + dataPosition + Integer.BYTES;
+                while (transferred < length) {
+                    long from = position + transferred;
+                    long remaining = length - transferred;
+                    long count = location.segment().call(channel -> channel.transferTo(from, remaining, target));
+                    if (count == 0) {
+                        throw new EOFException("Truncated record in " + location.segment().path);
+                    }
+                    transferred += count;
+                }
+                return true;
+            } catch (ClosedChannelException ex) {
+                if (index.get(id) == location) {
+                    throw new UncheckedIOException(ex);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    @Override
+    public Optional<GenerationFileResultChange> updateById(Long id, String name, byte[] data, Long valueX, Long valueY,
+                                                           String operation, Long result, String contentHash) {
+        long end;
+        Long previousResult;
+        synchronized (this) {
+            Optional<ByteBuffer> current = readHeadById(id);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            previousResult = readResult(current.get());
+            store(new GenerationFileEntity(id, name, data, valueX, valueY, operation, result, contentHash), readName(current.get()));
+            end = appended;
+        }
+        awaitSynced(end);
+        return Optional.of(new GenerationFileResultChange(previousResult, result));
+    }
+
+    @Override
+    public Optional<GenerationFileResultChange> updateByIdAndContentHashIn(Long id, String name, byte[] data, Long valueX, Long valueY,
+                                                                           String operation, Long result, String contentHash,
+                                                                           Collection<String> expectedContentHashes) {
+        long end;
+        Long previousResult;
+        synchronized (this) {
+            Optional<ByteBuffer> current = readHeadById(id);
+            String currentContentHash = current.map(record -> readString(record, CONTENT_HASH_OFFSET)).orElse(null);
+            if (currentContentHash == null || !expectedContentHashes.contains(currentContentHash)) {
+                return Optional.empty();
+            }
+            previousResult = readResult(current.get());
+            store(new GenerationFileEntity(id, name, data, valueX, valueY, operation, result, contentHash), readName(current.get()));
+            end = appended;
+        }
+        awaitSynced(end);
+        return Optional.of(new GenerationFileResultChange(previousResult, result));
+    }
+
+    /**
+     * The file is rewritten as a whole with its patched operands, result and content hash, with a single append and a
+     * single sync.
+     */
+    @Override
+    public Optional<GenerationFileResultChange> updateValuesById(Long id, UnaryOperator<GenerationFileResultView> patch) {
+        long end;
+        GenerationFileResultChange change;
+        synchronized (this) {
+            Optional<GenerationFileEntity> current = readById(id).map(record -> readEntity(id, record));
+            if (current.isEmpty() || current.get().getResult() == null
+                    || current.get().getValueX() == null || current.get().getValueY() == null || current.get().getOperation() != null) {
+                return Optional.empty();
+            }
+            GenerationFileEntity generationFileEntity = current.get();
+            GenerationFileResultView patched = patch.apply(new GenerationFileResultView(id, generationFileEntity.getName(),
+                    generationFileEntity.getValueX(), generationFileEntity.getValueY(), generationFileEntity.getResult(),
+                    generationFileEntity.getContentHash()));
+            store(new GenerationFileEntity(id, generationFileEntity.getName(), generationFileEntity.getData(), patched.getValueX(),
+                    patched.getValueY(), patched.getResult(), patched.getContentHash()), generationFileEntity.getName());
+            change = new GenerationFileResultChange(generationFileEntity.getResult(), patched.getResult());
+            end = appended;
+        }
+        awaitSynced(end);
+        return Optional.of(change);
+    }
+
+    @Override
+    public Optional<GenerationFileResultChange> deleteFileById(Long id) {
+        long end;
+        Long previousResult;
+        synchronized (this) {
+            Optional<ByteBuffer> current = readHeadById(id);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            previousResult = readResult(current.get());
+            Location tombstone = write(tombstone(id));
+            tombstone.segment().garbage += tombstone.length();
+            discard(index.remove(id));
+            nameIndex.remove(readName(current.get()), id);
+            end = appended;
+        }
+        awaitSynced(end);
+        return Optional.of(new GenerationFileResultChange(previousResult, null));
+    }
+
+    @Override
+    public List<GenerationFileEntity> findWithoutContentHashAfter(Long id, int limit) {
+        List<GenerationFileEntity> generationFileEntities = new ArrayList<>();
+        for (Long next : index.tailMap(id, false).keySet()) {
+            if (generationFileEntities.size() == limit) {
+                break;
+            }
+            readById(next)
+                    .filter(record -> readString(record, CONTENT_HASH_OFFSET) == null)
+                    .map(record -> readEntity(next, record))
+                    .ifPresent(generationFileEntities::add);
+        }
+        return generationFileEntities;
+    }
+
+    /**
+     * Wait for a compaction in progress, sync the active segment and close all the segments.
+     * @throws IOException
+     */
+    @Override
+    @PreDestroy
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (segments.isEmpty()) {
+                return;
+            }
+            active().channel.force(false);
+            for (Segment segment : segments) {
+                segment.retire();
+            }
+            segments.clear();
+        }
+    }
+
+    /**
+     * Copy the last version of each file of the sealed segments into a single compacted segment which replaces them.
+     * Writes and reads go on meanwhile.
+     * @throws IOException if the compacted segment cannot be written, the sealed segments are then left untouched.
+     */
+    void compact() throws IOException {
+        List<Segment> sealed;
+        long greatestId;
+        synchronized (this) {
+            sealed = new ArrayList<>(segments.subList(0, segments.size() - 1));
+            greatestId = lastId;
+        }
+        if (sealed.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Set<Segment> compacting = Collections.newSetFromMap(new IdentityHashMap<>());
+        compacting.addAll(sealed);
+        int number = sealed.get(sealed.size() - 1).number;
+        Path temporary = directory.resolve(COMPACTED_PREFIX + number + SUFFIX + TEMPORARY_SUFFIX);
+
+        List<Move> moves = new ArrayList<>();
+        long size = 0;
+        try (FileChannel output = FileChannel.open(temporary, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            size += writeFully(output, tombstone(greatestId), size);
+            for (Map.Entry<Long, Location> entry : index.entrySet()) {
+                Location location = entry.getValue();
+                if (compacting.contains(location.segment())) {
+                    int length = (int) writeFully(output, read(location, 0), size);
+                    moves.add(new Move(entry.getKey(), location, size, length));
+                    size += length;
+                }
+            }
+            output.force(true);
+        }
+        Path path = directory.resolve(COMPACTED_PREFIX + number + SUFFIX);
+        Files.move(temporary, path, ATOMIC_MOVE);
+        // The sealed segments are only deleted once the compacted one is sure to be found in the directory after a crash.
+        syncDirectory();
+        Segment compacted = new Segment(path, number, FileChannel.open(path, READ, WRITE));
+        compacted.size = size;
+        compacted.garbage = HEADER_SIZE + TOMBSTONE_LENGTH;
+
+        long compactedSize = 0;
+        synchronized (this) {
+            for (Move move : moves) {
+                if (!index.replace(move.id(), move.from(), new Location(compacted, move.position(), move.length()))) {
+                    compacted.garbage += move.length();
+                }
+            }
+            for (Segment segment : sealed) {
+                compactedSize += segment.size;
+            }
+            segments.removeAll(sealed);
+            segments.add(0, compacted);
+        }
+        // Readers which looked the index up before it moved get a ClosedChannelException and look it up again.
+        for (Segment segment : sealed) {
+            segment.retire();
+            if (!segment.path.equals(path)) {
+                Files.delete(segment.path);
+            }
+        }
+        log.info("Compacted {} segments of {} bytes into {} bytes in {} ms",
+                sealed.size(), compactedSize, size, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void compactIfNeeded() {
+        long size = 0;
+        long garbage = 0;
+        synchronized (this) {
+            for (Segment segment : segments.subList(0, Math.max(segments.size() - 1, 0))) {
+                size += segment.size;
+                garbage += segment.garbage;
+            }
+        }
+        if (size == 0 || garbage < size * compactionGarbageRatio) {
+            return;
+        }
+        try {
+            compact();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Compaction of {} failed", directory, ex);
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.sorted().toList();
+        }
+        int compactedNumber = -1;
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            if (name.endsWith(TEMPORARY_SUFFIX)) {
+                Files.delete(path);
+            } else if (name.startsWith(COMPACTED_PREFIX) && name.endsWith(SUFFIX)) {
+                compactedNumber = Math.max(compactedNumber, numberOf(name, COMPACTED_PREFIX));
+            }
+        }
+
+        List<Segment> replayed = new ArrayList<>();
+        int lastNumber = 0;
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            if (!name.endsWith(SUFFIX) || !Files.exists(path)) {
+                continue;
+            }
+            boolean isCompacted = name.startsWith(COMPACTED_PREFIX);
+            if (!isCompacted && !name.startsWith(SEGMENT_PREFIX)) {
+                continue;
+            }
+            int number = numberOf(name, isCompacted ? COMPACTED_PREFIX : SEGMENT_PREFIX);
+            if (isCompacted ? number < compactedNumber : number <= compactedNumber) {
+                // Left over by a compaction interrupted after its compacted segment was written.
+                Files.delete(path);
+                continue;
+            }
+            replayed.add(new Segment(path, number, FileChannel.open(path, READ, WRITE)));
+            lastNumber = Math.max(lastNumber, number);
+        }
+        // The compacted segment has the number of the last segment it replaced, so it is replayed first.
+        replayed.sort(Comparator.comparingInt(segment -> segment.number));
+        // The names of the last versions, only indexed once all the segments are replayed, so that no record is read twice.
+        Map<Long, String> names = new HashMap<>();
+        for (Segment segment : replayed) {
+            replay(segment, names);
+            segments.add(segment);
+        }
+        names.forEach((id, name) -> nameIndex.add(name, id));
+        if (segments.isEmpty() || active().path.getFileName().toString().startsWith(COMPACTED_PREFIX)) {
+            segments.add(openSegment(lastNumber + 1));
+        }
+    }
+
+    private void replay(Segment segment, Map<Long, String> names) throws IOException {
+        long size = segment.channel.size();
+        // Not closed, as it would close the channel.
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(segment.channel.position(0)), READ_BUFFER_SIZE));
+        CRC32 crc = new CRC32();
+        long position = 0;
+        try {
+            while (position + HEADER_SIZE <= size) {
+                int length = input.readInt();
+                int checksum = input.readInt();
+                if (length < TOMBSTONE_LENGTH || position + HEADER_SIZE + length > size) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                input.readFully(body);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                ByteBuffer record = ByteBuffer.wrap(body);
+                long id = record.getLong(ID_OFFSET);
+                Location location = new Location(segment, position, HEADER_SIZE + length);
+                if ((record.get(FLAGS_OFFSET) & DELETED) != 0) {
+                    segment.garbage += location.length();
+                    discard(index.remove(id));
+                    names.remove(id);
+                } else {
+                    discard(index.put(id, location));
+                    names.put(id, readName(record));
+                }
+                lastId = Math.max(lastId, id);
+                position += location.length();
+            }
+        } catch (EOFException ex) {
+            // The last record is incomplete, it is dropped below.
+        }
+        if (position < size) {
+            log.warn("Dropping {} bytes of an incomplete record at the end of {}", size - position, segment.path);
+            segment.channel.truncate(position);
+        }
+        segment.size = position;
+    }
+
+    /**
+     * Append a version of a file and index it.
+     * @param previousName the name of the previous version of the file, null if there is none.
+     */
+    private GenerationFileEntity store(GenerationFileEntity generationFileEntity, String previousName) {
+        long id = generationFileEntity.getId() != null ? generationFileEntity.getId() : lastId + 1;
+        Location location = write(encode(id, generationFileEntity));
+        lastId = Math.max(lastId, id);
+        discard(index.put(id, location));
+        nameIndex.rename(previousName, generationFileEntity.getName(), id);
+        return new GenerationFileEntity(
+                id,
+                generationFileEntity.getName(),
+                generationFileEntity.getData(),
+                generationFileEntity.getValueX(),
+                generationFileEntity.getValueY(),
+                generationFileEntity.getOperation(),
+                generationFileEntity.getResult(),
+                generationFileEntity.getContentHash()
+        );
+    }
+
+    private Location write(ByteBuffer record) {
+        try {
+            Segment segment = active();
+            if (segment.size > 0 && segment.size + record.remaining() > segmentSize) {
+                // Everything before the new segment is synced, so that syncing the active segment is enough.
+                force(segment);
+                segment = openSegment(segment.number + 1);
+                segments.add(segment);
+            }
+            long position = segment.size;
+            int length = (int) writeFully(segment, record, position);
+            segment.size = position + length;
+            appended += length;
+            return new Location(segment, position, length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void awaitSynced(long end) {
+        synchronized (syncMonitor) {
+            while (synced < end && syncing) {
+                try {
+                    syncMonitor.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the generation store to be synced", ex);
+                }
+            }
+            if (synced >= end) {
+                return;
+            }
+            syncing = true;
+        }
+        long target = 0;
+        try {
+            Segment segment;
+            synchronized (this) {
+                target = appended;
+                segment = active();
+            }
+            force(segment);
+        } catch (ClosedByInterruptException ex) {
+            target = 0;
+            throw new UncheckedIOException(ex);
+        } catch (ClosedChannelException ex) {
+            // The segment has been sealed, which synced it, then compacted.
+        } catch (IOException ex) {
+            target = 0;
+            throw new UncheckedIOException(ex);
+        } finally {
+            synchronized (syncMonitor) {
+                synced = Math.max(synced, target);
+                syncing = false;
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    private Optional<GenerationFileSummaryView> readSummaryViewById(Long id) {
+        return readHeadById(id).map(LogStructuredGenerationStore::readSummaryView);
+    }
+
+    /**
+     * Read only the beginning of the record of a file, up to the length of its content, which is enough for most
+     * records, and the whole record only when its name does not fit in it.
+     */
+    private Optional<ByteBuffer> readHeadById(Long id) {
+        Optional<ByteBuffer> record = readById(id, SUMMARY_READ_SIZE);
+        if (record.isPresent() && !containsDataSize(record.get())) {
+            record = readById(id);
+        }
+        return record;
+    }
+
+    private String previousNameOf(Long id) {
+        return id != null && index.containsKey(id) ? readHeadById(id).map(LogStructuredGenerationStore::readName).orElse(null) : null;
+    }
+
+    private Optional<ByteBuffer> readById(Long id) {
+        return readById(id, Integer.MAX_VALUE);
+    }
+
+    private Optional<ByteBuffer> readById(Long id, int maxLength) {
+        while (true) {
+            Location location = index.get(id);
+            if (location == null) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(read(location, HEADER_SIZE, maxLength));
+            } catch (ClosedChannelException ex) {
+                if (index.get(id) == location) {
+                    throw new UncheckedIOException(ex);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static ByteBuffer read(Location location, int skipped) throws IOException {
+        return read(location, skipped, Integer.MAX_VALUE);
+    }
+
+    private static ByteBuffer read(Location location, int skipped, int maxLength) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(Math.min(location.length() - skipped, maxLength));
+        long position = location.position() + skipped;
+        while (record.hasRemaining()) {
+            if (location.segment().call(channel -> channel.read(record, position + record.position())) < 0) {
+                throw new EOFException("Truncated record in " + location.segment().path);
+            }
+        }
+        return record.flip();
+    }
+
+    private static long writeFully(Segment segment, ByteBuffer record, long position) throws IOException {
+        return segment.call(channel -> writeFully(channel, record, position));
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer record, long position) throws IOException {
+        long length = record.remaining();
+        long written = 0;
+        while (written < length) {
+            written += channel.write(record, position + written);
+        }
+        return length;
+    }
+
+    private static void force(Segment segment) throws IOException {
+        segment.call(channel -> {
+            channel.force(false);
+            return null;
+        });
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void discard(Location location) {
+        if (location != null) {
+            location.segment().garbage += location.length();
+        }
+    }
+
+    private Segment active() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private Segment openSegment(int number) throws IOException {
+        Path path = directory.resolve(SEGMENT_PREFIX + number + SUFFIX);
+        Segment segment = new Segment(path, number, FileChannel.open(path, CREATE, READ, WRITE));
+        // Syncing the records of a segment does not sync its entry in the directory, without which they are lost on a crash.
+        syncDirectory();
+        return segment;
+    }
+
+    private static int numberOf(String name, String prefix) {
+        return Integer.parseInt(name.substring(prefix.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static ByteBuffer encode(long id, GenerationFileEntity generationFileEntity) {
+        byte[] contentHash = bytes(generationFileEntity.getContentHash());
+        byte[] name = bytes(generationFileEntity.getName());
+        byte[] data = generationFileEntity.getData();
+        byte[] operation = bytes(generationFileEntity.getOperation());
+        int length = CONTENT_HASH_OFFSET + sizeOf(contentHash) + sizeOf(name) + sizeOf(data) + (operation != null ? sizeOf(operation) : 0);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length)
+                .putInt(length)
+                .putInt(0)
+                .putLong(id)
+                .put(flags(generationFileEntity.getValueX(), generationFileEntity.getValueY(), generationFileEntity.getOperation(),
+                        generationFileEntity.getResult()))
+                .putLong(valueOf(generationFileEntity.getValueX()))
+                .putLong(valueOf(generationFileEntity.getValueY()))
+                .putLong(valueOf(generationFileEntity.getResult()));
+        putBytes(record, contentHash);
+        putBytes(record, name);
+        putBytes(record, data);
+        if (operation != null) {
+            putBytes(record, operation);
+        }
+        return checksum(record);
+    }
+
+    private static ByteBuffer tombstone(long id) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + TOMBSTONE_LENGTH)
+                .putInt(TOMBSTONE_LENGTH)
+                .putInt(0)
+                .putLong(id)
+                .put(DELETED);
+        return checksum(record);
+    }
+
+    private static ByteBuffer checksum(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, record.position() - HEADER_SIZE);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+        return record.flip();
+    }
+
+    private static GenerationFileResultView readResultView(ByteBuffer record) {
+        byte flags = record.get(FLAGS_OFFSET);
+        return new GenerationFileResultView(
+                record.getLong(ID_OFFSET),
+                readString(record, skip(record, CONTENT_HASH_OFFSET)),
+                (flags & HAS_VALUE_X) != 0 ? record.getLong(VALUE_X_OFFSET) : null,
+                (flags & HAS_VALUE_Y) != 0 ? record.getLong(VALUE_Y_OFFSET) : null,
+                (flags & HAS_OPERATION) != 0 ? readString(record, skip(record, skip(record, skip(record, CONTENT_HASH_OFFSET)))) : null,
+                (flags & HAS_RESULT) != 0 ? record.getLong(RESULT_OFFSET) : null,
+                readString(record, CONTENT_HASH_OFFSET)
+        );
+    }
+
+    private static String readName(ByteBuffer record) {
+        return readString(record, skip(record, CONTENT_HASH_OFFSET));
+    }
+
+    private static Long readResult(ByteBuffer record) {
+        return (record.get(FLAGS_OFFSET) & HAS_RESULT) != 0 ? record.getLong(RESULT_OFFSET) : null;
+    }
+
+    private static GenerationFileSummaryView readSummaryView(ByteBuffer record) {
+        int namePosition = skip(record, CONTENT_HASH_OFFSET);
+        int dataSize = record.getInt(skip(record, namePosition));
+        return new GenerationFileSummaryView(
+                record.getLong(ID_OFFSET),
+                readString(record, namePosition),
+                dataSize >= 0 ? dataSize : null,
+                (record.get(FLAGS_OFFSET) & HAS_RESULT) != 0 ? record.getLong(RESULT_OFFSET) : null
+        );
+    }
+
+    private static boolean containsDataSize(ByteBuffer record) {
+        int namePosition = skip(record, CONTENT_HASH_OFFSET);
+        return namePosition + Integer.BYTES <= record.limit() && skip(record, namePosition) + Integer.BYTES <= record.limit();
+    }
+
+    private static GenerationFileEntity readEntity(long id, ByteBuffer record) {
+        GenerationFileResultView view = readResultView(record);
+        ByteBuffer data = readData(record);
+        byte[] bytes = null;
+        if (data != null) {
+            bytes = new byte[data.remaining()];
+            data.get(bytes);
+        }
+        return new GenerationFileEntity(id, view.getName(), bytes, view.getValueX(), view.getValueY(), view.getOperation(), view.getResult(),
+                view.getContentHash());
+    }
+
+    private static ByteBuffer readData(ByteBuffer record) {
+        int dataPosition = skip(record, skip(record, CONTENT_HASH_OFFSET));
+        int length = record.getInt(dataPosition);
+        return length < 0 ? null : record.slice(dataPosition + Integer.BYTES, length);
+    }
+
+    private static String readString(ByteBuffer record, int position) {
+        int length = record.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+        return new String(record.array(), record.arrayOffset() + position + Integer.BYTES, length, StandardCharsets.UTF_8);
+    }
+
+    private static int skip(ByteBuffer record, int position) {
+        return position + Integer.BYTES + Math.max(record.getInt(position), 0);
+    }
+
+    private static void putBytes(ByteBuffer record, byte[] bytes) {
+        if (bytes == null) {
+            record.putInt(-1);
+        } else {
+            record.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return Integer.BYTES + (bytes != null ? bytes.length : 0);
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static byte flags(Long valueX, Long valueY, String operation, Long result) {
+        return (byte) ((valueX != null ? HAS_VALUE_X : 0) | (valueY != null ? HAS_VALUE_Y : 0)
+                | (operation != null ? HAS_OPERATION : 0) | (result != null ? HAS_RESULT : 0));
+    }
+
+    private record Location(Segment segment, long position, int length) {
+    }
+
+    private record Move(Long id, Location from, long position, int length) {
+    }
+
+    @FunctionalInterface
+    private interface ChannelCall<T> {
+        T call(FileChannel channel) throws IOException;
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final int number;
+        // Replaced when a thread interrupted during an I/O closes it, until the segment is retired.
+        private volatile FileChannel channel;
+        private volatile boolean retired;
+        // Guarded by the store.
+        private long size;
+        private long garbage;
+
+        private Segment(Path path, int number, FileChannel channel) {
+            this.path = path;
+            this.number = number;
+            this.channel = channel;
+        }
+
+        /**
+         * Run an I/O on the channel of the segment. If another thread closed it by being interrupted, the channel is
+         * reopened and the I/O run again. If the current thread is the interrupted one, the channel is reopened for the
+         * others and the I/O fails with a {@link ClosedByInterruptException}.
+         * @throws ClosedChannelException if the segment has been retired.
+         */
+        private <T> T call(ChannelCall<T> call) throws IOException {
+            while (true) {
+                FileChannel current = channel;
+                try {
+                    return call.call(current);
+                } catch (ClosedChannelException ex) {
+                    if (!reopen(current) || ex instanceof ClosedByInterruptException) {
+                        throw ex;
+                    }
+                }
+            }
+        }
+
+        private synchronized boolean reopen(FileChannel closed) throws IOException {
+            if (retired) {
+                return false;
+            }
+            if (channel == closed) {
+                channel = FileChannel.open(path, READ, WRITE);
+                log.warn("Reopened {} closed by an interrupted thread", path);
+            }
+            return true;
+        }
+
+        /**
+         * Close the channel of the segment for good. Readers still using it get a {@link ClosedChannelException}.
+         */
+        private synchronized void retire() throws IOException {
+            retired = true;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,714 @@
+package com.example.demo.dao;
+
+import com.example.demo.config.GenerationProperties;
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Storage of the uploaded files in a local file that is memory-mapped, with an in-memory index from id to the offset
+ * of the last version of each file. Reads are lookups in the index and in the mapped memory, without going through
+ * the database.
+ * <p>
+ * The file is a log of records: every write appends a new version of the file, or a tombstone when it is deleted,
+ * and moves the index to it. Records are never modified once written, so reads do not take any lock, while writes are
+ * serialized. The length of a record is written last, and a write returns once the range it wrote has been forced to
+ * the disk, so a record interrupted by a crash is ignored when the index is rebuilt on startup and a record written
+ * is not lost.
+ * <p>
+ * The file is mapped in regions: when it is full, a new region is mapped from the end of the last record, as large
+ * as the file, so that every record is in a single region. The regions already mapped are never replaced, so a reader
+ * never uses a superseded mapping.
+ * <p>
+ * Old versions and tombstones are reclaimed when the store is opened: once they take
+ * generation.storage.compaction-garbage-ratio of the file, the last version of each file is copied into a new file
+ * which replaces it, before the file is mapped. The new file starts with a tombstone of the greatest id assigned if
+ * that file was deleted, so that ids are never reused.
+ * <p>
+ * Layout of a record: int length of the rest of the record, long id, byte flags, long valueX, long valueY, long result,
+ * then the content hash, the name, the content and, only if the file declares one, the operation, each one as an int
+ * length followed by its bytes.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "generation.storage", name = "type", havingValue = "file")
+public class MappedFileGenerationStore implements GenerationStore, Closeable {
+
+    static final String FILE_NAME = "generation-files.dat";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final long MAX_CAPACITY = Integer.MAX_VALUE;
+    private static final int TRANSFER_CHUNK_SIZE = 8192;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private static final byte DELETED = 1;
+    private static final byte HAS_VALUE_X = 1 << 1;
+    private static final byte HAS_VALUE_Y = 1 << 2;
+    private static final byte HAS_RESULT = 1 << 3;
+    private static final byte HAS_OPERATION = 1 << 4;
+
+    private static final int ID_OFFSET = Integer.BYTES;
+    private static final int FLAGS_OFFSET = ID_OFFSET + Long.BYTES;
+    private static final int VALUE_X_OFFSET = FLAGS_OFFSET + 1;
+    private static final int VALUE_Y_OFFSET = VALUE_X_OFFSET + Long.BYTES;
+    private static final int RESULT_OFFSET = VALUE_Y_OFFSET + Long.BYTES;
+    private static final int CONTENT_HASH_OFFSET = RESULT_OFFSET + Long.BYTES;
+    private static final int TOMBSTONE_LENGTH = FLAGS_OFFSET + 1 - Integer.BYTES;
+
+    private final FileChannel channel;
+    private final ConcurrentSkipListMap<Long, Integer> index = new ConcurrentSkipListMap<>();
+    private final NameIndex nameIndex = new NameIndex();
+
+    // Ordered by start, only appended to when the file grows. Readers must read it after looking up the index, so that
+    // it covers the offset found.
+    private volatile Region[] regions;
+    private int writePosition;
+    private long lastId;
+
+    public MappedFileGenerationStore(GenerationProperties generationProperties) throws IOException {
+        GenerationProperties.Storage storage = generationProperties.getStorage();
+        Files.createDirectories(storage.getDirectory());
+        Path path = storage.getDirectory().resolve(FILE_NAME);
+
+        long start = System.nanoTime();
+        FileChannel opened = FileChannel.open(path, CREATE, READ, WRITE);
+        Map<Long, Integer> sizes = new HashMap<>();
+        recover(opened, sizes);
+        long live = sizes.values().stream().mapToLong(Integer::longValue).sum()
+                + (lastId > 0 && !index.containsKey(lastId) ? Integer.BYTES + TOMBSTONE_LENGTH : 0);
+        long garbage = writePosition - live;
+        if (garbage > 0 && garbage >= writePosition * storage.getCompactionGarbageRatio()) {
+            opened = compact(path, opened, sizes);
+        }
+        channel = opened;
+        long capacity = Math.max(channel.size(), storage.getInitialSize().toBytes());
+        regions = new Region[] {new Region(0, map(0, capacity))};
+        log.info("Opened {} with {} files in {} ms", path, index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public synchronized GenerationFileEntity save(GenerationFileEntity generationFileEntity) {
+        int from = writePosition;
+        GenerationFileEntity saved = store(generationFileEntity);
+        force(from, writePosition);
+        return saved;
+    }
+
+    @Override
+    public synchronized List<GenerationFileEntity> saveAll(List<GenerationFileEntity> generationFileEntities) {
+        List<GenerationFileEntity> saved = new ArrayList<>(generationFileEntities.size());
+        int from = writePosition;
+        for (GenerationFileEntity generationFileEntity : generationFileEntities) {
+            saved.add(store(generationFileEntity));
+        }
+        force(from, writePosition);
+        return saved;
+    }
+
+    private GenerationFileEntity store(GenerationFileEntity generationFileEntity) {
+        long id = generationFileEntity.getId() != null ? generationFileEntity.getId() : lastId + 1;
+        lastId = Math.max(lastId, id);
+        int position = append(
+                id,
+                flags(generationFileEntity.getValueX(), generationFileEntity.getValueY(), generationFileEntity.getOperation(),
+                        generationFileEntity.getResult()),
+                generationFileEntity.getValueX(),
+                generationFileEntity.getValueY(),
+                generationFileEntity.getResult(),
+                bytes(generationFileEntity.getContentHash()),
+                bytes(generationFileEntity.getName()),
+                generationFileEntity.getData() != null ? ByteBuffer.wrap(generationFileEntity.getData()) : null,
+                bytes(generationFileEntity.getOperation())
+        );
+        Integer previous = index.put(id, position);
+        nameIndex.rename(previous != null ? readName(previous) : null, generationFileEntity.getName(), id);
+        return new GenerationFileEntity(
+                id,
+                generationFileEntity.getName(),
+                generationFileEntity.getData(),
+                generationFileEntity.getValueX(),
+                generationFileEntity.getValueY(),
+                generationFileEntity.getOperation(),
+                generationFileEntity.getResult(),
+                generationFileEntity.getContentHash()
+        );
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return index.containsKey(id);
+    }
+
+    @Override
+    public Optional<GenerationFileResultView> findResultViewById(Long id) {
+        Integer position = index.get(id);
+        if (position == null) {
+            return Optional.empty();
+        }
+        return Optional.of(readResultView(position));
+    }
+
+    @Override
+    public Optional<String> findNameById(Long id) {
+        Integer position = index.get(id);
+        if (position == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(readName(position));
+    }
+
+    @Override
+    public Optional<String> findContentHashById(Long id) {
+        Integer position = index.get(id);
+        if (position == null) {
+            return Optional.empty();
+        }
+        Region region = regionOf(position);
+        return Optional.ofNullable(readString(region.buffer(), region.offsetOf(position) + CONTENT_HASH_OFFSET));
+    }
+
+    @Override
+    public Stream<GenerationFileResultView> streamResultViewsByIdIn(Collection<Long> ids) {
+        return ids.stream()
+                .distinct()
+                .sorted()
+                .map(this::findResultViewById)
+                .flatMap(Optional::stream);
+    }
+
+    @Override
+    public Stream<GenerationFileResultView> streamResultViewsByIdBetween(Long from, Long to) {
+        return index.subMap(from, true, to, true)
+                .values()
+                .stream()
+                .map(this::readResultView);
+    }
+
+    @Override
+    public List<GenerationFileSummaryView> findSummaryViewsAfter(Long id, String name, int limit) {
+        List<GenerationFileSummaryView> generationFileSummaryViews = new ArrayList<>();
+        if (name == null) {
+            for (Integer position : index.tailMap(id, false).values()) {
+                if (generationFileSummaryViews.size() == limit) {
+                    break;
+                }
+                generationFileSummaryViews.add(readSummaryView(position));
+            }
+            return generationFileSummaryViews;
+        }
+        for (Long next : nameIndex.idsAfter(name, id)) {
+            if (generationFileSummaryViews.size() == limit) {
+                break;
+            }
+            Integer position = index.get(next);
+            if (position != null) {
+                GenerationFileSummaryView view = readSummaryView(position);
+                if (name.equals(view.getName())) {
+                    generationFileSummaryViews.add(view);
+                }
+            }
+        }
+        return generationFileSummaryViews;
+    }
+
+    @Override
+    public boolean transferDataById(Long id, OutputStream outputStream) {
+        Integer position = index.get(id);
+        if (position == null) {
+            return false;
+        }
+        Region region = regionOf(position);
+        ByteBuffer data = readData(region.buffer(), region.offsetOf(position));
+        if (data == null) {
+            return true;
+        }
+        byte[] chunk = new byte[Math.min(data.remaining(), TRANSFER_CHUNK_SIZE)];
+        try {
+            while (data.hasRemaining()) {
+                int length = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, length);
+                outputStream.write(chunk, 0, length);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized Optional<GenerationFileResultChange> updateById(Long id, String name, byte[] data, Long valueX, Long valueY,
+                                                                        String operation, Long result, String contentHash) {
+        Integer position = index.get(id);
+        if (position == null) {
+            return Optional.empty();
+        }
+        Region region = regionOf(position);
+        Long previousResult = readResult(region.buffer(), region.offsetOf(position));
+        save(new GenerationFileEntity(id, name, data, valueX, valueY, operation, result, contentHash));
+        return Optional.of(new GenerationFileResultChange(previousResult, result));
+    }
+
+    @Override
+    public synchronized Optional<GenerationFileResultChange> updateByIdAndContentHashIn(Long id, String name, byte[] data, Long valueX,
+                                                                                        Long valueY, String operation, Long result,
+                                                                                        String contentHash,
+                                                                                        Collection<String> expectedContentHashes) {
+        Integer position = index.get(id);
+        if (position == null) {
+            return Optional.empty();
+        }
+        GenerationFileResultView current = readResultView(position);
+        if (current.getContentHash() == null || !expectedContentHashes.contains(current.getContentHash())) {
+            return Optional.empty();
+        }
+        save(new GenerationFileEntity(id, name, data, valueX, valueY, operation, result, contentHash));
+        return Optional.of(new GenerationFileResultChange(current.getResult(), result));
+    }
+
+    @Override
+    public synchronized Optional<GenerationFileResultChange> updateValuesById(Long id, UnaryOperator<GenerationFileResultView> patch) {
+        Integer position = index.get(id);
+        if (position == null) {
+            return Optional.empty();
+        }
+        Region region = regionOf(position);
+        MappedByteBuffer source = region.buffer();
+        int offset = region.offsetOf(position);
+        byte flags = source.get(offset + FLAGS_OFFSET);
+        if ((flags & HAS_RESULT) == 0 || (flags & HAS_VALUE_X) == 0 || (flags & HAS_VALUE_Y) == 0 || (flags & HAS_OPERATION) != 0) {
+            return Optional.empty();
+        }
+        GenerationFileResultView current = readResultView(source, offset);
+        GenerationFileResultView patched = patch.apply(current);
+        int from = writePosition;
+        rewrite(id, source, offset, flags(patched.getValueX(), patched.getValueY(), null, patched.getResult()),
+                patched.getValueX(), patched.getValueY(), patched.getResult(), bytes(patched.getContentHash()));
+        force(from, writePosition);
+        return Optional.of(new GenerationFileResultChange(current.getResult(), patched.getResult()));
+    }
+
+    @Override
+    public synchronized Optional<GenerationFileResultChange> deleteFileById(Long id) {
+        Integer previous = index.get(id);
+        if (previous == null) {
+            return Optional.empty();
+        }
+        Region previousRegion = regionOf(previous);
+        Long previousResult = readResult(previousRegion.buffer(), previousRegion.offsetOf(previous));
+        int position = reserve(TOMBSTONE_LENGTH);
+        Region region = regionOf(position);
+        MappedByteBuffer target = region.buffer();
+        int offset = region.offsetOf(position);
+        target.putLong(offset + ID_OFFSET, id);
+        target.put(offset + FLAGS_OFFSET, DELETED);
+        target.putInt(offset, TOMBSTONE_LENGTH);
+        writePosition = position + Integer.BYTES + TOMBSTONE_LENGTH;
+        force(position, writePosition);
+        index.remove(id);
+        nameIndex.remove(readName(previous), id);
+        return Optional.of(new GenerationFileResultChange(previousResult, null));
+    }
+
+    @Override
+    public List<GenerationFileEntity> findWithoutContentHashAfter(Long id, int limit) {
+        List<GenerationFileEntity> generationFileEntities = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : index.tailMap(id, false).entrySet()) {
+            if (generationFileEntities.size() == limit) {
+                break;
+            }
+            Region region = regionOf(entry.getValue());
+            int offset = region.offsetOf(entry.getValue());
+            if (readString(region.buffer(), offset + CONTENT_HASH_OFFSET) == null) {
+                generationFileEntities.add(readEntity(entry.getKey(), region.buffer(), offset));
+            }
+        }
+        return generationFileEntities;
+    }
+
+    /**
+     * Flush the mapped memory to the disk and close the file.
+     * @throws IOException
+     */
+    @Override
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            for (Region region : regions) {
+                region.buffer().force();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Rebuild the index by reading the records in order, through the channel, until the first one whose length was
+     * not written.
+     * @param sizes filled with the size of the last record of each file.
+     */
+    private void recover(FileChannel channel, Map<Long, Integer> sizes) throws IOException {
+        long size = channel.size();
+        // Not closed, as it would close the channel.
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)), READ_BUFFER_SIZE));
+        // The names of the last versions, only indexed once all the records are read.
+        Map<Long, String> names = new HashMap<>();
+        int position = 0;
+        try {
+            while (position + Integer.BYTES <= size) {
+                int length = input.readInt();
+                if (length <= 0 || (long) position + Integer.BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length).putInt(0, length);
+                input.readFully(record.array(), Integer.BYTES, length);
+                long id = record.getLong(ID_OFFSET);
+                if ((record.get(FLAGS_OFFSET) & DELETED) != 0) {
+                    index.remove(id);
+                    sizes.remove(id);
+                    names.remove(id);
+                } else {
+                    index.put(id, position);
+                    sizes.put(id, record.capacity());
+                    names.put(id, readName(record, 0));
+                }
+                lastId = Math.max(lastId, id);
+                position += record.capacity();
+            }
+        } catch (EOFException ex) {
+            // The file ends in the middle of a record, which is ignored like one whose length was not written.
+        }
+        writePosition = position;
+        names.forEach((id, name) -> nameIndex.add(name, id));
+    }
+
+    /**
+     * Copy the last version of each file into a new file which replaces the current one, and move the index to it.
+     * @param sizes the size of the last record of each file.
+     * @return the channel of the new file.
+     */
+    private FileChannel compact(Path path, FileChannel input, Map<Long, Integer> sizes) throws IOException {
+        long start = System.nanoTime();
+        int previousSize = writePosition;
+        Path temporary = path.resolveSibling(FILE_NAME + TEMPORARY_SUFFIX);
+        Map<Long, Integer> positions = new HashMap<>();
+        int position = 0;
+        try (FileChannel output = FileChannel.open(temporary, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            if (lastId > 0 && !index.containsKey(lastId)) {
+                ByteBuffer tombstone = ByteBuffer.allocate(Integer.BYTES + TOMBSTONE_LENGTH)
+                        .putInt(TOMBSTONE_LENGTH)
+                        .putLong(lastId)
+                        .put(DELETED)
+                        .flip();
+                while (tombstone.hasRemaining()) {
+                    output.write(tombstone);
+                }
+                position += Integer.BYTES + TOMBSTONE_LENGTH;
+            }
+            for (Map.Entry<Long, Integer> entry : index.entrySet()) {
+                int size = sizes.get(entry.getKey());
+                for (long transferred = 0; transferred < size; ) {
+                    long count = input.transferTo(entry.getValue() + transferred, size - transferred, output);
+                    if (count == 0) {
+                        throw new EOFException("Truncated record in " + path);
+                    }
+                    transferred += count;
+                }
+                positions.put(entry.getKey(), position);
+                position += size;
+            }
+            output.force(true);
+        }
+        input.close();
+        Files.move(temporary, path, ATOMIC_MOVE);
+        // Syncing the new file does not sync its entry in the directory, without which it could be lost on a crash.
+        try (FileChannel directory = FileChannel.open(path.getParent(), READ)) {
+            directory.force(true);
+        }
+        index.putAll(positions);
+        writePosition = position;
+        log.info("Compacted {} from {} bytes into {} bytes in {} ms", path, previousSize, position, (System.nanoTime() - start) / 1_000_000);
+        return FileChannel.open(path, READ, WRITE);
+    }
+
+    private void rewrite(long id, MappedByteBuffer source, int offset, byte flags, long valueX, long valueY, long result, byte[] contentHash) {
+        int namePosition = skip(source, offset + CONTENT_HASH_OFFSET);
+        int newPosition = append(
+                id,
+                flags,
+                valueX,
+                valueY,
+                result,
+                contentHash,
+                readBytes(source, namePosition),
+                readData(source, offset),
+                bytes(readOperation(source, offset))
+        );
+        index.put(id, newPosition);
+    }
+
+    private int append(long id, byte flags, Long valueX, Long valueY, Long result, byte[] contentHash, byte[] name, ByteBuffer data,
+                       byte[] operation) {
+        int length = CONTENT_HASH_OFFSET - Integer.BYTES
+                + sizeOf(contentHash) + sizeOf(name) + Integer.BYTES + (data != null ? data.remaining() : 0)
+                + (operation != null ? sizeOf(operation) : 0);
+        int position = reserve(length);
+        Region region = regionOf(position);
+        MappedByteBuffer target = region.buffer();
+        int offset = region.offsetOf(position);
+        target.putLong(offset + ID_OFFSET, id);
+        target.put(offset + FLAGS_OFFSET, flags);
+        target.putLong(offset + VALUE_X_OFFSET, valueX != null ? valueX : 0L);
+        target.putLong(offset + VALUE_Y_OFFSET, valueY != null ? valueY : 0L);
+        target.putLong(offset + RESULT_OFFSET, result != null ? result : 0L);
+        int next = putBytes(target, offset + CONTENT_HASH_OFFSET, contentHash);
+        next = putBytes(target, next, name);
+        if (data == null) {
+            target.putInt(next, -1);
+            next += Integer.BYTES;
+        } else {
+            target.putInt(next, data.remaining());
+            target.put(next + Integer.BYTES, data, data.position(), data.remaining());
+            next += Integer.BYTES + data.remaining();
+        }
+        if (operation != null) {
+            putBytes(target, next, operation);
+        }
+        target.putInt(offset, length);
+        writePosition = position + Integer.BYTES + length;
+        return position;
+    }
+
+    /**
+     * Make sure the last region has room for a record, mapping a new region from the end of the last record if it has not.
+     * @param length the length of the record, without its own length.
+     * @return the position of the record.
+     */
+    private int reserve(int length) {
+        long end = (long) writePosition + Integer.BYTES + length;
+        Region[] current = regions;
+        if (end > current[current.length - 1].end()) {
+            if (end > MAX_CAPACITY) {
+                throw new IllegalStateException("The generation store is full");
+            }
+            long size = Math.min(Math.max(end, 2L * writePosition), MAX_CAPACITY) - writePosition;
+            Region[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = new Region(writePosition, map(writePosition, size));
+            try {
+                // The file has grown: its new size must be synced for the records written beyond the previous one to be found.
+                channel.force(true);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            regions = grown;
+        }
+        return writePosition;
+    }
+
+    private MappedByteBuffer map(long position, long size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Force a range of the file to the disk, in each of the regions it spans.
+     * @param from the first position of the range.
+     * @param to the position after the range.
+     */
+    private void force(int from, int to) {
+        Region[] current = regions;
+        for (int i = current.length - 1; i >= 0 && to > from; i--) {
+            Region region = current[i];
+            if (region.start() < to) {
+                int start = Math.max(from, region.start());
+                region.buffer().force(region.offsetOf(start), to - start);
+                to = start;
+            }
+        }
+    }
+
+    /**
+     * @param position the position of a record in the file.
+     * @return the region the record was written in, the last one starting before it.
+     */
+    private Region regionOf(int position) {
+        Region[] current = regions;
+        int low = 0;
+        int high = current.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (current[middle].start() <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return current[low];
+    }
+
+    private GenerationFileResultView readResultView(int position) {
+        Region region = regionOf(position);
+        return readResultView(region.buffer(), region.offsetOf(position));
+    }
+
+    private GenerationFileSummaryView readSummaryView(int position) {
+        Region region = regionOf(position);
+        return readSummaryView(region.buffer(), region.offsetOf(position));
+    }
+
+    private String readName(int position) {
+        Region region = regionOf(position);
+        return readName(region.buffer(), region.offsetOf(position));
+    }
+
+    private static GenerationFileResultView readResultView(MappedByteBuffer source, int position) {
+        byte flags = source.get(position + FLAGS_OFFSET);
+        int namePosition = skip(source, position + CONTENT_HASH_OFFSET);
+        return new GenerationFileResultView(
+                source.getLong(position + ID_OFFSET),
+                readString(source, namePosition),
+                (flags & HAS_VALUE_X) != 0 ? source.getLong(position + VALUE_X_OFFSET) : null,
+                (flags & HAS_VALUE_Y) != 0 ? source.getLong(position + VALUE_Y_OFFSET) : null,
+                readOperation(source, position),
+                (flags & HAS_RESULT) != 0 ? source.getLong(position + RESULT_OFFSET) : null,
+                readString(source, position + CONTENT_HASH_OFFSET)
+        );
+    }
+
+    private static Long readResult(MappedByteBuffer source, int position) {
+        return (source.get(position + FLAGS_OFFSET) & HAS_RESULT) != 0 ? source.getLong(position + RESULT_OFFSET) : null;
+    }
+
+    private static GenerationFileSummaryView readSummaryView(MappedByteBuffer source, int position) {
+        int namePosition = skip(source, position + CONTENT_HASH_OFFSET);
+        int dataSize = source.getInt(skip(source, namePosition));
+        return new GenerationFileSummaryView(
+                source.getLong(position + ID_OFFSET),
+                readString(source, namePosition),
+                dataSize >= 0 ? dataSize : null,
+                (source.get(position + FLAGS_OFFSET) & HAS_RESULT) != 0 ? source.getLong(position + RESULT_OFFSET) : null
+        );
+    }
+
+    private static GenerationFileEntity readEntity(long id, MappedByteBuffer source, int position) {
+        GenerationFileResultView view = readResultView(source, position);
+        ByteBuffer data = readData(source, position);
+        byte[] bytes = null;
+        if (data != null) {
+            bytes = new byte[data.remaining()];
+            data.get(bytes);
+        }
+        return new GenerationFileEntity(id, view.getName(), bytes, view.getValueX(), view.getValueY(), view.getOperation(), view.getResult(),
+                view.getContentHash());
+    }
+
+    private static ByteBuffer readData(MappedByteBuffer source, int position) {
+        int dataPosition = skip(source, skip(source, position + CONTENT_HASH_OFFSET));
+        int length = source.getInt(dataPosition);
+        return length < 0 ? null : source.slice(dataPosition + Integer.BYTES, length);
+    }
+
+    private static String readName(ByteBuffer source, int position) {
+        return readString(source, skip(source, position + CONTENT_HASH_OFFSET));
+    }
+
+    private static String readOperation(MappedByteBuffer source, int position) {
+        if ((source.get(position + FLAGS_OFFSET) & HAS_OPERATION) == 0) {
+            return null;
+        }
+        return readString(source, skip(source, skip(source, skip(source, position + CONTENT_HASH_OFFSET))));
+    }
+
+    private static String readString(ByteBuffer source, int position) {
+        byte[] bytes = readBytes(source, position);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] readBytes(ByteBuffer source, int position) {
+        int length = source.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        source.get(position + Integer.BYTES, bytes);
+        return bytes;
+    }
+
+    private static int skip(ByteBuffer source, int position) {
+        return position + Integer.BYTES + Math.max(source.getInt(position), 0);
+    }
+
+    private static int putBytes(MappedByteBuffer target, int position, byte[] bytes) {
+        if (bytes == null) {
+            target.putInt(position, -1);
+            return position + Integer.BYTES;
+        }
+        target.putInt(position, bytes.length);
+        target.put(position + Integer.BYTES, bytes);
+        return position + Integer.BYTES + bytes.length;
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return Integer.BYTES + (bytes != null ? bytes.length : 0);
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte flags(Long valueX, Long valueY, String operation, Long result) {
+        return (byte) ((valueX != null ? HAS_VALUE_X : 0) | (valueY != null ? HAS_VALUE_Y : 0)
+                | (operation != null ? HAS_OPERATION : 0) | (result != null ? HAS_RESULT : 0));
+    }
+
+    /**
+     * A mapping of the file from a position, holding the records written from that position until the next region.
+     */
+    private record Region(int start, MappedByteBuffer buffer) {
+
+        long end() {
+            return (long) start + buffer.capacity();
+        }
+
+        int offsetOf(int position) {
+            return position - start;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.dao;
+
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of the ids of the files by name, ordered, for the stores which index the files by id themselves,
+ * so that the files with a given name are listed by seeking to an id among the ids of that name rather than by
+ * scanning all the files. Files without a name are not indexed.
+ * <p>
+ * The stores update it while their writes are serialized, and read it without locking: a reader may still see a file
+ * under the name it had before a concurrent write, so it checks the name of the files it reads.
+ */
+final class NameIndex {
+
+    private final ConcurrentHashMap<String, NavigableSet<Long>> idsByName = new ConcurrentHashMap<>();
+
+    /**
+     * Index a file under its name.
+     * @param name the name of the file, or null.
+     * @param id the id of the file.
+     */
+    void add(String name, long id) {
+        if (name != null) {
+            idsByName.compute(name, (key, ids) -> {
+                NavigableSet<Long> updated = ids != null ? ids : new ConcurrentSkipListSet<>();
+                updated.add(id);
+                return updated;
+            });
+        }
+    }
+
+    /**
+     * Stop indexing a file under a name, forgetting the name once no file has it.
+     * @param name the name of the file, or null.
+     * @param id the id of the file.
+     */
+    void remove(String name, long id) {
+        if (name != null) {
+            idsByName.computeIfPresent(name, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Index a file under its new name. The file is indexed under its new name before it is removed from its previous one.
+     * @param previousName the name of the file before it was written, or null.
+     * @param name the name of the file, or null.
+     * @param id the id of the file.
+     */
+    void rename(String previousName, String name, long id) {
+        if (!Objects.equals(previousName, name)) {
+            add(name, id);
+            remove(previousName, id);
+        }
+    }
+
+    /**
+     * @param name the name of the files.
+     * @param id the ids returned are greater than this one.
+     * @return the ids of the files with this name after the given id, in increasing order.
+     */
+    NavigableSet<Long> idsAfter(String name, long id) {
+        NavigableSet<Long> ids = idsByName.get(name);
+        return ids != null ? ids.tailSet(id, false) : Collections.emptyNavigableSet();
+    }
+}
@@ -0,0 +1,535 @@
+package com.example.demo.dao;
+
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import com.example.demo.error.WrongContentFileFormatException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * In-memory storage of the uploaded files for documents made only of their two operands. Each file is a fixed-size
+ * slot of primitive fields in off-heap segments, addressed directly by its id, since ids are assigned in increasing
+ * order: valueX, valueY, result, the code of its name in a dictionary of names, the raw SHA-256 content hash and flags.
+ * A file takes {@value #SLOT_SIZE} bytes and no object on the heap, besides its name the first time it is seen.
+ * <p>
+ * The dictionary counts the files having each name: a name is released once no file has it anymore, after the delete
+ * or the update of its last file, and its code is reused by the next new name, so the dictionary only holds the names
+ * in use.
+ * <p>
+ * The uploaded content is not kept: the content of a file is served in its canonical form, rebuilt from its operands.
+ * Files with operand arrays or declaring an operation are therefore rejected as having a wrong format, before anything
+ * is saved. Nothing survives a restart.
+ * <p>
+ * Writes are serialized with a {@link StampedLock} and reads are optimistic: they read the slot without locking and
+ * only fall back to the read lock if a write happened meanwhile.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "generation.storage", name = "type", havingValue = "memory")
+public class OffHeapGenerationStore implements GenerationStore {
+
+    static final int SLOT_SIZE = 64;
+    private static final int SLOTS_PER_SEGMENT = 1 << 14;
+
+    private static final int VALUE_X_OFFSET = 0;
+    private static final int VALUE_Y_OFFSET = VALUE_X_OFFSET + Long.BYTES;
+    private static final int RESULT_OFFSET = VALUE_Y_OFFSET + Long.BYTES;
+    private static final int NAME_OFFSET = RESULT_OFFSET + Long.BYTES;
+    private static final int CONTENT_HASH_OFFSET = NAME_OFFSET + Integer.BYTES;
+    private static final int CONTENT_HASH_SIZE = 32;
+    private static final int FLAGS_OFFSET = CONTENT_HASH_OFFSET + CONTENT_HASH_SIZE;
+
+    private static final byte PRESENT = 1;
+    private static final byte HAS_VALUE_X = 1 << 1;
+    private static final byte HAS_VALUE_Y = 1 << 2;
+    private static final byte HAS_RESULT = 1 << 3;
+    private static final byte HAS_CONTENT_HASH = 1 << 4;
+    private static final int NO_NAME = -1;
+
+    private static final HexFormat HEX_FORMAT = HexFormat.of();
+    private static final byte[] VALUE_X_PREFIX = "{\"valueX\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VALUE_Y_PREFIX = ",\"valueY\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final StampedLock lock = new StampedLock();
+
+    // Replaced by writes only, under the write lock, and never shrunk.
+    private volatile ByteBuffer[] segments = new ByteBuffer[0];
+    private volatile String[] names = new String[16];
+    private int[] nameReferences = new int[16];
+    private final Map<String, Integer> nameCodes = new HashMap<>();
+    private final Deque<Integer> freeNameCodes = new ArrayDeque<>();
+    private final NameIndex nameIndex = new NameIndex();
+    private int nameCount;
+    private long lastId;
+
+    @Override
+    public GenerationFileEntity save(GenerationFileEntity generationFileEntity) {
+        long stamp = lock.writeLock();
+        try {
+            return store(generationFileEntity);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public List<GenerationFileEntity> saveAll(List<GenerationFileEntity> generationFileEntities) {
+        List<GenerationFileEntity> saved = new ArrayList<>(generationFileEntities.size());
+        long stamp = lock.writeLock();
+        try {
+            long nextId = lastId;
+            for (GenerationFileEntity generationFileEntity : generationFileEntities) {
+                checkStorable(generationFileEntity);
+                nextId = generationFileEntity.getId() != null ? Math.max(nextId, generationFileEntity.getId()) : nextId + 1;
+                checkId(generationFileEntity.getId() != null ? generationFileEntity.getId() : nextId);
+            }
+            for (GenerationFileEntity generationFileEntity : generationFileEntities) {
+                saved.add(store(generationFileEntity));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return saved;
+    }
+
+    /**
+     * Only files made of their two operands can be stored in memory: operand arrays and declared operations are rejected.
+     */
+    @Override
+    public void checkStorable(GenerationFileEntity generationFileEntity) {
+        if (generationFileEntity.getResult() != null && (generationFileEntity.getValueX() == null || generationFileEntity.getValueY() == null)) {
+            throw new WrongContentFileFormatException("Files with operand arrays cannot be stored in memory");
+        }
+        if (generationFileEntity.getOperation() != null) {
+            throw new WrongContentFileFormatException("Files declaring an operation cannot be stored in memory");
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        long stamp = lock.tryOptimisticRead();
+        boolean exists = (flagsOf(id) & PRESENT) != 0;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                exists = (flagsOf(id) & PRESENT) != 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return exists;
+    }
+
+    @Override
+    public Optional<GenerationFileResultView> findResultViewById(Long id) {
+        long stamp = lock.tryOptimisticRead();
+        GenerationFileResultView view = readResultView(id);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                view = readResultView(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return Optional.ofNullable(view);
+    }
+
+    @Override
+    public Optional<String> findNameById(Long id) {
+        return findResultViewById(id).map(GenerationFileResultView::getName);
+    }
+
+    @Override
+    public Optional<String> findContentHashById(Long id) {
+        long stamp = lock.tryOptimisticRead();
+        String contentHash = readContentHash(id);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                contentHash = readContentHash(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return Optional.ofNullable(contentHash);
+    }
+
+    @Override
+    public Stream<GenerationFileResultView> streamResultViewsByIdIn(Collection<Long> ids) {
+        return ids.stream()
+                .distinct()
+                .sorted()
+                .map(this::findResultViewById)
+                .flatMap(Optional::stream);
+    }
+
+    @Override
+    public Stream<GenerationFileResultView> streamResultViewsByIdBetween(Long from, Long to) {
+        return LongStream.rangeClosed(Math.max(from, 1L), Math.min(to, lastIdSeen()))
+                .mapToObj(this::findResultViewById)
+                .flatMap(Optional::stream);
+    }
+
+    @Override
+    public List<GenerationFileSummaryView> findSummaryViewsAfter(Long id, String name, int limit) {
+        List<GenerationFileSummaryView> generationFileSummaryViews = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            if (name == null) {
+                for (long next = Math.max(id, 0L) + 1; next <= lastId && generationFileSummaryViews.size() < limit; next++) {
+                    GenerationFileResultView view = readResultView(next);
+                    if (view != null) {
+                        generationFileSummaryViews.add(summaryViewOf(view));
+                    }
+                }
+            } else {
+                for (Long next : nameIndex.idsAfter(name, id)) {
+                    if (generationFileSummaryViews.size() == limit) {
+                        break;
+                    }
+                    GenerationFileResultView view = readResultView(next);
+                    if (view != null && name.equals(view.getName())) {
+                        generationFileSummaryViews.add(summaryViewOf(view));
+                    }
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return generationFileSummaryViews;
+    }
+
+    @Override
+    public boolean transferDataById(Long id, OutputStream outputStream) {
+        Optional<GenerationFileResultView> view = findResultViewById(id);
+        if (view.isEmpty()) {
+            return false;
+        }
+        try {
+            outputStream.write(canonicalContent(view.get().getValueX(), view.get().getValueY()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<GenerationFileResultChange> updateById(Long id, String name, byte[] data, Long valueX, Long valueY,
+                                                           String operation, Long result, String contentHash) {
+        long stamp = lock.writeLock();
+        try {
+            GenerationFileResultView current = readResultView(id);
+            if (current == null) {
+                return Optional.empty();
+            }
+            store(new GenerationFileEntity(id, name, data, valueX, valueY, operation, result, contentHash));
+            return Optional.of(new GenerationFileResultChange(current.getResult(), result));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Optional<GenerationFileResultChange> updateByIdAndContentHashIn(Long id, String name, byte[] data, Long valueX, Long valueY,
+                                                                           String operation, Long result, String contentHash,
+                                                                           Collection<String> expectedContentHashes) {
+        long stamp = lock.writeLock();
+        try {
+            GenerationFileResultView current = readResultView(id);
+            if (current == null || current.getContentHash() == null || !expectedContentHashes.contains(current.getContentHash())) {
+                return Optional.empty();
+            }
+            store(new GenerationFileEntity(id, name, data, valueX, valueY, operation, result, contentHash));
+            return Optional.of(new GenerationFileResultChange(current.getResult(), result));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Optional<GenerationFileResultChange> updateValuesById(Long id, UnaryOperator<GenerationFileResultView> patch) {
+        long stamp = lock.writeLock();
+        try {
+            byte flags = flagsOf(id);
+            if ((flags & PRESENT) == 0 || (flags & HAS_RESULT) == 0) {
+                return Optional.empty();
+            }
+            GenerationFileResultView current = readResultView(id);
+            GenerationFileResultView patched = patch.apply(current);
+            byte[] contentHashBytes = patched.getContentHash() != null ? parseContentHash(patched.getContentHash()) : null;
+            ByteBuffer segment = segmentOf(id);
+            int offset = offsetOf(id);
+            segment.putLong(offset + VALUE_X_OFFSET, patched.getValueX());
+            segment.putLong(offset + VALUE_Y_OFFSET, patched.getValueY());
+            segment.putLong(offset + RESULT_OFFSET, patched.getResult());
+            if (contentHashBytes != null) {
+                segment.put(offset + CONTENT_HASH_OFFSET, contentHashBytes);
+            }
+            segment.put(offset + FLAGS_OFFSET, (byte) (contentHashBytes != null ? flags | HAS_CONTENT_HASH : flags & ~HAS_CONTENT_HASH));
+            return Optional.of(new GenerationFileResultChange(current.getResult(), patched.getResult()));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Optional<GenerationFileResultChange> deleteFileById(Long id) {
+        long stamp = lock.writeLock();
+        try {
+            GenerationFileResultView current = readResultView(id);
+            if (current == null) {
+                return Optional.empty();
+            }
+            segmentOf(id).put(offsetOf(id) + FLAGS_OFFSET, (byte) 0);
+            releaseName(segmentOf(id).getInt(offsetOf(id) + NAME_OFFSET));
+            nameIndex.remove(current.getName(), id);
+            return Optional.of(new GenerationFileResultChange(current.getResult(), null));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public List<GenerationFileEntity> findWithoutContentHashAfter(Long id, int limit) {
+        List<GenerationFileEntity> generationFileEntities = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            for (long next = id + 1; next <= lastId && generationFileEntities.size() < limit; next++) {
+                byte flags = flagsOf(next);
+                if ((flags & PRESENT) != 0 && (flags & HAS_CONTENT_HASH) == 0) {
+                    GenerationFileResultView view = readResultView(next);
+                    byte[] data = view.getValueX() != null && view.getValueY() != null
+                            ? canonicalContent(view.getValueX(), view.getValueY())
+                            : null;
+                    generationFileEntities.add(new GenerationFileEntity(
+                            next, view.getName(), data, view.getValueX(), view.getValueY(), view.getResult(), null));
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return generationFileEntities;
+    }
+
+    private GenerationFileEntity store(GenerationFileEntity generationFileEntity) {
+        String contentHash = generationFileEntity.getContentHash();
+        byte[] contentHashBytes = contentHash != null ? parseContentHash(contentHash) : null;
+        checkStorable(generationFileEntity);
+        long id = generationFileEntity.getId() != null ? generationFileEntity.getId() : lastId + 1;
+        ensureCapacity(id);
+        lastId = Math.max(lastId, id);
+
+        ByteBuffer segment = segmentOf(id);
+        int offset = offsetOf(id);
+        int previousCode = (flagsOf(id) & PRESENT) != 0 ? segment.getInt(offset + NAME_OFFSET) : NO_NAME;
+        String previousName = nameOf(previousCode);
+        Long valueX = generationFileEntity.getValueX();
+        Long valueY = generationFileEntity.getValueY();
+        Long result = generationFileEntity.getResult();
+        segment.putLong(offset + VALUE_X_OFFSET, valueX != null ? valueX : 0L);
+        segment.putLong(offset + VALUE_Y_OFFSET, valueY != null ? valueY : 0L);
+        segment.putLong(offset + RESULT_OFFSET, result != null ? result : 0L);
+        segment.putInt(offset + NAME_OFFSET, acquireName(generationFileEntity.getName()));
+        releaseName(previousCode);
+        if (contentHashBytes != null) {
+            segment.put(offset + CONTENT_HASH_OFFSET, contentHashBytes);
+        }
+        segment.put(offset + FLAGS_OFFSET, (byte) (PRESENT
+                | (valueX != null ? HAS_VALUE_X : 0)
+                | (valueY != null ? HAS_VALUE_Y : 0)
+                | (result != null ? HAS_RESULT : 0)
+                | (contentHash != null ? HAS_CONTENT_HASH : 0)));
+        nameIndex.rename(previousName, generationFileEntity.getName(), id);
+
+        return new GenerationFileEntity(id, generationFileEntity.getName(), generationFileEntity.getData(), valueX, valueY, result, contentHash);
+    }
+
+    private void ensureCapacity(long id) {
+        checkId(id);
+        int segment = (int) ((id - 1) / SLOTS_PER_SEGMENT);
+        ByteBuffer[] current = segments;
+        if (segment >= current.length) {
+            ByteBuffer[] grown = Arrays.copyOf(current, segment + 1);
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = ByteBuffer.allocateDirect(SLOTS_PER_SEGMENT * SLOT_SIZE);
+            }
+            segments = grown;
+        }
+    }
+
+    private static void checkId(long id) {
+        if (id <= 0 || id > (long) Integer.MAX_VALUE) {
+            throw new WrongContentFileFormatException("The file id " + id + " cannot be stored in memory");
+        }
+    }
+
+    /**
+     * Count one more file having a name, adding it to the dictionary if no file has it, with a free code if there is one.
+     * @param name the name, or null.
+     * @return the code of the name.
+     */
+    private int acquireName(String name) {
+        if (name == null) {
+            return NO_NAME;
+        }
+        Integer code = nameCodes.get(name);
+        if (code == null) {
+            code = freeNameCodes.isEmpty() ? nameCount++ : freeNameCodes.pop();
+            String[] current = names;
+            if (code == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                nameReferences = Arrays.copyOf(nameReferences, current.length);
+            }
+            current[code] = name;
+            names = current;
+            nameCodes.put(name, code);
+        }
+        nameReferences[code]++;
+        return code;
+    }
+
+    /**
+     * Count one less file having a name, releasing its code if it was the last one. Optimistic readers which read the
+     * code meanwhile fail their validation and read again under the read lock.
+     * @param code the code of the name, or {@value #NO_NAME} for no name.
+     */
+    private void releaseName(int code) {
+        if (code != NO_NAME && --nameReferences[code] == 0) {
+            nameCodes.remove(names[code]);
+            names[code] = null;
+            freeNameCodes.push(code);
+        }
+    }
+
+    /**
+     * @return the number of codes of the dictionary of names, in use or free.
+     */
+    int nameCodeCount() {
+        long stamp = lock.readLock();
+        try {
+            return nameCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private GenerationFileResultView readResultView(long id) {
+        byte flags = flagsOf(id);
+        if ((flags & PRESENT) == 0) {
+            return null;
+        }
+        ByteBuffer segment = segmentOf(id);
+        int offset = offsetOf(id);
+        return new GenerationFileResultView(
+                id,
+                nameOf(segment.getInt(offset + NAME_OFFSET)),
+                (flags & HAS_VALUE_X) != 0 ? segment.getLong(offset + VALUE_X_OFFSET) : null,
+                (flags & HAS_VALUE_Y) != 0 ? segment.getLong(offset + VALUE_Y_OFFSET) : null,
+                (flags & HAS_RESULT) != 0 ? segment.getLong(offset + RESULT_OFFSET) : null,
+                (flags & HAS_CONTENT_HASH) != 0 ? readContentHash(segment, offset) : null
+        );
+    }
+
+    private static GenerationFileSummaryView summaryViewOf(GenerationFileResultView view) {
+        return new GenerationFileSummaryView(
+                view.getId(),
+                view.getName(),
+                view.getValueX() != null && view.getValueY() != null ? canonicalContentSize(view.getValueX(), view.getValueY()) : null,
+                view.getResult()
+        );
+    }
+
+    private String readContentHash(long id) {
+        byte flags = flagsOf(id);
+        if ((flags & PRESENT) == 0 || (flags & HAS_CONTENT_HASH) == 0) {
+            return null;
+        }
+        return readContentHash(segmentOf(id), offsetOf(id));
+    }
+
+    private static String readContentHash(ByteBuffer segment, int offset) {
+        byte[] contentHash = new byte[CONTENT_HASH_SIZE];
+        segment.get(offset + CONTENT_HASH_OFFSET, contentHash);
+        return HEX_FORMAT.formatHex(contentHash);
+    }
+
+    private static byte[] parseContentHash(String contentHash) {
+        byte[] bytes = HEX_FORMAT.parseHex(contentHash);
+        if (bytes.length != CONTENT_HASH_SIZE) {
+            throw new IllegalArgumentException("The content hash must be a SHA-256 digest");
+        }
+        return bytes;
+    }
+
+    private String nameOf(int code) {
+        String[] current = names;
+        return code >= 0 && code < current.length ? current[code] : null;
+    }
+
+    private byte flagsOf(long id) {
+        ByteBuffer[] current = segments;
+        if (id <= 0 || (id - 1) / SLOTS_PER_SEGMENT >= current.length) {
+            return 0;
+        }
+        return current[(int) ((id - 1) / SLOTS_PER_SEGMENT)].get(offsetOf(id) + FLAGS_OFFSET);
+    }
+
+    private ByteBuffer segmentOf(long id) {
+        return segments[(int) ((id - 1) / SLOTS_PER_SEGMENT)];
+    }
+
+    private static int offsetOf(long id) {
+        return (int) ((id - 1) % SLOTS_PER_SEGMENT) * SLOT_SIZE;
+    }
+
+    private long lastIdSeen() {
+        long stamp = lock.readLock();
+        try {
+            return lastId;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static int canonicalContentSize(long valueX, long valueY) {
+        return VALUE_X_PREFIX.length + Long.toString(valueX).length() + VALUE_Y_PREFIX.length + Long.toString(valueY).length() + 1;
+    }
+
+    private static byte[] canonicalContent(long valueX, long valueY) {
+        byte[] x = Long.toString(valueX).getBytes(StandardCharsets.US_ASCII);
+        byte[] y = Long.toString(valueY).getBytes(StandardCharsets.US_ASCII);
+        byte[] content = new byte[VALUE_X_PREFIX.length + x.length + VALUE_Y_PREFIX.length + y.length + 1];
+        int position = 0;
+        System.arraycopy(VALUE_X_PREFIX, 0, content, position, VALUE_X_PREFIX.length);
+        position += VALUE_X_PREFIX.length;
+        System.arraycopy(x, 0, content, position, x.length);
+        position += x.length;
+        System.arraycopy(VALUE_Y_PREFIX, 0, content, position, VALUE_Y_PREFIX.length);
+        position += VALUE_Y_PREFIX.length;
+        System.arraycopy(y, 0, content, position, y.length);
+        content[content.length - 1] = '}';
+        return content;
+    }
+}
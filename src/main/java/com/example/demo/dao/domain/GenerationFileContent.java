@@ -1,11 +1,17 @@
 package com.example.demo.dao.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+/**
+ * Operands of a generation file: either a single valueX and valueY, or two arrays of operands of the same length
+ * which are summed element by element. Single operands may declare the operation computing their result, which is
+ * their sum otherwise.
+ */
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode
@@ -15,4 +21,28 @@ public class GenerationFileContent {
     private Long valueX;
     @JsonProperty
     private Long valueY;
-}
\ No newline at end of file
+    @JsonProperty
+    private String operation;
+    @JsonIgnore
+    private long[] valuesX;
+    @JsonIgnore
+    private long[] valuesY;
+
+    public GenerationFileContent(Long valueX, Long valueY) {
+        this.valueX = valueX;
+        this.valueY = valueY;
+    }
+
+    public GenerationFileContent(Long valueX, Long valueY, String operation) {
+        this.valueX = valueX;
+        this.valueY = valueY;
+        this.operation = operation;
+    }
+
+    /**
+     * @return true if the operands are arrays rather than single values.
+     */
+    public boolean hasOperandArrays() {
+        return valuesX != null || valuesY != null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.dao.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Uploaded content of the generation files, kept in its own table once for each distinct content and addressed by its
+ * SHA-256 hash. Files reference it by {@link GenerationFileEntity#getDataHash()}, so reading or updating the metadata
+ * of a file never reads its content, and it counts the files referencing it, so that it is deleted with the last one.
+ * A large content is stored compressed with Deflate, its hash remaining the one of the content as it was uploaded.
+ */
+@NoArgsConstructor
+@Getter
+@Entity
+public class GenerationFileDataEntity {
+
+    public GenerationFileDataEntity(String hash, byte[] data, boolean compressed) {
+        this.hash = hash;
+        this.data = data;
+        this.compressed = compressed;
+        this.referenceCount = 1;
+    }
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Lob
+    private byte[] data;
+
+    private boolean compressed;
+
+    private long referenceCount;
+
+}
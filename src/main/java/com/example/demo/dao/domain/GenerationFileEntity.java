@@ -1,28 +1,78 @@
 package com.example.demo.dao.domain;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
-@AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_generation_file_result", columnList = "result"),
+        @Index(name = "idx_generation_file_name_id", columnList = "name, id")
+})
 public class GenerationFileEntity {
 
-    public GenerationFileEntity(String name, byte[] data) {
+    public GenerationFileEntity(Long id, String name, byte[] data, Long valueX, Long valueY, String operation, Long result,
+                                String contentHash) {
+        this.id = id;
         this.name = name;
         this.data = data;
+        this.dataSize = data != null ? data.length : null;
+        this.valueX = valueX;
+        this.valueY = valueY;
+        this.operation = operation;
+        this.result = result;
+        this.contentHash = contentHash;
+    }
+
+    public GenerationFileEntity(String name, byte[] data, Long valueX, Long valueY, Long result, String contentHash) {
+        this(null, name, data, valueX, valueY, null, result, contentHash);
+    }
+
+    public GenerationFileEntity(Long id, String name, byte[] data, Long valueX, Long valueY, Long result, String contentHash) {
+        this(id, name, data, valueX, valueY, null, result, contentHash);
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "generation_file_seq")
+    @SequenceGenerator(name = "generation_file_seq", sequenceName = "generation_file_seq", allocationSize = 50)
     private Long id;
 
     private String name;
 
-    @Lob
+    /**
+     * Uploaded content. It is not a column of the file: the database storage keeps it in
+     * {@link GenerationFileDataEntity}, once for all the files with the same content, so it is never loaded with the
+     * metadata.
+     */
+    @Transient
     private byte[] data;
 
+    /**
+     * SHA-256 hash of the uploaded content, addressing it in {@link GenerationFileDataEntity}. Set by the database
+     * storage only.
+     */
+    @Setter
+    @Column(length = 64)
+    private String dataHash;
+
+    /**
+     * Length in bytes of the uploaded content, kept as a column so that files can be listed without reading it.
+     */
+    private Integer dataSize;
+
+    private Long valueX;
+
+    private Long valueY;
+
+    @Column(length = 256)
+    private String operation;
+
+    private Long result;
+
+    @Column(length = 64)
+    private String contentHash;
+
 }
\ No newline at end of file
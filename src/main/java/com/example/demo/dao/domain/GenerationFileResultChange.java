@@ -0,0 +1,17 @@
+package com.example.demo.dao.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Materialized result of a generation file before and after a write, read by the write from the row it changes.
+ */
+@AllArgsConstructor
+@EqualsAndHashCode
+@Getter
+public class GenerationFileResultChange {
+
+    private Long previousResult;
+    private Long result;
+}
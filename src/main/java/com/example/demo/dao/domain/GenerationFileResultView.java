@@ -0,0 +1,24 @@
+package com.example.demo.dao.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Projection of a generation file with the materialized operands and result, without the stored content.
+ */
+@AllArgsConstructor
+@Getter
+public class GenerationFileResultView {
+
+    private Long id;
+    private String name;
+    private Long valueX;
+    private Long valueY;
+    private String operation;
+    private Long result;
+    private String contentHash;
+
+    public GenerationFileResultView(Long id, String name, Long valueX, Long valueY, Long result, String contentHash) {
+        this(id, name, valueX, valueY, null, result, contentHash);
+    }
+}
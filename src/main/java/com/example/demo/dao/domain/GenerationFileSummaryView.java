@@ -0,0 +1,27 @@
+package com.example.demo.dao.domain;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Projection of a generation file to list it: its id, name, the size in bytes of its uploaded content and its
+ * materialized result, without the stored content.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Getter
+public class GenerationFileSummaryView {
+
+    @JsonProperty
+    private Long id;
+    @JsonProperty
+    private String name;
+    @JsonProperty
+    private Integer size;
+    @JsonProperty
+    private Long result;
+}
@@ -0,0 +1,7 @@
+package com.example.demo.error;
+
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers of the stages of the request path and distribution summaries of the payload sizes, on top of the timers of
+ * each endpoint recorded by Spring as http.server.requests.
+ * <p>
+ * The stages are timed as generation.stage, tagged with the stage, and the payload sizes are summarized as
+ * generation.payload.size, tagged with the direction. Each stage is also a {@link GenerationStageEvent} for the
+ * flight recorder, which costs nothing more than a check when no recording has the event enabled.
+ */
+@Component
+public class GenerationMetrics {
+
+    /**
+     * Stages of the request path.
+     */
+    public enum Stage {
+        /** Validating an uploaded file, which includes reading and parsing it. */
+        VALIDATE,
+        /** Reading the body of the request. */
+        READ,
+        /** Deserializing the json content. */
+        PARSE,
+        /** Accessing the storage of the files. */
+        STORE,
+        /** Computing the result of a file from its operands. */
+        COMPUTE,
+        /** Serializing the result and computing its hash. */
+        RENDER
+    }
+
+    /**
+     * A call timed as a stage, which may throw a checked exception.
+     */
+    @FunctionalInterface
+    public interface StageCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final DistributionSummary requestSize;
+    private final DistributionSummary responseSize;
+
+    public GenerationMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("generation.stage")
+                    .description("Time spent in a stage of the request path")
+                    .tag("stage", stage.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        requestSize = payloadSize(meterRegistry, "request");
+        responseSize = payloadSize(meterRegistry, "response");
+    }
+
+    /**
+     * Time a call as a stage of the request path, whether it succeeds or not.
+     * @param stage the stage the call belongs to.
+     * @param call the call.
+     * @return what the call returned.
+     * @throws E what the call threw.
+     */
+    public <T, E extends Exception> T time(Stage stage, StageCall<T, E> call) throws E {
+        return time(stage, null, call);
+    }
+
+    /**
+     * Time a call about a given file as a stage of the request path, whether it succeeds or not.
+     * @param stage the stage the call belongs to.
+     * @param fileId the id of the file, or null if it is not known yet.
+     * @param call the call.
+     * @return what the call returned.
+     * @throws E what the call threw.
+     */
+    public <T, E extends Exception> T time(Stage stage, Long fileId, StageCall<T, E> call) throws E {
+        GenerationStageEvent event = new GenerationStageEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long payloadSize = 0;
+        Throwable failure = null;
+        try {
+            T result = call.call();
+            if (result instanceof byte[] bytes) {
+                payloadSize = bytes.length;
+            }
+            return result;
+        } catch (Throwable ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            stageTimers.get(stage).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (event.shouldCommit()) {
+                event.stage = stage.name().toLowerCase();
+                event.fileId = fileId != null ? fileId : 0;
+                event.payloadSize = payloadSize;
+                event.outcome = failure == null ? "success" : failure.getClass().getSimpleName();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @param bytes size of the content received in a request.
+     */
+    public void recordRequestSize(long bytes) {
+        requestSize.record(bytes);
+    }
+
+    /**
+     * @param bytes size of the content sent in a response.
+     */
+    public void recordResponseSize(long bytes) {
+        responseSize.record(bytes);
+    }
+
+    private static DistributionSummary payloadSize(MeterRegistry meterRegistry, String direction) {
+        return DistributionSummary.builder("generation.payload.size")
+                .description("Size of the generation files received and sent")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+}
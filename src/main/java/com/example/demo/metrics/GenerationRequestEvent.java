@@ -0,0 +1,44 @@
+package com.example.demo.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a request to one of the generation endpoints.
+ */
+@Name("com.example.demo.GenerationRequest")
+@Label("Generation Request")
+@Description("A request to one of the generation endpoints, from the dispatch to the response")
+@Category("Generation")
+@StackTrace(false)
+public class GenerationRequestEvent extends Event {
+
+    @Label("Operation")
+    @Description("Name of the controller method handling the request")
+    public String operation;
+
+    @Label("File Id")
+    @Description("Id of the file, 0 if the request is not about a single file")
+    public long fileId;
+
+    @Label("Request Size")
+    @DataAmount
+    public long requestSize;
+
+    @Label("Response Size")
+    @Description("Size of the response when it is known before it is sent, 0 otherwise")
+    @DataAmount
+    public long responseSize;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Outcome")
+    @Description("SUCCESSFUL, REDIRECTION, CLIENT_ERROR or SERVER_ERROR")
+    public String outcome;
+}
@@ -0,0 +1,36 @@
+package com.example.demo.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a stage of the request path, committed by {@link GenerationMetrics#time}.
+ */
+@Name("com.example.demo.GenerationStage")
+@Label("Generation Stage")
+@Description("A stage of the handling of a generation file: validate, read, parse, store, compute or render")
+@Category("Generation")
+@StackTrace(false)
+class GenerationStageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("File Id")
+    @Description("Id of the file, 0 if it is not known yet")
+    long fileId;
+
+    @Label("Payload Size")
+    @Description("Size of the content read or rendered by the stage, 0 for the other stages")
+    @DataAmount
+    long payloadSize;
+
+    @Label("Outcome")
+    @Description("success, or the simple name of the exception thrown")
+    String outcome;
+}
@@ -0,0 +1,30 @@
+package com.example.demo.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+/**
+ * Materializes, on startup, the operands and result of the files stored before they were kept as columns, then loads
+ * the results of all the files into the running aggregates. Both run once every bean is created but before the web
+ * server is started, since the aggregates only receive the changes made by the writes, which must not be accepted
+ * before the results are loaded.
+ */
+@AllArgsConstructor
+@Component
+@Slf4j
+public class GenerationFileBackfill implements SmartInitializingSingleton {
+
+    private GenerationServiceImpl generationServiceImpl;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int updated = generationServiceImpl.backfillMaterializedResults();
+        if (updated > 0) {
+            log.info("Materialized the result of {} files", updated);
+        }
+        long loaded = generationServiceImpl.loadResultAggregates();
+        log.info("Loaded the result of {} files into the aggregates", loaded);
+    }
+}
@@ -1,10 +1,21 @@
 package com.example.demo.service;
 
+import com.example.demo.dao.domain.GenerationFileContent;
+import com.example.demo.service.aggregate.GenerationResultStats;
+import com.example.demo.service.cache.GenerationResultCacheStats;
 import com.example.demo.web.GenerationFileResponse;
+import com.example.demo.web.GenerationListResponse;
+import com.example.demo.web.GenerationIngestionResponse;
 import com.example.demo.service.domain.GetGenerationFileResponse;
-import org.springframework.web.multipart.MultipartFile;
+import com.example.demo.service.domain.ValidatedGenerationFile;
+import org.springframework.core.io.Resource;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Service interface to manage the uploaded file.
@@ -13,11 +24,26 @@ public interface GenerationService {
 
     /**
      * Upload a json file with a given format and saves it in a database.
-     * @param multipartFile
-     * @return
-     * @throws IOException
+     * @param file the file, already validated and deserialized.
+     * @return a GenerationFileResponse with the info about the file uploaded.
+     */
+    GenerationFileResponse uploadGenerationFile(ValidatedGenerationFile file);
+
+    /**
+     * Save a batch of json files in a single transaction.
+     * @param files the files, already validated and deserialized.
+     * @return the ids assigned to the files, in the same order.
+     */
+    List<Long> uploadGenerationFiles(List<ValidatedGenerationFile> files);
+
+    /**
+     * Save every record of a newline delimited json stream, committing them in chunks.
+     * A record that cannot be deserialized is reported and skipped without aborting the stream.
+     * @param inputStream the newline delimited json stream.
+     * @return the number of records saved and rejected, along with the first errors.
+     * @throws IOException if the stream cannot be read.
      */
-    GenerationFileResponse uploadGenerationFile(MultipartFile multipartFile) throws IOException;
+    GenerationIngestionResponse ingestGenerationContents(InputStream inputStream) throws IOException;
 
     /**
      * Retrieve the uploaded file with, in addition, the result calculated from the info in the uploaded file.
@@ -27,18 +53,105 @@ public interface GenerationService {
      */
     GetGenerationFileResponse getGenerationFile(Long id) throws IOException;
 
+    /**
+     * Retrieve the result of a file compressed with gzip, if it is large enough to be compressed.
+     * @param getGenerationFileResponse the file, as retrieved by {@link #getGenerationFile(Long)}.
+     * @return the result compressed with gzip, or empty if it is too small to be compressed.
+     * @throws IOException
+     */
+    Optional<Resource> getGzipResource(GetGenerationFileResponse getGenerationFileResponse) throws IOException;
+
+    /**
+     * Retrieve the name of the uploaded file. If the file is not found an exception is thrown.
+     * @param id the id of the file.
+     * @return the name of the file.
+     */
+    String getGenerationFileName(Long id);
+
+    /**
+     * Write the uploaded file, as it was stored, into a stream without loading it in memory.
+     * @param id the id of the file.
+     * @param outputStream the stream to write the file into, which is left open.
+     * @return true if the file exists, false otherwise.
+     * @throws IOException
+     */
+    boolean writeGenerationFileContent(Long id, OutputStream outputStream) throws IOException;
+
+    /**
+     * Retrieve the content hash of the uploaded file, without rendering it, to answer conditional requests.
+     * @param id the id of the file.
+     * @return the content hash of the file, or empty if it does not exist or it has no hash yet.
+     */
+    Optional<String> getGenerationFileContentHash(Long id);
+
+    /**
+     * Write, as a json array ordered by id, the result of every given file. Files that do not exist or cannot be
+     * retrieved are reported inline with an error.
+     * @param ids the ids of the files to be retrieved.
+     * @param outputStream the stream to write the json array into.
+     * @throws IOException
+     */
+    void writeGenerationFiles(Collection<Long> ids, OutputStream outputStream) throws IOException;
+
+    /**
+     * Write, as a json array ordered by id, the result of every file in a range of ids. Files that do not exist or cannot be
+     * retrieved are reported inline with an error.
+     * @param from the first id of the range.
+     * @param to the last id of the range.
+     * @param outputStream the stream to write the json array into.
+     * @throws IOException
+     */
+    void writeGenerationFiles(Long from, Long to, OutputStream outputStream) throws IOException;
+
+    /**
+     * List a page of the files, ordered by id, with their name, the size of their content and their result, without
+     * reading their content. The page seeks to the given id, so its cost does not depend on how deep it is.
+     * @param after the files listed have an id greater than this one, 0 for the first page.
+     * @param name the exact name of the files listed, or null for all the files.
+     * @param limit the maximum number of files listed.
+     * @return the files of the page and the id to list the next page after, if any.
+     */
+    GenerationListResponse listGenerationFiles(Long after, String name, int limit);
+
     /**
      * Update the content of the uploaded file.
      * @param fileId id of the file to be modified.
-     * @param file new file that will update the existing one.
+     * @param file new file that will update the existing one, already validated and deserialized.
      * @return a Response with the info of the updated file.
-     * @throws Exception
      */
-    GenerationFileResponse updateGenerationFile(Long fileId, MultipartFile file) throws IOException;
+    GenerationFileResponse updateGenerationFile(Long fileId, ValidatedGenerationFile file);
+
+    /**
+     * Update the content of the uploaded file only if its current content hash is one of the expected ones.
+     * @param fileId id of the file to be modified.
+     * @param file new file that will update the existing one, already validated and deserialized.
+     * @param expectedContentHashes the content hashes the file must currently have, or null to update it unconditionally.
+     * @return a Response with the info of the updated file.
+     */
+    GenerationFileResponse updateGenerationFile(Long fileId, ValidatedGenerationFile file, Collection<String> expectedContentHashes);
+
+    /**
+     * Change the operands of the uploaded file and recompute its result, without uploading the whole file again.
+     * @param fileId id of the file to be modified.
+     * @param partialContent the operands to change, the ones that are null keep their current value.
+     */
+    void patchGenerationFile(Long fileId, GenerationFileContent partialContent);
 
     /**
      * Delete the file with a given file id. If the file is not found an exception is thrown.
      * @param fileId id of the file to be deleted.
      */
     void deleteGenerationFile(Long fileId);
+
+    /**
+     * Retrieve the hit, miss and eviction counters of the cache of rendered results.
+     * @return the statistics of the result cache.
+     */
+    GenerationResultCacheStats getResultCacheStats();
+
+    /**
+     * Retrieve the count, total, minimum and maximum of the results of all the stored files.
+     * @return the statistics of the results.
+     */
+    GenerationResultStats getResultStats();
 }
@@ -1,26 +1,63 @@
 package com.example.demo.service;
 
-import com.example.demo.dao.GenerationDao;
+import com.example.demo.config.GenerationProperties;
+import com.example.demo.dao.GenerationStore;
 import com.example.demo.dao.domain.GenerationFileContent;
 import com.example.demo.dao.domain.GenerationFileEntity;
-import com.example.demo.dao.domain.GenerationFileContentResult;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
 import com.example.demo.error.GenerationFileNotFoundException;
+import com.example.demo.error.PreconditionFailedException;
 import com.example.demo.error.WrongContentFileFormatException;
+import com.example.demo.metrics.GenerationMetrics;
+import com.example.demo.service.aggregate.GenerationResultAggregates;
+import com.example.demo.service.aggregate.GenerationResultStats;
+import com.example.demo.service.cache.GenerationResultCache;
+import com.example.demo.service.cache.GenerationResultCacheStats;
+import com.example.demo.service.codec.GenerationFileCodec;
+import com.example.demo.service.codec.PayloadCompressor;
+import com.example.demo.service.codec.NdjsonLineReader;
+import com.example.demo.service.compute.GenerationComputeEngine;
+import com.example.demo.service.compute.OperandSums;
+import com.example.demo.service.operation.OperationCompiler;
 import com.example.demo.web.GenerationFileResponse;
+import com.example.demo.web.GenerationIngestionError;
+import com.example.demo.web.GenerationIngestionResponse;
+import com.example.demo.web.GenerationListResponse;
 import com.example.demo.service.domain.GetGenerationFileResponse;
+import com.example.demo.service.domain.ValidatedGenerationFile;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
+import static com.example.demo.metrics.GenerationMetrics.Stage.COMPUTE;
+import static com.example.demo.metrics.GenerationMetrics.Stage.PARSE;
+import static com.example.demo.metrics.GenerationMetrics.Stage.RENDER;
+import static com.example.demo.metrics.GenerationMetrics.Stage.STORE;
+import static org.springframework.util.Assert.isTrue;
 import static org.springframework.util.Assert.notNull;
 
 /**
@@ -31,29 +68,106 @@ import static org.springframework.util.Assert.notNull;
 @Slf4j
 public class GenerationServiceImpl implements GenerationService {
 
-    private GenerationDao generationDao;
-    private ObjectMapper objectMapper;
+    private static final int BACKFILL_BATCH_SIZE = 100;
+
+    private GenerationStore generationStore;
+    private GenerationFileCodec generationFileCodec;
+    private GenerationResultCache generationResultCache;
+    private GenerationProperties generationProperties;
+    private GenerationMetrics generationMetrics;
+    private GenerationComputeEngine generationComputeEngine;
+    private OperationCompiler operationCompiler;
+    private GenerationResultAggregates generationResultAggregates;
+    private PayloadCompressor payloadCompressor;
 
     /**
      * Upload a json file with a given format and saves it in a database.
-     * @param file file to be saved.
+     * @param file file to be saved, already validated and deserialized.
      * @return a GenerationFileResponse with the info about the file uploaded.
-     * @throws IOException
      */
-    public GenerationFileResponse uploadGenerationFile(MultipartFile file) throws IOException {
+    public GenerationFileResponse uploadGenerationFile(ValidatedGenerationFile file) {
         notNull(file, "The file cannot be null");
-        String fileName = file.getOriginalFilename();
+        String fileName = file.getName();
         log.info("Saving file: {}", fileName);
-        GenerationFileEntity generationFileEntity = new GenerationFileEntity(fileName, file.getBytes());
-        generationFileEntity = generationDao.save(generationFileEntity);
+        GenerationFileEntity generationFileEntity = getGenerationFileEntityFrom(file);
+        GenerationFileEntity savedGenerationFileEntity = generationMetrics.time(STORE, () -> generationStore.save(generationFileEntity));
+        generationResultAggregates.add(savedGenerationFileEntity.getResult());
 
         return new GenerationFileResponse(
-                generationFileEntity.getId(),
-                generationFileEntity.getName(),
-                generationFileEntity.getData()
+                savedGenerationFileEntity.getId(),
+                savedGenerationFileEntity.getName(),
+                savedGenerationFileEntity.getData()
         );
     }
 
+    /**
+     * Save a batch of json files in a single transaction. The inserts are sent to the database in jdbc batches.
+     * @param files the files, already validated and deserialized.
+     * @return the ids assigned to the files, in the same order.
+     */
+    @Override
+    @Transactional
+    public List<Long> uploadGenerationFiles(List<ValidatedGenerationFile> files) {
+        notNull(files, "The files cannot be null");
+        log.info("Saving batch of {} files", files.size());
+
+        List<GenerationFileEntity> generationFileEntities = new ArrayList<>(files.size());
+        for (ValidatedGenerationFile file : files) {
+            generationFileEntities.add(getGenerationFileEntityFrom(file));
+        }
+
+        List<GenerationFileEntity> savedGenerationFileEntities = generationMetrics.time(STORE, () -> generationStore.saveAll(generationFileEntities));
+        List<Long> ids = new ArrayList<>(files.size());
+        for (GenerationFileEntity generationFileEntity : savedGenerationFileEntities) {
+            ids.add(generationFileEntity.getId());
+        }
+        afterCommit(() -> putResults(savedGenerationFileEntities));
+        return ids;
+    }
+
+    /**
+     * Save every record of a newline delimited json stream. The records are read one at a time and committed in chunks,
+     * so the memory used does not depend on the size of the stream. A record that cannot be deserialized is reported
+     * and skipped without aborting the stream. If the database fails, the chunks already committed are kept.
+     * @param inputStream the newline delimited json stream.
+     * @return the number of records saved and rejected, along with the first errors.
+     * @throws IOException if the stream cannot be read.
+     */
+    @Override
+    public GenerationIngestionResponse ingestGenerationContents(InputStream inputStream) throws IOException {
+        notNull(inputStream, "The stream cannot be null");
+        GenerationProperties.Ingest ingest = generationProperties.getIngest();
+        NdjsonLineReader lineReader = new NdjsonLineReader(inputStream, ingest.getMaxLineLength());
+        List<GenerationFileEntity> chunk = new ArrayList<>(ingest.getChunkSize());
+        List<GenerationIngestionError> errors = new ArrayList<>();
+        long accepted = 0;
+        long rejected = 0;
+
+        while (lineReader.nextLine()) {
+            if (lineReader.isLineBlank()) {
+                continue;
+            }
+            try {
+                chunk.add(getGenerationFileEntityFrom(lineReader));
+            } catch (WrongContentFileFormatException | JsonProcessingException ex) {
+                rejected++;
+                if (errors.size() < ingest.getMaxReportedErrors()) {
+                    errors.add(new GenerationIngestionError(lineReader.getLineNumber(), getIngestionErrorMessage(ex)));
+                }
+                continue;
+            }
+            if (chunk.size() == ingest.getChunkSize()) {
+                accepted += saveChunk(chunk);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            accepted += saveChunk(chunk);
+        }
+
+        log.info("Ingested {} records, rejected {}", accepted, rejected);
+        return new GenerationIngestionResponse(accepted, rejected, errors);
+    }
+
     /**
      * Retrieve the uploaded file with, in addition, the result calculated from the info in the uploaded file.
      * @param id the id of the file to be retrieved.
@@ -65,89 +179,566 @@ public class GenerationServiceImpl implements GenerationService {
         notNull(id, "The file id cannot be null");
         log.info("Retrieve file with id: {}", id);
 
-        GenerationFileEntity generationFileEntity = getGenerationFileEntityByIdOrElseThrow(id);
+        Optional<GetGenerationFileResponse> cachedResponse = generationResultCache.get(id);
+        if (cachedResponse.isPresent()) {
+            return cachedResponse.get();
+        }
+        long cacheStamp = generationResultCache.stamp(id);
 
-        GenerationFileContent generationFileContent = getGenerationFileContentFrom(generationFileEntity.getData());
+        GenerationFileResultView generationFileResultView = generationMetrics.time(STORE, id, () -> generationStore.findResultViewById(id))
+                .orElseThrow(() -> new GenerationFileNotFoundException("File with id: " + id + " not found"));
 
-        GenerationFileContentResult generationFileContentResult = getGenerationFileContentResult(generationFileContent);
+        byte[] generationFileContentResult = hasOperandArrays(generationFileResultView)
+                ? renderOperandArrays(id)
+                : generationMetrics.time(RENDER, id, () -> renderResult(generationFileResultView));
+        String contentHash = generationFileResultView.getContentHash() != null
+                ? generationFileResultView.getContentHash()
+                : generationMetrics.time(RENDER, id, () -> generationFileCodec.contentHash(generationFileContentResult));
+        generationMetrics.recordResponseSize(generationFileContentResult.length);
 
-        Resource generationFileContentResultResource = getGenerationFileContentResultResourceFrom(generationFileContentResult);
+        GetGenerationFileResponse getGenerationFileResponse = new GetGenerationFileResponse(
+                id,
+                generationFileResultView.getName(),
+                new ByteArrayResource(generationFileContentResult),
+                contentHash
+        );
+        generationResultCache.put(id, getGenerationFileResponse, cacheStamp);
 
-        return new GetGenerationFileResponse(id, generationFileEntity.getName(), generationFileContentResultResource);
+        return getGenerationFileResponse;
     }
 
     /**
-     * Update the content of the uploaded file.
+     * Retrieve the result of a file compressed with gzip, if it is large enough to be compressed. It is compressed the
+     * first time it is requested and kept with the result, so that it is not compressed again while the result is cached.
+     * @param getGenerationFileResponse the file, as retrieved by {@link #getGenerationFile(Long)}.
+     * @return the result compressed with gzip, or empty if it is too small to be compressed.
+     * @throws IOException
+     */
+    @Override
+    public Optional<Resource> getGzipResource(GetGenerationFileResponse getGenerationFileResponse) throws IOException {
+        notNull(getGenerationFileResponse, "The file cannot be null");
+
+        Resource resource = getGenerationFileResponse.getResource();
+        if (!payloadCompressor.isCompressible(resource.contentLength())) {
+            return Optional.empty();
+        }
+        Resource gzipResource = getGenerationFileResponse.getGzipResource();
+        if (gzipResource == null) {
+            byte[] result = resource.getContentAsByteArray();
+            gzipResource = new ByteArrayResource(generationMetrics.time(RENDER, getGenerationFileResponse.getId(),
+                    () -> payloadCompressor.gzip(result)));
+            getGenerationFileResponse.setGzipResource(gzipResource);
+        }
+        return Optional.of(gzipResource);
+    }
+
+    /**
+     * Retrieve the name of the uploaded file without loading its content. If the file is not found an exception is thrown.
+     * @param id the id of the file.
+     * @return the name of the file.
+     */
+    @Override
+    public String getGenerationFileName(Long id) {
+        notNull(id, "The file id cannot be null");
+
+        return generationMetrics.time(STORE, id, () -> generationStore.findNameById(id))
+                .orElseThrow(() -> new GenerationFileNotFoundException("File with id: " + id + " not found"));
+    }
+
+    /**
+     * Write the uploaded file, as it was stored, into a stream. The content is copied from the binary stream of the
+     * database in small buffers, so the memory used does not depend on the size of the file.
+     * @param id the id of the file.
+     * @param outputStream the stream to write the file into, which is left open.
+     * @return true if the file exists, false otherwise.
+     * @throws IOException
+     */
+    @Override
+    public boolean writeGenerationFileContent(Long id, OutputStream outputStream) throws IOException {
+        notNull(id, "The file id cannot be null");
+        log.info("Retrieve content of file with id: {}", id);
+
+        try {
+            return generationStore.transferDataById(id, outputStream);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Retrieve the content hash of the uploaded file from the cache or, if it is not cached, with a query that
+     * only reads the hash, so that a conditional request for an unchanged file never renders it.
+     * @param id the id of the file.
+     * @return the content hash of the file, or empty if it does not exist or it has no hash yet.
+     */
+    @Override
+    public Optional<String> getGenerationFileContentHash(Long id) {
+        notNull(id, "The file id cannot be null");
+
+        Optional<GetGenerationFileResponse> cachedResponse = generationResultCache.get(id);
+        if (cachedResponse.isPresent()) {
+            return Optional.of(cachedResponse.get().getContentHash());
+        }
+        return generationMetrics.time(STORE, id, () -> generationStore.findContentHashById(id));
+    }
+
+    /**
+     * Write, as a json array ordered by id, the result of every given file. Files that do not exist or cannot be
+     * retrieved are reported inline with an error instead of failing the whole request.
+     * The files are read with a single query and written as they are read.
+     * @param ids the ids of the files to be retrieved.
+     * @param outputStream the stream to write the json array into.
+     * @throws IOException
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void writeGenerationFiles(Collection<Long> ids, OutputStream outputStream) throws IOException {
+        notNull(ids, "The file ids cannot be null");
+        log.info("Retrieve {} files", ids.size());
+
+        PrimitiveIterator.OfLong requestedIds = ids.stream().mapToLong(Long::longValue).sorted().distinct().iterator();
+        try (Stream<GenerationFileResultView> generationFileResultViews = generationStore.streamResultViewsByIdIn(ids)) {
+            writeGenerationFileElements(requestedIds, generationFileResultViews.iterator(), outputStream);
+        }
+    }
+
+    /**
+     * Write, as a json array ordered by id, the result of every file in a range of ids. Files that do not exist or cannot be
+     * retrieved are reported inline with an error instead of failing the whole request.
+     * The files are read with a single query and written as they are read.
+     * @param from the first id of the range.
+     * @param to the last id of the range.
+     * @param outputStream the stream to write the json array into.
+     * @throws IOException
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void writeGenerationFiles(Long from, Long to, OutputStream outputStream) throws IOException {
+        notNull(from, "The first file id cannot be null");
+        notNull(to, "The last file id cannot be null");
+        log.info("Retrieve files with ids from {} to {}", from, to);
+
+        PrimitiveIterator.OfLong requestedIds = LongStream.rangeClosed(from, to).iterator();
+        try (Stream<GenerationFileResultView> generationFileResultViews = generationStore.streamResultViewsByIdBetween(from, to)) {
+            writeGenerationFileElements(requestedIds, generationFileResultViews.iterator(), outputStream);
+        }
+    }
+
+    /**
+     * List a page of the files, ordered by id, from a projection that never reads their content. The page is found by
+     * seeking to the given id rather than skipping the files before it, among the files with the given name if there is
+     * one, and one more file than the limit is read to know whether there is a next page.
+     * @param after the files listed have an id greater than this one, 0 for the first page.
+     * @param name the exact name of the files listed, or null for all the files.
+     * @param limit the maximum number of files listed.
+     * @return the files of the page and the id to list the next page after, if any.
+     */
+    @Override
+    public GenerationListResponse listGenerationFiles(Long after, String name, int limit) {
+        notNull(after, "The file id to list the files after cannot be null");
+        isTrue(limit > 0, "The limit must be positive");
+        log.info("List {} files after id {}", limit, after);
+
+        List<GenerationFileSummaryView> generationFileSummaryViews = generationMetrics.time(STORE,
+                () -> generationStore.findSummaryViewsAfter(after, name, limit + 1));
+        if (generationFileSummaryViews.size() <= limit) {
+            return new GenerationListResponse(generationFileSummaryViews, null);
+        }
+        List<GenerationFileSummaryView> page = generationFileSummaryViews.subList(0, limit);
+        return new GenerationListResponse(page, page.get(limit - 1).getId());
+    }
+
+    /**
+     * Update the content of the uploaded file with a single update statement, without loading it first. The statement
+     * also returns the previous result of the file, for the statistics.
      * @param fileId id of the file to be modified.
-     * @param file new file that will update the existing one.
+     * @param file new file that will update the existing one, already validated and deserialized.
      * @return a Response Entity with the info of the updated file.
-     * @throws Exception
      */
     @Override
-    public GenerationFileResponse updateGenerationFile(Long fileId, MultipartFile file) throws IOException {
+    @Transactional
+    public GenerationFileResponse updateGenerationFile(Long fileId, ValidatedGenerationFile file) {
+        return updateGenerationFile(fileId, file, null);
+    }
+
+    /**
+     * Update the content of the uploaded file with a single update statement, without loading it first, only if its
+     * current content hash is one of the expected ones. The hash is checked by the update statement itself, which also
+     * returns the previous result of the file.
+     * @param fileId id of the file to be modified.
+     * @param file new file that will update the existing one, already validated and deserialized.
+     * @param expectedContentHashes the content hashes the file must currently have, or null to update it unconditionally.
+     * @return a Response Entity with the info of the updated file.
+     */
+    @Override
+    @Transactional
+    public GenerationFileResponse updateGenerationFile(Long fileId, ValidatedGenerationFile file, Collection<String> expectedContentHashes) {
         notNull(fileId, "The file id cannot be null");
         notNull(file, "The file cannot be null");
 
-        String fileName = file.getOriginalFilename();
+        String fileName = file.getName();
         log.info("Updating file: {} with id: {}", fileName, fileId);
 
-        getGenerationFileEntityByIdOrElseThrow(fileId);
+        GenerationFileEntity generationFileEntity = getGenerationFileEntityFrom(fileId, fileName, file.getData(), file.getContent());
+        Optional<GenerationFileResultChange> change = generationMetrics.time(STORE, fileId, () -> expectedContentHashes == null
+                ? generationStore.updateById(fileId, fileName, file.getData(), generationFileEntity.getValueX(),
+                        generationFileEntity.getValueY(), generationFileEntity.getOperation(), generationFileEntity.getResult(),
+                        generationFileEntity.getContentHash())
+                : generationStore.updateByIdAndContentHashIn(fileId, fileName, file.getData(), generationFileEntity.getValueX(),
+                        generationFileEntity.getValueY(), generationFileEntity.getOperation(), generationFileEntity.getResult(),
+                        generationFileEntity.getContentHash(), expectedContentHashes));
+        invalidateResult(fileId);
 
-        GenerationFileEntity generationFileEntity = new GenerationFileEntity(fileId, file.getOriginalFilename(), file.getBytes());
+        if (change.isEmpty()) {
+            if (expectedContentHashes != null && generationMetrics.time(STORE, fileId, () -> generationStore.existsById(fileId))) {
+                throw new PreconditionFailedException("File with id: " + fileId + " has been modified");
+            }
+            throw new GenerationFileNotFoundException("File with id: " + fileId + " not found");
+        }
+        afterCommit(() -> generationResultAggregates.replace(change.get().getPreviousResult(), change.get().getResult()));
 
-        generationFileEntity = generationDao.save(generationFileEntity);
+        return new GenerationFileResponse(fileId, fileName, file.getData());
+    }
 
-        return new GenerationFileResponse(
-                generationFileEntity.getId(),
-                generationFileEntity.getName(),
-                generationFileEntity.getData()
-        );
+    /**
+     * Change the operands of the uploaded file and recompute its result, in a single write of the store.
+     * The stored content is left as it was uploaded and is still what its content is retrieved as, while the operands
+     * and result it is served with are the updated ones. A result that does not fit in a long is rejected.
+     * The new result and content hash are computed from the current operands of the file, read by the store while no
+     * other write of the file can run, and written along with the new operands.
+     * The operand arrays of a file, and the operands of a file declaring an operation, cannot be patched, the file must
+     * be updated as a whole instead.
+     * @param fileId id of the file to be modified.
+     * @param partialContent the operands to change, the ones that are null keep their current value.
+     */
+    @Override
+    @Transactional
+    public void patchGenerationFile(Long fileId, GenerationFileContent partialContent) {
+        notNull(fileId, "The file id cannot be null");
+        notNull(partialContent, "The content cannot be null");
+        log.info("Patching file with id: {}", fileId);
+
+        Optional<GenerationFileResultChange> change = generationMetrics.time(STORE, fileId,
+                () -> generationStore.updateValuesById(fileId, current -> patch(current, partialContent)));
+        invalidateResult(fileId);
+
+        if (change.isEmpty()) {
+            if (generationMetrics.time(STORE, fileId, () -> generationStore.existsById(fileId))) {
+                throw new WrongContentFileFormatException("File with id: " + fileId + " cannot be patched: its operands are "
+                        + "arrays, it declares an operation or its result has not been materialized yet");
+            }
+            throw new GenerationFileNotFoundException("File with id: " + fileId + " not found");
+        }
+        afterCommit(() -> generationResultAggregates.replace(change.get().getPreviousResult(), change.get().getResult()));
     }
 
     /**
-     * Delete the file with a given file id. If the file is not found an exception is thrown.
+     * Delete the file with a given file id with a single delete statement, which also returns its previous result.
+     * If the file is not found an exception is thrown.
      * @param fileId id of the file to be deleted.
      */
     @Override
+    @Transactional
     public void deleteGenerationFile(Long fileId) {
         log.info("Deleting file with id: {}", fileId);
 
-        GenerationFileEntity generationFileEntity = getGenerationFileEntityByIdOrElseThrow(fileId);
+        Optional<GenerationFileResultChange> change = generationMetrics.time(STORE, fileId, () -> generationStore.deleteFileById(fileId));
+        invalidateResult(fileId);
 
-        generationDao.delete(generationFileEntity);
+        if (change.isEmpty()) {
+            throw new GenerationFileNotFoundException("File with id: " + fileId + " not found");
+        }
+        afterCommit(() -> generationResultAggregates.remove(change.get().getPreviousResult()));
         log.info("Successfully deleted file with id: {}", fileId);
     }
 
-    private GenerationFileEntity getGenerationFileEntityByIdOrElseThrow(Long fileId) {
-        return generationDao.findById(fileId)
-                .orElseThrow(() -> new GenerationFileNotFoundException("File with id: " + fileId + " not found"));
+    /**
+     * Retrieve the hit, miss and eviction counters of the cache of rendered results.
+     * @return the statistics of the result cache.
+     */
+    @Override
+    public GenerationResultCacheStats getResultCacheStats() {
+        return generationResultCache.stats();
+    }
+
+    /**
+     * Retrieve the count, total, minimum and maximum of the results of all the stored files from the running
+     * aggregates, without reading any file.
+     * @return the statistics of the results.
+     */
+    @Override
+    public GenerationResultStats getResultStats() {
+        return generationResultAggregates.stats();
+    }
+
+    /**
+     * Load the results of the files already stored into the running aggregates, which are then kept up to date by
+     * every write. The files are read with a single query, without their content. Must be called once, before any
+     * write is accepted, since a write only applies the change of the result of a file to the aggregates.
+     * @return the number of files read.
+     */
+    @Transactional(readOnly = true)
+    public long loadResultAggregates() {
+        long loaded = 0;
+        try (Stream<GenerationFileResultView> generationFileResultViews = generationStore.streamResultViewsByIdBetween(1L, Long.MAX_VALUE)) {
+            Iterator<GenerationFileResultView> iterator = generationFileResultViews.iterator();
+            while (iterator.hasNext()) {
+                GenerationFileResultView generationFileResultView = iterator.next();
+                generationResultAggregates.add(generationFileResultView.getResult());
+                loaded++;
+            }
+        }
+        return loaded;
     }
 
-    private GenerationFileContentResult getGenerationFileContentResult(GenerationFileContent generationFileContent) {
-        return new GenerationFileContentResult(
+    /**
+     * Materialize the operands, the result and the content hash of the files stored before they were kept as columns.
+     * Files whose content cannot be deserialized are skipped and keep failing on retrieval.
+     * @return the number of files updated.
+     */
+    public int backfillMaterializedResults() {
+        int updated = 0;
+        Long lastId = 0L;
+        List<GenerationFileEntity> generationFileEntities;
+        do {
+            generationFileEntities = generationStore.findWithoutContentHashAfter(lastId, BACKFILL_BATCH_SIZE);
+            for (GenerationFileEntity generationFileEntity : generationFileEntities) {
+                lastId = generationFileEntity.getId();
+                try {
+                    GenerationFileContent generationFileContent = generationFileEntity.getResult() != null
+                            && generationFileEntity.getValueX() != null && generationFileEntity.getValueY() != null
+                            ? new GenerationFileContent(generationFileEntity.getValueX(), generationFileEntity.getValueY(),
+                                    generationFileEntity.getOperation())
+                            : generationFileCodec.readContent(generationFileEntity.getData());
+                    generationStore.save(getGenerationFileEntityFrom(
+                            generationFileEntity.getId(),
+                            generationFileEntity.getName(),
+                            generationFileEntity.getData(),
+                            generationFileContent
+                    ));
+                    updated++;
+                } catch (IOException | WrongContentFileFormatException ex) {
+                    log.warn("Could not materialize the result of file with id: {}", generationFileEntity.getId());
+                }
+            }
+        } while (!generationFileEntities.isEmpty());
+        return updated;
+    }
+
+    /**
+     * Compute the patched operands of a file, their result and its content hash from its current operands.
+     */
+    private GenerationFileResultView patch(GenerationFileResultView current, GenerationFileContent partialContent) {
+        Long id = current.getId();
+        long valueX = partialContent.getValueX() != null ? partialContent.getValueX() : current.getValueX();
+        long valueY = partialContent.getValueY() != null ? partialContent.getValueY() : current.getValueY();
+        long result = generationMetrics.time(COMPUTE, id, () -> sumOperands(valueX, valueY));
+        String contentHash = generationMetrics.time(RENDER, id, () -> generationFileCodec.contentHash(valueX, valueY, result));
+        return new GenerationFileResultView(id, current.getName(), valueX, valueY, result, contentHash);
+    }
+
+    private GenerationFileEntity getGenerationFileEntityFrom(ValidatedGenerationFile file) {
+        return getGenerationFileEntityFrom(null, file.getName(), file.getData(), file.getContent());
+    }
+
+    /**
+     * Materialize the result of a file. The operands of a file with operand arrays are not materialized, only the total
+     * of their sums is, and the sums are computed again from the stored content when the file is retrieved.
+     * The result of single operands is computed with the operation they declare, which is kept along with them.
+     * A file the store does not support is rejected like a file with a wrong format.
+     */
+    private GenerationFileEntity getGenerationFileEntityFrom(Long id, String name, byte[] data, GenerationFileContent generationFileContent) {
+        GenerationFileEntity generationFileEntity = materialize(id, name, data, generationFileContent);
+        generationStore.checkStorable(generationFileEntity);
+        return generationFileEntity;
+    }
+
+    private GenerationFileEntity materialize(Long id, String name, byte[] data, GenerationFileContent generationFileContent) {
+        if (generationFileContent.hasOperandArrays()) {
+            long[] valuesX = generationFileContent.getValuesX();
+            long[] valuesY = generationFileContent.getValuesY();
+            OperandSums operandSums = generationMetrics.time(COMPUTE, id, () -> sumOperandArrays(valuesX, valuesY));
+            return new GenerationFileEntity(id, name, data, null, null, operandSums.getTotal(),
+                    generationMetrics.time(RENDER, id, () -> generationFileCodec.contentHash(valuesX, valuesY, operandSums)));
+        }
+        long result = generationMetrics.time(COMPUTE, id, () -> calculateResult(generationFileContent));
+        return new GenerationFileEntity(
+                id,
+                name,
+                data,
                 generationFileContent.getValueX(),
                 generationFileContent.getValueY(),
-                calculateResult(generationFileContent)
+                generationFileContent.getOperation(),
+                result,
+                generationMetrics.time(RENDER, id, () -> generationFileCodec.contentHash(
+                        generationFileContent.getValueX(),
+                        generationFileContent.getValueY(),
+                        generationFileContent.getOperation(),
+                        result
+                ))
         );
     }
 
-    private Resource getGenerationFileContentResultResourceFrom(GenerationFileContentResult generationFileContentResult) throws JsonProcessingException {
-        String jsonGenerationFileContentResult = objectMapper.writeValueAsString(generationFileContentResult);
-        return new ByteArrayResource(jsonGenerationFileContentResult.getBytes());
+    private void writeGenerationFileElements(
+            PrimitiveIterator.OfLong requestedIds,
+            Iterator<GenerationFileResultView> generationFileResultViews,
+            OutputStream outputStream
+    ) throws IOException {
+        try (JsonGenerator generator = generationFileCodec.createGenerator(outputStream)) {
+            generator.writeStartArray();
+            GenerationFileResultView generationFileResultView = generationFileResultViews.hasNext() ? generationFileResultViews.next() : null;
+            while (requestedIds.hasNext()) {
+                long id = requestedIds.nextLong();
+                if (generationFileResultView == null || generationFileResultView.getId() != id) {
+                    generationFileCodec.writeErrorElement(generator, id, "File with id: " + id + " not found");
+                    continue;
+                }
+                if (generationFileResultView.getResult() == null) {
+                    generationFileCodec.writeErrorElement(generator, id, "Error deserializing the file");
+                } else if (hasOperandArrays(generationFileResultView)) {
+                    generationFileCodec.writeErrorElement(generator, id, "File with id: " + id + " has operand arrays, it can only be retrieved on its own");
+                } else {
+                    generationFileCodec.writeResultElement(generator, generationFileResultView);
+                }
+                generationFileResultView = generationFileResultViews.hasNext() ? generationFileResultViews.next() : null;
+            }
+            generator.writeEndArray();
+        }
     }
 
-    private static Long calculateResult(GenerationFileContent generationFileContent) {
-        return generationFileContent.getValueX() + generationFileContent.getValueY();
+    private GenerationFileEntity getGenerationFileEntityFrom(NdjsonLineReader lineReader) throws IOException {
+        if (lineReader.isLineTooLong()) {
+            throw new WrongContentFileFormatException("The record exceeds the maximum length of "
+                    + generationProperties.getIngest().getMaxLineLength() + " bytes");
+        }
+        GenerationFileContent generationFileContent = generationMetrics.time(PARSE,
+                () -> generationFileCodec.readContent(lineReader.getLine(), 0, lineReader.getLineLength()));
+        return getGenerationFileEntityFrom(
+                null,
+                "line-" + lineReader.getLineNumber() + ".json",
+                Arrays.copyOf(lineReader.getLine(), lineReader.getLineLength()),
+                generationFileContent
+        );
     }
 
-    private GenerationFileContent getGenerationFileContentFrom(byte[] bytes) throws IOException {
-        GenerationFileContent generationFileContent;
-        try {
-            objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
-            generationFileContent = objectMapper.readValue(bytes, GenerationFileContent.class);
-        } catch (UnrecognizedPropertyException ex) {
+    private int saveChunk(List<GenerationFileEntity> chunk) {
+        int size = chunk.size();
+        putResults(generationMetrics.time(STORE, () -> generationStore.saveAll(chunk)));
+        chunk.clear();
+        return size;
+    }
+
+    private void putResults(List<GenerationFileEntity> generationFileEntities) {
+        for (GenerationFileEntity generationFileEntity : generationFileEntities) {
+            generationResultAggregates.add(generationFileEntity.getResult());
+        }
+    }
+
+    /**
+     * Remove the cached result of a written file both now and once the write is committed, so that a retrieval reading
+     * the previous committed row in between cannot cache it for longer than the transaction.
+     */
+    private void invalidateResult(Long fileId) {
+        generationResultCache.invalidate(fileId);
+        afterCommit(() -> generationResultCache.invalidate(fileId));
+    }
+
+    /**
+     * Run an action once the current transaction commits, so that a write rolled back never reaches the running
+     * aggregates, or right away outside a transaction.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static String getIngestionErrorMessage(Exception ex) {
+        if (ex instanceof JsonProcessingException jsonProcessingException) {
+            return "Malformed json: " + jsonProcessingException.getOriginalMessage();
+        }
+        return ex.getMessage();
+    }
+
+    private byte[] renderResult(GenerationFileResultView generationFileResultView) throws IOException {
+        if (generationFileResultView.getResult() == null) {
+            throw new WrongContentFileFormatException("Error deserializing the file");
+        }
+        return generationFileCodec.writeResult(
+                generationFileResultView.getValueX(),
+                generationFileResultView.getValueY(),
+                generationFileResultView.getOperation(),
+                generationFileResultView.getResult()
+        );
+    }
+
+    /**
+     * Render the sums of a file with operand arrays, which are computed again from its stored content.
+     */
+    private byte[] renderOperandArrays(Long id) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        if (!generationMetrics.time(STORE, id, () -> generationStore.transferDataById(id, outputStream))) {
+            throw new GenerationFileNotFoundException("File with id: " + id + " not found");
+        }
+        GenerationFileContent generationFileContent = generationMetrics.time(PARSE, id,
+                () -> generationFileCodec.readContent(outputStream.toByteArray()));
+        if (!generationFileContent.hasOperandArrays()) {
             throw new WrongContentFileFormatException("Error deserializing the file");
         }
-        return generationFileContent;
+        long[] valuesX = generationFileContent.getValuesX();
+        long[] valuesY = generationFileContent.getValuesY();
+        OperandSums operandSums = generationMetrics.time(COMPUTE, id, () -> sumOperandArrays(valuesX, valuesY));
+        return generationMetrics.time(RENDER, id, () -> generationFileCodec.writeResult(valuesX, valuesY, operandSums));
+    }
+
+    private static boolean hasOperandArrays(GenerationFileResultView generationFileResultView) {
+        return generationFileResultView.getResult() != null
+                && (generationFileResultView.getValueX() == null || generationFileResultView.getValueY() == null);
+    }
+
+    /**
+     * Compute the result of single operands with the operation they declare, their sum if they declare none.
+     * A result that does not fit in a long is rejected rather than wrapped around.
+     */
+    private long calculateResult(GenerationFileContent generationFileContent) {
+        try {
+            return operationCompiler.compile(generationFileContent.getOperation())
+                    .apply(generationFileContent.getValueX(), generationFileContent.getValueY());
+        } catch (ArithmeticException ex) {
+            throw resultOutOfRange(ex);
+        }
+    }
+
+    /**
+     * Sum patched single operands, rejecting a result that does not fit in a long.
+     */
+    private long sumOperands(long valueX, long valueY) {
+        try {
+            return generationComputeEngine.sum(valueX, valueY);
+        } catch (ArithmeticException ex) {
+            throw resultOutOfRange(ex);
+        }
+    }
+
+    /**
+     * Sum operand arrays element by element, rejecting a sum or a total that does not fit in a long.
+     */
+    private OperandSums sumOperandArrays(long[] valuesX, long[] valuesY) {
+        try {
+            return generationComputeEngine.sum(valuesX, valuesY);
+        } catch (ArithmeticException ex) {
+            throw resultOutOfRange(ex);
+        }
+    }
+
+    private static WrongContentFileFormatException resultOutOfRange(ArithmeticException ex) {
+        return new WrongContentFileFormatException("The result of the operation cannot be computed: " + ex.getMessage());
     }
 }
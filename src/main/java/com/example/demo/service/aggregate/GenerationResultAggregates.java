@@ -0,0 +1,89 @@
+package com.example.demo.service.aggregate;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running count, total, minimum and maximum of the materialized results of the stored files, updated on every write
+ * instead of being computed again from the files.
+ * <p>
+ * The count and the total are striped {@link LongAdder} counters, so concurrent writes do not contend on them. The
+ * results are also kept as a sorted multiset, from which the minimum and maximum are read, so that removing one of them
+ * finds the next one. Nothing is kept per file: a write gives both the previous result of the file, read by the store
+ * from the row it writes, and its new one. The changes of the writes commute, so they can be applied in any order once
+ * committed, without holding any lock: a result removed before the write adding it is applied is kept as a negative
+ * occurrence in the meantime, which the minimum and maximum skip. The total wraps around on overflow. Reading the
+ * statistics never iterates over the files, but its four values are not read atomically together, so a read
+ * concurrent with writes may mix values from before and after them.
+ */
+@Component
+public class GenerationResultAggregates {
+
+    private final ConcurrentSkipListMap<Long, Long> resultCounts = new ConcurrentSkipListMap<>();
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Count the result of a new file.
+     * @param result the materialized result of the file, or null if it has none, in which case it is not counted.
+     */
+    public void add(Long result) {
+        replace(null, result);
+    }
+
+    /**
+     * Replace the result of a file.
+     * @param previous the result of the file before the write, or null if it had none.
+     * @param result the result of the file after the write, or null if it has none.
+     */
+    public void replace(Long previous, Long result) {
+        if (previous != null) {
+            count.decrement();
+            total.add(-previous);
+            resultCounts.merge(previous, -1L, GenerationResultAggregates::sumOccurrences);
+        }
+        if (result != null) {
+            count.increment();
+            total.add(result);
+            resultCounts.merge(result, 1L, GenerationResultAggregates::sumOccurrences);
+        }
+    }
+
+    /**
+     * Stop counting the result of a deleted file.
+     * @param previous the result of the file before it was deleted, or null if it had none.
+     */
+    public void remove(Long previous) {
+        replace(previous, null);
+    }
+
+    /**
+     * @return the count, total, minimum and maximum of the results, the minimum and maximum being null without results.
+     */
+    public GenerationResultStats stats() {
+        return new GenerationResultStats(
+                count.sum(),
+                total.sum(),
+                firstCounted(resultCounts),
+                firstCounted(resultCounts.descendingMap())
+        );
+    }
+
+    private static Long firstCounted(NavigableMap<Long, Long> resultCounts) {
+        for (Map.Entry<Long, Long> entry : resultCounts.entrySet()) {
+            if (entry.getValue() > 0) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static Long sumOccurrences(Long occurrences, Long change) {
+        long sum = occurrences + change;
+        return sum != 0 ? sum : null;
+    }
+}
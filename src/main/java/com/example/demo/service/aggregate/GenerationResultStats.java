@@ -0,0 +1,23 @@
+package com.example.demo.service.aggregate;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Getter
+public class GenerationResultStats {
+
+    @JsonProperty
+    private long count;
+    @JsonProperty
+    private long total;
+    @JsonProperty
+    private Long min;
+    @JsonProperty
+    private Long max;
+}
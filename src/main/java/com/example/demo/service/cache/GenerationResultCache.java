@@ -0,0 +1,130 @@
+package com.example.demo.service.cache;
+
+import com.example.demo.service.domain.GetGenerationFileResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory cache of the rendered results, keyed by file id.
+ * Entries are evicted in least recently used order when the cache is full and discarded once their ttl has elapsed.
+ * Writes must call {@link #invalidate(Long)} so that a modified or deleted file is never served from the cache.
+ * <p>
+ * The invalidations are counted by stripe of file ids, so that a write only keeps a result read meanwhile from being
+ * cached if it is to a file of the same stripe, instead of any write to any file.
+ */
+public class GenerationResultCache {
+
+    private static final int STRIPES = 64;
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<Long, Entry> entries;
+
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public GenerationResultCache(int maxSize, Duration ttl, Clock clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                boolean evict = size() > GenerationResultCache.this.maxSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Retrieve the cached result of a file.
+     * @param fileId id of the file.
+     * @return the cached result, or empty if it is not cached or it has expired.
+     */
+    public Optional<GetGenerationFileResponse> get(Long fileId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(fileId);
+            if (entry != null && entry.expiresAt() <= clock.millis()) {
+                entries.remove(fileId);
+                evictions.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry.value());
+    }
+
+    /**
+     * Marker to be taken before reading a result from the database and handed back to {@link #put(Long, GetGenerationFileResponse, long)}.
+     * @param fileId id of the file about to be read.
+     * @return the current invalidation stamp of the stripe of the file.
+     */
+    public long stamp(Long fileId) {
+        return invalidations.get(stripeOf(fileId));
+    }
+
+    /**
+     * Cache the result of a file, unless a write to a file of its stripe was invalidated since the given stamp was
+     * taken, in which case the result may already be stale and it is not cached.
+     * @param fileId id of the file.
+     * @param value rendered result of the file.
+     * @param stamp value of {@link #stamp(Long)} taken for the file before the result was read.
+     */
+    public void put(Long fileId, GetGenerationFileResponse value, long stamp) {
+        if (maxSize <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            if (invalidations.get(stripeOf(fileId)) == stamp) {
+                entries.put(fileId, new Entry(value, clock.millis() + ttlMillis));
+            }
+        }
+    }
+
+    /**
+     * Remove the cached result of a file. Must be called whenever the file is modified or deleted.
+     * @param fileId id of the file.
+     */
+    public void invalidate(Long fileId) {
+        synchronized (entries) {
+            invalidations.incrementAndGet(stripeOf(fileId));
+            entries.remove(fileId);
+        }
+    }
+
+    /**
+     * @return the hit, miss and eviction counters along with the current size of the cache.
+     */
+    public GenerationResultCacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new GenerationResultCacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private static int stripeOf(Long fileId) {
+        int hash = fileId.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private record Entry(GetGenerationFileResponse value, long expiresAt) {
+    }
+}
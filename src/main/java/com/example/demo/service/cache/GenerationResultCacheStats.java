@@ -0,0 +1,23 @@
+package com.example.demo.service.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Getter
+public class GenerationResultCacheStats {
+
+    @JsonProperty
+    private long hits;
+    @JsonProperty
+    private long misses;
+    @JsonProperty
+    private long evictions;
+    @JsonProperty
+    private int size;
+}
@@ -0,0 +1,29 @@
+package com.example.demo.service.codec;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Digests of the uploaded contents and of the rendered results, by which they are addressed and compared.
+ */
+public final class Digests {
+
+    private static final String SHA_256 = "SHA-256";
+    private static final HexFormat HEX_FORMAT = HexFormat.of();
+
+    private Digests() {
+    }
+
+    /**
+     * @param bytes the bytes to digest.
+     * @return the hex encoded SHA-256 digest of the bytes.
+     */
+    public static String sha256Hex(byte[] bytes) {
+        try {
+            return HEX_FORMAT.formatHex(MessageDigest.getInstance(SHA_256).digest(bytes));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
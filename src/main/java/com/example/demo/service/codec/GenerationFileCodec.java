@@ -0,0 +1,417 @@
+package com.example.demo.service.codec;
+
+import com.example.demo.dao.domain.GenerationFileContent;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.error.WrongContentFileFormatException;
+import com.example.demo.service.compute.OperandSums;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.exc.InputCoercionException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads and writes the content of the generation files at token level, without going through data binding.
+ * It only uses the immutable and thread safe {@link JsonFactory} of the application, so the shared
+ * {@link ObjectMapper} is never reconfigured. Unknown properties are rejected.
+ */
+@Component
+public class GenerationFileCodec {
+
+    private static final String VALUE_X = "valueX";
+    private static final String VALUE_Y = "valueY";
+    private static final String OPERATION = "operation";
+    private static final SerializableString VALUE_X_NAME = new SerializedString(VALUE_X);
+    private static final SerializableString VALUE_Y_NAME = new SerializedString(VALUE_Y);
+    private static final SerializableString OPERATION_NAME = new SerializedString(OPERATION);
+    private static final SerializableString RESULT_NAME = new SerializedString("result");
+    private static final SerializableString TOTAL_NAME = new SerializedString("total");
+    private static final SerializableString ID_NAME = new SerializedString("id");
+    private static final SerializableString NAME_NAME = new SerializedString("name");
+    private static final SerializableString ERROR_NAME = new SerializedString("error");
+    private static final String WRONG_FORMAT_MESSAGE = "Error deserializing the file";
+    private static final int INITIAL_OPERANDS_CAPACITY = 16;
+
+    private final JsonFactory jsonFactory;
+
+    public GenerationFileCodec(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Deserialize the content of a generation file.
+     * @param data the json content.
+     * @return the operands of the file.
+     * @throws IOException if the content is not valid json.
+     */
+    public GenerationFileContent readContent(byte[] data) throws IOException {
+        return readContent(data, 0, data.length);
+    }
+
+    /**
+     * Deserialize the content of a generation file held in a region of a buffer.
+     * @param data the buffer holding the json content.
+     * @param offset the index of the first byte of the content.
+     * @param length the length of the content.
+     * @return the operands of the file.
+     * @throws IOException if the content is not valid json.
+     */
+    public GenerationFileContent readContent(byte[] data, int offset, int length) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(data, offset, length)) {
+            parser.nextToken();
+            return readContent(parser);
+        }
+    }
+
+    /**
+     * Deserialize the content of a generation file from a parser positioned on the start of the object.
+     * When it returns, the parser is positioned on the end of the object.
+     * The operands are either both single values, which may declare an operation, or both arrays of the same length.
+     * @param parser the parser to read from.
+     * @return the operands of the file.
+     * @throws IOException if the content is not valid json.
+     */
+    public GenerationFileContent readContent(JsonParser parser) throws IOException {
+        GenerationFileContent generationFileContent = readOperands(parser);
+        boolean valid = generationFileContent.hasOperandArrays()
+                ? generationFileContent.getValuesX() != null && generationFileContent.getValuesY() != null
+                        && generationFileContent.getValuesX().length == generationFileContent.getValuesY().length
+                        && generationFileContent.getOperation() == null
+                : generationFileContent.getValueX() != null && generationFileContent.getValueY() != null;
+        if (!valid) {
+            throw new WrongContentFileFormatException(WRONG_FORMAT_MESSAGE);
+        }
+        return generationFileContent;
+    }
+
+    /**
+     * Deserialize a partial content of a generation file, in which each operand is optional and a single value.
+     * The operation cannot be changed.
+     * @param inputStream the json content.
+     * @return the operands present in the content, the others being null.
+     * @throws IOException if the content is not valid json.
+     */
+    public GenerationFileContent readPartialContent(InputStream inputStream) throws IOException {
+        GenerationFileContent generationFileContent;
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            parser.nextToken();
+            generationFileContent = readOperands(parser);
+        }
+        if (generationFileContent.hasOperandArrays() || generationFileContent.getOperation() != null
+                || generationFileContent.getValueX() == null && generationFileContent.getValueY() == null) {
+            throw new WrongContentFileFormatException(WRONG_FORMAT_MESSAGE);
+        }
+        return generationFileContent;
+    }
+
+    /**
+     * Deserialize a json array of generation file contents.
+     * @param inputStream the json array.
+     * @return the operands of every file, in the order of the array.
+     * @throws IOException if the content is not valid json.
+     */
+    public List<GenerationFileContent> readContents(InputStream inputStream) throws IOException {
+        List<GenerationFileContent> generationFileContents = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new WrongContentFileFormatException(WRONG_FORMAT_MESSAGE);
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                generationFileContents.add(readContent(parser));
+            }
+        }
+        return generationFileContents;
+    }
+
+    /**
+     * Serialize the content of a generation file.
+     * @return the json document.
+     * @throws IOException
+     */
+    public byte[] writeContent(long valueX, long valueY) throws IOException {
+        return writeContent(new GenerationFileContent(valueX, valueY));
+    }
+
+    /**
+     * Serialize the content of a generation file, with either its single operands and operation or its operand arrays.
+     * @return the json document.
+     * @throws IOException
+     */
+    public byte[] writeContent(GenerationFileContent generationFileContent) throws IOException {
+        ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder(64);
+        try (JsonGenerator generator = createGenerator(byteArrayBuilder)) {
+            generator.writeStartObject();
+            if (generationFileContent.hasOperandArrays()) {
+                long[] valuesX = generationFileContent.getValuesX();
+                long[] valuesY = generationFileContent.getValuesY();
+                generator.writeFieldName(VALUE_X_NAME);
+                generator.writeArray(valuesX, 0, valuesX.length);
+                generator.writeFieldName(VALUE_Y_NAME);
+                generator.writeArray(valuesY, 0, valuesY.length);
+            } else {
+                writeOperands(generator, generationFileContent.getValueX(), generationFileContent.getValueY(),
+                        generationFileContent.getOperation());
+            }
+            generator.writeEndObject();
+        }
+        return byteArrayBuilder.toByteArray();
+    }
+
+    /**
+     * Serialize the content of a generation file along with its result.
+     * @return the json document.
+     * @throws IOException
+     */
+    public byte[] writeResult(long valueX, long valueY, long result) throws IOException {
+        return writeResult(valueX, valueY, null, result);
+    }
+
+    /**
+     * Serialize the content of a generation file along with its declared operation and its result.
+     * @param operation the operation, left out of the document when null.
+     * @return the json document.
+     * @throws IOException
+     */
+    public byte[] writeResult(long valueX, long valueY, String operation, long result) throws IOException {
+        ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder(64);
+        writeResult(valueX, valueY, operation, result, byteArrayBuilder);
+        return byteArrayBuilder.toByteArray();
+    }
+
+    /**
+     * Strong hash of the content of a generation file along with its result, as served.
+     * @return the hex encoded SHA-256 digest of the json document written by {@link #writeResult(long, long, long)}.
+     */
+    public String contentHash(long valueX, long valueY, long result) {
+        return contentHash(valueX, valueY, null, result);
+    }
+
+    /**
+     * Strong hash of the content of a generation file along with its declared operation and its result, as served.
+     * @return the hex encoded SHA-256 digest of the json document written by {@link #writeResult(long, long, String, long)}.
+     */
+    public String contentHash(long valueX, long valueY, String operation, long result) {
+        try {
+            return contentHash(writeResult(valueX, valueY, operation, result));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Strong hash of a json document already written by {@link #writeResult(long, long, long)}.
+     * @param renderedResult the json document.
+     * @return the hex encoded SHA-256 digest of the document.
+     */
+    public String contentHash(byte[] renderedResult) {
+        return Digests.sha256Hex(renderedResult);
+    }
+
+    /**
+     * Serialize the operand arrays of a generation file along with their element-wise sums and total.
+     * @return the json document.
+     * @throws IOException
+     */
+    public byte[] writeResult(long[] valuesX, long[] valuesY, OperandSums operandSums) throws IOException {
+        ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        try (JsonGenerator generator = createGenerator(byteArrayBuilder)) {
+            generator.writeStartObject();
+            generator.writeFieldName(VALUE_X_NAME);
+            generator.writeArray(valuesX, 0, valuesX.length);
+            generator.writeFieldName(VALUE_Y_NAME);
+            generator.writeArray(valuesY, 0, valuesY.length);
+            generator.writeFieldName(RESULT_NAME);
+            generator.writeArray(operandSums.getSums(), 0, operandSums.getSums().length);
+            generator.writeFieldName(TOTAL_NAME);
+            generator.writeNumber(operandSums.getTotal());
+            generator.writeEndObject();
+        }
+        return byteArrayBuilder.toByteArray();
+    }
+
+    /**
+     * Strong hash of the operand arrays of a generation file along with their sums, as served.
+     * @return the hex encoded SHA-256 digest of the json document written by
+     * {@link #writeResult(long[], long[], OperandSums)}.
+     */
+    public String contentHash(long[] valuesX, long[] valuesY, OperandSums operandSums) {
+        try {
+            return contentHash(writeResult(valuesX, valuesY, operandSums));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Serialize the content of a generation file along with its result directly into a stream, which is left open.
+     * @throws IOException
+     */
+    public void writeResult(long valueX, long valueY, long result, OutputStream outputStream) throws IOException {
+        writeResult(valueX, valueY, null, result, outputStream);
+    }
+
+    /**
+     * Serialize the content of a generation file along with its declared operation and its result directly into a
+     * stream, which is left open.
+     * @param operation the operation, left out of the document when null.
+     * @throws IOException
+     */
+    public void writeResult(long valueX, long valueY, String operation, long result, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = createGenerator(outputStream)) {
+            generator.writeStartObject();
+            writeOperands(generator, valueX, valueY, operation);
+            generator.writeFieldName(RESULT_NAME);
+            generator.writeNumber(result);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Create a generator to write several documents into a stream. Closing the generator leaves the stream open.
+     * @param outputStream the stream to write into.
+     * @return the generator.
+     * @throws IOException
+     */
+    public JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        return jsonFactory.createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Write the id, name, operands and result of a file as an element of a bulk response.
+     * @param generator the generator to write with.
+     * @param generationFileResultView the materialized file, whose result must not be null.
+     * @throws IOException
+     */
+    public void writeResultElement(JsonGenerator generator, GenerationFileResultView generationFileResultView) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID_NAME);
+        generator.writeNumber(generationFileResultView.getId());
+        generator.writeFieldName(NAME_NAME);
+        generator.writeString(generationFileResultView.getName());
+        writeOperands(generator, generationFileResultView.getValueX(), generationFileResultView.getValueY(),
+                generationFileResultView.getOperation());
+        generator.writeFieldName(RESULT_NAME);
+        generator.writeNumber(generationFileResultView.getResult());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write the id of a file that could not be retrieved, along with the reason, as an element of a bulk response.
+     * @param generator the generator to write with.
+     * @param id the id of the file.
+     * @param errorMessage the reason why the file could not be retrieved.
+     * @throws IOException
+     */
+    public void writeErrorElement(JsonGenerator generator, long id, String errorMessage) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID_NAME);
+        generator.writeNumber(id);
+        generator.writeFieldName(ERROR_NAME);
+        generator.writeString(errorMessage);
+        generator.writeEndObject();
+    }
+
+    private static void writeOperands(JsonGenerator generator, long valueX, long valueY, String operation) throws IOException {
+        generator.writeFieldName(VALUE_X_NAME);
+        generator.writeNumber(valueX);
+        generator.writeFieldName(VALUE_Y_NAME);
+        generator.writeNumber(valueY);
+        if (operation != null) {
+            generator.writeFieldName(OPERATION_NAME);
+            generator.writeString(operation);
+        }
+    }
+
+    private static GenerationFileContent readOperands(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new WrongContentFileFormatException(WRONG_FORMAT_MESSAGE);
+        }
+        long valueX = 0;
+        long valueY = 0;
+        boolean hasValueX = false;
+        boolean hasValueY = false;
+        long[] valuesX = null;
+        long[] valuesY = null;
+        String operation = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if (OPERATION.equals(fieldName)) {
+                if (valueToken != JsonToken.VALUE_STRING) {
+                    throw new WrongContentFileFormatException(WRONG_FORMAT_MESSAGE);
+                }
+                operation = parser.getText();
+                continue;
+            }
+            if (valueToken != JsonToken.VALUE_NUMBER_INT && valueToken != JsonToken.START_ARRAY) {
+                throw new WrongContentFileFormatException(WRONG_FORMAT_MESSAGE);
+            }
+            if (VALUE_X.equals(fieldName)) {
+                if (valueToken == JsonToken.START_ARRAY) {
+                    valuesX = getLongValues(parser);
+                } else {
+                    valueX = getLongValue(parser);
+                }
+                hasValueX = true;
+            } else if (VALUE_Y.equals(fieldName)) {
+                if (valueToken == JsonToken.START_ARRAY) {
+                    valuesY = getLongValues(parser);
+                } else {
+                    valueY = getLongValue(parser);
+                }
+                hasValueY = true;
+            } else {
+                throw new WrongContentFileFormatException(WRONG_FORMAT_MESSAGE);
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new WrongContentFileFormatException(WRONG_FORMAT_MESSAGE);
+        }
+        return new GenerationFileContent(
+                hasValueX && valuesX == null ? valueX : null,
+                hasValueY && valuesY == null ? valueY : null,
+                operation,
+                valuesX,
+                valuesY
+        );
+    }
+
+    private static long[] getLongValues(JsonParser parser) throws IOException {
+        long[] values = new long[INITIAL_OPERANDS_CAPACITY];
+        int size = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.VALUE_NUMBER_INT) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = getLongValue(parser);
+        }
+        if (token != JsonToken.END_ARRAY) {
+            throw new WrongContentFileFormatException(WRONG_FORMAT_MESSAGE);
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private static long getLongValue(JsonParser parser) throws IOException {
+        try {
+            return parser.getLongValue();
+        } catch (InputCoercionException ex) {
+            throw new WrongContentFileFormatException(WRONG_FORMAT_MESSAGE);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.service.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a newline delimited stream one line at a time into a single reusable buffer, so that reading
+ * a stream of any size takes a constant amount of memory. Lines longer than the maximum length are skipped.
+ */
+public class NdjsonLineReader {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final InputStream inputStream;
+    private final int maxLineLength;
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private byte[] line = new byte[256];
+    private int readPosition;
+    private int readLimit;
+    private int lineLength;
+    private boolean lineTooLong;
+    private long lineNumber;
+
+    public NdjsonLineReader(InputStream inputStream, int maxLineLength) {
+        this.inputStream = inputStream;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Advance to the next line. A trailing carriage return is not part of the line.
+     * @return false if the end of the stream has been reached.
+     * @throws IOException
+     */
+    public boolean nextLine() throws IOException {
+        lineLength = 0;
+        lineTooLong = false;
+        boolean readAnything = false;
+        while (true) {
+            if (readPosition == readLimit) {
+                readLimit = inputStream.read(readBuffer);
+                readPosition = 0;
+                if (readLimit <= 0) {
+                    readLimit = 0;
+                    if (readAnything) {
+                        lineNumber++;
+                        trimCarriageReturn();
+                    }
+                    return readAnything;
+                }
+            }
+            readAnything = true;
+            byte b = readBuffer[readPosition++];
+            if (b == '\n') {
+                lineNumber++;
+                trimCarriageReturn();
+                return true;
+            }
+            append(b);
+        }
+    }
+
+    /**
+     * @return the buffer holding the current line, from index 0 to {@link #getLineLength()}. It is reused for the next line.
+     */
+    public byte[] getLine() {
+        return line;
+    }
+
+    public int getLineLength() {
+        return lineLength;
+    }
+
+    /**
+     * @return true if the current line exceeded the maximum length, in which case its content is not available.
+     */
+    public boolean isLineTooLong() {
+        return lineTooLong;
+    }
+
+    /**
+     * @return the number of the current line, starting at 1.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return true if the current line only contains whitespace.
+     */
+    public boolean isLineBlank() {
+        if (lineTooLong) {
+            return false;
+        }
+        for (int i = 0; i < lineLength; i++) {
+            if (!Character.isWhitespace(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void append(byte b) {
+        if (lineTooLong) {
+            return;
+        }
+        if (lineLength == maxLineLength) {
+            lineTooLong = true;
+            lineLength = 0;
+            return;
+        }
+        if (lineLength == line.length) {
+            byte[] grown = new byte[Math.min(line.length * 2, maxLineLength)];
+            System.arraycopy(line, 0, grown, 0, lineLength);
+            line = grown;
+        }
+        line[lineLength++] = b;
+    }
+
+    private void trimCarriageReturn() {
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Compresses the payloads from a size threshold: the uploaded contents, stored with Deflate, and the rendered results,
+ * sent with gzip. Payloads under the threshold are not worth the time spent compressing them, and are left as they are.
+ * Instances are immutable and thread safe, a {@link Deflater} being created for every payload.
+ */
+public class PayloadCompressor {
+
+    private final boolean enabled;
+    private final long threshold;
+    private final int level;
+
+    /**
+     * @param enabled whether payloads are compressed at all.
+     * @param threshold the size in bytes from which a payload is compressed.
+     * @param level the Deflate compression level, from 0 to 9, or -1 for the default one.
+     */
+    public PayloadCompressor(boolean enabled, long threshold, int level) {
+        isTrue(threshold >= 0, "The compression threshold cannot be negative");
+        isTrue(level == Deflater.DEFAULT_COMPRESSION || (level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION),
+                "The compression level must be between 0 and 9, or -1 for the default one");
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    /**
+     * @param length the size in bytes of a payload.
+     * @return true if the payload is large enough to be compressed.
+     */
+    public boolean isCompressible(long length) {
+        return enabled && length >= threshold;
+    }
+
+    /**
+     * Compress a payload with Deflate, in the zlib format.
+     * @param data the payload.
+     * @return the compressed payload, which may be larger than the payload if it does not compress.
+     */
+    public byte[] deflate(byte[] data) {
+        notNull(data, "The data cannot be null");
+        Deflater deflater = new Deflater(level);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream, deflater)) {
+            deflaterOutputStream.write(data);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            deflater.end();
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Decompress a payload compressed by {@link #deflate(byte[])} as it is read, in small buffers.
+     * @param compressed the stream of the compressed payload, closed along with the returned stream.
+     * @return the stream of the payload.
+     */
+    public InputStream inflating(InputStream compressed) {
+        notNull(compressed, "The compressed stream cannot be null");
+        return new InflaterInputStream(compressed);
+    }
+
+    /**
+     * Decompress a payload compressed by {@link #deflate(byte[])}.
+     * @param compressed the compressed payload.
+     * @return the payload.
+     */
+    public byte[] inflate(byte[] compressed) {
+        notNull(compressed, "The compressed data cannot be null");
+        try (InputStream inputStream = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return inputStream.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Compress a payload in the gzip format, as sent with a "Content-Encoding: gzip" header.
+     * @param data the payload.
+     * @return the compressed payload.
+     */
+    public byte[] gzip(byte[] data) {
+        notNull(data, "The data cannot be null");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzipOutputStream = new LevelGzipOutputStream(outputStream, level)) {
+            gzipOutputStream.write(data);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * {@link GZIPOutputStream} with the configured compression level, which it does not take as an argument.
+     */
+    private static final class LevelGzipOutputStream extends GZIPOutputStream {
+
+        private LevelGzipOutputStream(ByteArrayOutputStream outputStream, int level) throws IOException {
+            super(outputStream);
+            def.setLevel(level);
+        }
+    }
+}
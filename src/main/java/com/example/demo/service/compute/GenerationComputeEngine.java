@@ -0,0 +1,155 @@
+package com.example.demo.service.compute;
+
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Sums the operands of a generation file, single operands or operand arrays element by element. The sums of arrays
+ * are computed by plain counted loops over primitive arrays, which the JIT compiler unrolls and vectorizes, and arrays
+ * from a given length are split into ranges summed in parallel on a fork-join pool.
+ * <p>
+ * Like the sum of single operands, the sums are exact: a sum or a total that does not fit in a long is rejected with
+ * an {@link ArithmeticException} rather than wrapped around. In the loops, an overflow is detected without a branch, by
+ * the sign bits of the operands and of their sum, and the total is accumulated in two halves that cannot overflow, so
+ * the loops stay vectorizable and the check is made once per range.
+ */
+public class GenerationComputeEngine implements Closeable {
+
+    private static final int MIN_RANGE_LENGTH = 16_384;
+    private static final int RANGES_PER_THREAD = 4;
+    private static final long LOW_MASK = 0xFFFFFFFFL;
+
+    private final ForkJoinPool forkJoinPool;
+    private final int parallelThreshold;
+
+    /**
+     * @param forkJoinPool the pool the large arrays are summed on, shut down when the engine is closed.
+     * @param parallelThreshold the length from which the arrays are summed in parallel.
+     */
+    public GenerationComputeEngine(ForkJoinPool forkJoinPool, int parallelThreshold) {
+        notNull(forkJoinPool, "The fork-join pool cannot be null");
+        isTrue(parallelThreshold > 0, "The parallel threshold must be positive");
+        this.forkJoinPool = forkJoinPool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Sum two single operands.
+     * @param valueX the first operand.
+     * @param valueY the second operand.
+     * @return the sum.
+     * @throws ArithmeticException if the sum does not fit in a long.
+     */
+    public long sum(long valueX, long valueY) {
+        return Math.addExact(valueX, valueY);
+    }
+
+    /**
+     * Sum two arrays of operands element by element.
+     * @param valuesX the first operands.
+     * @param valuesY the second operands, as many as the first ones.
+     * @return the sums and their total.
+     * @throws ArithmeticException if a sum or the total does not fit in a long.
+     */
+    public OperandSums sum(long[] valuesX, long[] valuesY) {
+        notNull(valuesX, "The first operands cannot be null");
+        notNull(valuesY, "The second operands cannot be null");
+        isTrue(valuesX.length == valuesY.length, "The operand arrays must have the same length");
+
+        long[] sums = new long[valuesX.length];
+        if (valuesX.length < parallelThreshold) {
+            return new OperandSums(sums, sumRange(valuesX, valuesY, sums, 0, valuesX.length).toLong());
+        }
+        int rangeLength = Math.max(MIN_RANGE_LENGTH, valuesX.length / (forkJoinPool.getParallelism() * RANGES_PER_THREAD));
+        Total total = forkJoinPool.invoke(new SumTask(valuesX, valuesY, sums, 0, valuesX.length, rangeLength));
+        return new OperandSums(sums, total.toLong());
+    }
+
+    @Override
+    public void close() {
+        forkJoinPool.shutdown();
+    }
+
+    /**
+     * Sum a range of the arrays. A sum overflows when both operands have a sign its sum does not have, which sets the
+     * sign bit of the overflow accumulator. The upper halves of the sums, signed, and their lower halves, unsigned, are
+     * totaled separately: an array holds fewer than 2^31 elements, so neither half total can overflow.
+     */
+    private static Total sumRange(long[] valuesX, long[] valuesY, long[] sums, int from, int to) {
+        long overflow = 0;
+        long high = 0;
+        long low = 0;
+        for (int i = from; i < to; i++) {
+            long sum = valuesX[i] + valuesY[i];
+            overflow |= (valuesX[i] ^ sum) & (valuesY[i] ^ sum);
+            sums[i] = sum;
+            high += sum >> 32;
+            low += sum & LOW_MASK;
+        }
+        if (overflow < 0) {
+            throw new ArithmeticException("long overflow");
+        }
+        return new Total(high, low);
+    }
+
+    /**
+     * Exact total of sums, as its upper 32 bits, signed, and its lower 32 bits, the latter being normalized.
+     */
+    private static final class Total {
+        private final long high;
+        private final long low;
+
+        Total(long high, long low) {
+            this.high = high + (low >>> 32);
+            this.low = low & LOW_MASK;
+        }
+
+        Total add(Total other) {
+            return new Total(high + other.high, low + other.low);
+        }
+
+        long toLong() {
+            if (high < Integer.MIN_VALUE || high > Integer.MAX_VALUE) {
+                throw new ArithmeticException("long overflow");
+            }
+            return high << 32 | low;
+        }
+    }
+
+    /**
+     * Splits a range in halves until it is short enough to be summed by a single loop.
+     */
+    private static class SumTask extends RecursiveTask<Total> {
+        private final long[] valuesX;
+        private final long[] valuesY;
+        private final long[] sums;
+        private final int from;
+        private final int to;
+        private final int rangeLength;
+
+        SumTask(long[] valuesX, long[] valuesY, long[] sums, int from, int to, int rangeLength) {
+            this.valuesX = valuesX;
+            this.valuesY = valuesY;
+            this.sums = sums;
+            this.from = from;
+            this.to = to;
+            this.rangeLength = rangeLength;
+        }
+
+        @Override
+        protected Total compute() {
+            if (to - from <= rangeLength) {
+                return sumRange(valuesX, valuesY, sums, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(valuesX, valuesY, sums, from, middle, rangeLength);
+            left.fork();
+            Total right = new SumTask(valuesX, valuesY, sums, middle, to, rangeLength).compute();
+            return left.join().add(right);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.service.compute;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Element-wise sums of the operand arrays of a generation file, along with their total.
+ */
+@AllArgsConstructor
+@Getter
+public class OperandSums {
+    private long[] sums;
+    private long total;
+}
@@ -1,11 +1,10 @@
 package com.example.demo.service.domain;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import org.springframework.core.io.Resource;
 
-@AllArgsConstructor
 @NoArgsConstructor
 @Getter
 public class GetGenerationFileResponse {
@@ -13,4 +12,18 @@ public class GetGenerationFileResponse {
     private Long id;
     private String name;
     private Resource resource;
+    private String contentHash;
+    /**
+     * The resource compressed with gzip, set the first time it is requested, so that it is reused while this response
+     * is cached. Null until then.
+     */
+    @Setter
+    private volatile Resource gzipResource;
+
+    public GetGenerationFileResponse(Long id, String name, Resource resource, String contentHash) {
+        this.id = id;
+        this.name = name;
+        this.resource = resource;
+        this.contentHash = contentHash;
+    }
 }
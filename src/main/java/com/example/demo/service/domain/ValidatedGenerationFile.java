@@ -0,0 +1,17 @@
+package com.example.demo.service.domain;
+
+import com.example.demo.dao.domain.GenerationFileContent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Uploaded file that has already been read and deserialized by the validation, so that it is not parsed again.
+ */
+@AllArgsConstructor
+@Getter
+public class ValidatedGenerationFile {
+
+    private String name;
+    private byte[] data;
+    private GenerationFileContent content;
+}
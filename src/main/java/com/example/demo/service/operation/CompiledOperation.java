@@ -0,0 +1,54 @@
+package com.example.demo.service.operation;
+
+import java.math.BigInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Executable form of the operation declared by a generation file, compiled once by {@link OperationCompiler}.
+ * It is evaluated with exact long arithmetic and, only when an intermediate value overflows, evaluated again with
+ * {@link BigInteger}, so that an expression whose result fits in a long never fails because of an intermediate value.
+ * Instances are immutable and thread safe.
+ */
+public class CompiledOperation {
+
+    private final String operation;
+    private final LongBinaryOperator exact;
+    private final BinaryOperator<BigInteger> wide;
+
+    CompiledOperation(String operation, LongBinaryOperator exact, BinaryOperator<BigInteger> wide) {
+        notNull(exact, "The exact form of the operation cannot be null");
+        notNull(wide, "The wide form of the operation cannot be null");
+        this.operation = operation;
+        this.exact = exact;
+        this.wide = wide;
+    }
+
+    /**
+     * @return the operation as it was declared, null for the default sum of the operands.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Evaluate the operation.
+     * @param valueX the value of x.
+     * @param valueY the value of y.
+     * @return the result of the operation.
+     * @throws ArithmeticException if the result does not fit in a long, or on a division by zero.
+     */
+    public long apply(long valueX, long valueY) {
+        try {
+            return exact.applyAsLong(valueX, valueY);
+        } catch (ArithmeticException ex) {
+            BigInteger result = wide.apply(BigInteger.valueOf(valueX), BigInteger.valueOf(valueY));
+            if (result.bitLength() > Long.SIZE - 1) {
+                throw new ArithmeticException("The result of the operation is out of range");
+            }
+            return result.longValue();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.demo.service.operation;
+
+import com.example.demo.error.WrongContentFileFormatException;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Compiles the operations declared by generation files into a {@link CompiledOperation}, once for each distinct
+ * operation: compiled operations are kept in a bounded cache, and operations seen once the cache is full are compiled
+ * on every use.
+ * <p>
+ * An operation is either a named one, "sum", "difference" or "product", or an expression over the operands x and y
+ * made of long literals, the operators + - * / %, unary minus and parentheses, such as "2 * x + 3 * y". The expression
+ * is parsed by recursive descent into a tree of lambdas, so that evaluating it does not parse or interpret anything.
+ */
+public class OperationCompiler {
+
+    /**
+     * Maximum length of an operation.
+     */
+    public static final int MAX_OPERATION_LENGTH = 256;
+
+    private static final CompiledOperation SUM = new CompiledOperation(null, Math::addExact, BigInteger::add);
+    private static final Map<String, String> NAMED_OPERATIONS = Map.of(
+            "sum", "x + y",
+            "difference", "x - y",
+            "product", "x * y"
+    );
+
+    private final int maxCacheSize;
+    private final Map<String, CompiledOperation> compiledOperations = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxCacheSize the maximum number of compiled operations kept.
+     */
+    public OperationCompiler(int maxCacheSize) {
+        isTrue(maxCacheSize >= 0, "The maximum size of the cache cannot be negative");
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    /**
+     * Compile an operation, or retrieve it from the cache if it was already compiled.
+     * @param operation the operation, null for the sum of the operands.
+     * @return the executable operation.
+     * @throws WrongContentFileFormatException if the operation is not valid.
+     */
+    public CompiledOperation compile(String operation) {
+        if (operation == null) {
+            return SUM;
+        }
+        CompiledOperation compiledOperation = compiledOperations.get(operation);
+        if (compiledOperation != null) {
+            return compiledOperation;
+        }
+        compiledOperation = doCompile(operation);
+        if (compiledOperations.size() < maxCacheSize) {
+            compiledOperations.putIfAbsent(operation, compiledOperation);
+        }
+        return compiledOperation;
+    }
+
+    /**
+     * @return the number of compiled operations kept.
+     */
+    public int getCacheSize() {
+        return compiledOperations.size();
+    }
+
+    private static CompiledOperation doCompile(String operation) {
+        if (operation.length() > MAX_OPERATION_LENGTH) {
+            throw new WrongContentFileFormatException("The operation exceeds the maximum length of " + MAX_OPERATION_LENGTH);
+        }
+        Parser parser = new Parser(NAMED_OPERATIONS.getOrDefault(operation, operation));
+        Node node = parser.parseExpression();
+        if (!parser.isAtEnd()) {
+            throw parser.invalid();
+        }
+        return new CompiledOperation(operation, node.exact, node.wide);
+    }
+
+    /**
+     * Both forms of a node of the expression: with exact long arithmetic and with {@link BigInteger}.
+     */
+    private static final class Node {
+        private final LongBinaryOperator exact;
+        private final BinaryOperator<BigInteger> wide;
+
+        private Node(LongBinaryOperator exact, BinaryOperator<BigInteger> wide) {
+            this.exact = exact;
+            this.wide = wide;
+        }
+    }
+
+    private static final class Parser {
+        private static final Node X = new Node((x, y) -> x, (x, y) -> x);
+        private static final Node Y = new Node((x, y) -> y, (x, y) -> y);
+
+        private final String expression;
+        private int position;
+
+        private Parser(String expression) {
+            this.expression = expression;
+        }
+
+        /**
+         * expression := term (('+' | '-') term)*
+         */
+        private Node parseExpression() {
+            Node node = parseTerm();
+            while (true) {
+                if (accept('+')) {
+                    node = add(node, parseTerm());
+                } else if (accept('-')) {
+                    node = subtract(node, parseTerm());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        /**
+         * term := factor (('*' | '/' | '%') factor)*
+         */
+        private Node parseTerm() {
+            Node node = parseFactor();
+            while (true) {
+                if (accept('*')) {
+                    node = multiply(node, parseFactor());
+                } else if (accept('/')) {
+                    node = divide(node, parseFactor());
+                } else if (accept('%')) {
+                    node = remainder(node, parseFactor());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        /**
+         * factor := '-' factor | 'x' | 'y' | literal | '(' expression ')'
+         */
+        private Node parseFactor() {
+            if (accept('-')) {
+                return negate(parseFactor());
+            }
+            if (accept('x')) {
+                return X;
+            }
+            if (accept('y')) {
+                return Y;
+            }
+            if (accept('(')) {
+                Node node = parseExpression();
+                if (!accept(')')) {
+                    throw invalid();
+                }
+                return node;
+            }
+            return parseLiteral();
+        }
+
+        private Node parseLiteral() {
+            int start = position;
+            while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw invalid();
+            }
+            long value;
+            try {
+                value = Long.parseLong(expression, start, position, 10);
+            } catch (NumberFormatException ex) {
+                throw invalid();
+            }
+            BigInteger wideValue = BigInteger.valueOf(value);
+            return new Node((x, y) -> value, (x, y) -> wideValue);
+        }
+
+        private boolean accept(char expected) {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+            if (position < expression.length() && expression.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean isAtEnd() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+            return position == expression.length();
+        }
+
+        private WrongContentFileFormatException invalid() {
+            return new WrongContentFileFormatException("Invalid operation at position " + position + ": " + expression);
+        }
+
+        private static Node add(Node left, Node right) {
+            LongBinaryOperator l = left.exact;
+            LongBinaryOperator r = right.exact;
+            BinaryOperator<BigInteger> wl = left.wide;
+            BinaryOperator<BigInteger> wr = right.wide;
+            return new Node(
+                    (x, y) -> Math.addExact(l.applyAsLong(x, y), r.applyAsLong(x, y)),
+                    (x, y) -> wl.apply(x, y).add(wr.apply(x, y))
+            );
+        }
+
+        private static Node subtract(Node left, Node right) {
+            LongBinaryOperator l = left.exact;
+            LongBinaryOperator r = right.exact;
+            BinaryOperator<BigInteger> wl = left.wide;
+            BinaryOperator<BigInteger> wr = right.wide;
+            return new Node(
+                    (x, y) -> Math.subtractExact(l.applyAsLong(x, y), r.applyAsLong(x, y)),
+                    (x, y) -> wl.apply(x, y).subtract(wr.apply(x, y))
+            );
+        }
+
+        private static Node multiply(Node left, Node right) {
+            LongBinaryOperator l = left.exact;
+            LongBinaryOperator r = right.exact;
+            BinaryOperator<BigInteger> wl = left.wide;
+            BinaryOperator<BigInteger> wr = right.wide;
+            return new Node(
+                    (x, y) -> Math.multiplyExact(l.applyAsLong(x, y), r.applyAsLong(x, y)),
+                    (x, y) -> wl.apply(x, y).multiply(wr.apply(x, y))
+            );
+        }
+
+        private static Node divide(Node left, Node right) {
+            LongBinaryOperator l = left.exact;
+            LongBinaryOperator r = right.exact;
+            BinaryOperator<BigInteger> wl = left.wide;
+            BinaryOperator<BigInteger> wr = right.wide;
+            return new Node(
+                    (x, y) -> {
+                        long dividend = l.applyAsLong(x, y);
+                        long divisor = r.applyAsLong(x, y);
+                        if (dividend == Long.MIN_VALUE && divisor == -1) {
+                            throw new ArithmeticException("long overflow");
+                        }
+                        return dividend / divisor;
+                    },
+                    (x, y) -> wl.apply(x, y).divide(wr.apply(x, y))
+            );
+        }
+
+        private static Node remainder(Node left, Node right) {
+            LongBinaryOperator l = left.exact;
+            LongBinaryOperator r = right.exact;
+            BinaryOperator<BigInteger> wl = left.wide;
+            BinaryOperator<BigInteger> wr = right.wide;
+            return new Node(
+                    (x, y) -> l.applyAsLong(x, y) % r.applyAsLong(x, y),
+                    (x, y) -> wl.apply(x, y).remainder(wr.apply(x, y))
+            );
+        }
+
+        private static Node negate(Node node) {
+            LongBinaryOperator exact = node.exact;
+            BinaryOperator<BigInteger> wide = node.wide;
+            return new Node(
+                    (x, y) -> Math.negateExact(exact.applyAsLong(x, y)),
+                    (x, y) -> wide.apply(x, y).negate()
+            );
+        }
+    }
+}
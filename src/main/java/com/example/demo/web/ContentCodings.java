@@ -0,0 +1,49 @@
+package com.example.demo.web;
+
+/**
+ * Parsing of the content codings accepted by a client in the Accept-Encoding header.
+ */
+final class ContentCodings {
+
+    static final String GZIP = "gzip";
+
+    private static final String X_GZIP = "x-gzip";
+    private static final String ANY = "*";
+    private static final String QUALITY_PREFIX = "q=";
+
+    private ContentCodings() {
+    }
+
+    /**
+     * @param header the value of the Accept-Encoding header.
+     * @return true if the client accepts gzip, either by name or by a wildcard, with a quality other than 0.
+     */
+    static boolean acceptsGzip(String header) {
+        Boolean wildcard = null;
+        for (String token : header.split(",")) {
+            String[] parameters = token.split(";");
+            String coding = parameters[0].trim();
+            if (coding.equalsIgnoreCase(GZIP) || coding.equalsIgnoreCase(X_GZIP)) {
+                return isAccepted(parameters);
+            }
+            if (coding.equals(ANY)) {
+                wildcard = isAccepted(parameters);
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static boolean isAccepted(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith(QUALITY_PREFIX)) {
+                try {
+                    return Double.parseDouble(parameter.substring(QUALITY_PREFIX.length())) > 0;
+                } catch (NumberFormatException ex) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
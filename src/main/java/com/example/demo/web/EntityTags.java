@@ -0,0 +1,61 @@
+package com.example.demo.web;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formatting and parsing of the entity tags sent in the ETag, If-Match and If-None-Match headers.
+ * The entity tag of a file is its content hash between double quotes.
+ */
+final class EntityTags {
+
+    static final String ANY = "*";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private EntityTags() {
+    }
+
+    /**
+     * @param contentHash the content hash of a file.
+     * @return the entity tag of the file, as sent in the ETag header.
+     */
+    static String format(String contentHash) {
+        return "\"" + contentHash + "\"";
+    }
+
+    /**
+     * @param contentHash the content hash of a file.
+     * @return the weak entity tag of the file, as sent in the ETag header of a compressed representation of the file.
+     */
+    static String formatWeak(String contentHash) {
+        return WEAK_PREFIX + format(contentHash);
+    }
+
+    /**
+     * Parse the list of entity tags of an If-Match or If-None-Match header.
+     * @param header the value of the header.
+     * @param weakComparison whether weak entity tags can match, as in If-None-Match. Otherwise they are ignored, as in If-Match.
+     * @return the opaque values of the entity tags, without quotes, or {@link #ANY} for a wildcard.
+     */
+    static List<String> parse(String header, boolean weakComparison) {
+        List<String> tags = new ArrayList<>();
+        for (String token : header.split(",")) {
+            String tag = token.trim();
+            if (tag.equals(ANY)) {
+                tags.add(ANY);
+                continue;
+            }
+            if (tag.startsWith(WEAK_PREFIX)) {
+                if (!weakComparison) {
+                    continue;
+                }
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                tags.add(tag.substring(1, tag.length() - 1));
+            }
+        }
+        return tags;
+    }
+}
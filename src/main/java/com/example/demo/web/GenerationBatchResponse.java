@@ -0,0 +1,19 @@
+package com.example.demo.web;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Getter
+public class GenerationBatchResponse {
+
+    @JsonProperty
+    private List<Long> ids;
+}
@@ -1,7 +1,13 @@
 package com.example.demo.web;
 
+import com.example.demo.dao.domain.GenerationFileContent;
+import com.example.demo.error.PreconditionFailedException;
 import com.example.demo.service.GenerationServiceImpl;
+import com.example.demo.service.aggregate.GenerationResultStats;
+import com.example.demo.service.cache.GenerationResultCacheStats;
 import com.example.demo.service.domain.GetGenerationFileResponse;
+import com.example.demo.service.domain.ValidatedGenerationFile;
+import com.example.demo.web.validator.BulkRequestValidator;
 import com.example.demo.web.validator.FileValidator;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
@@ -17,11 +23,18 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
 
 import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
 
 /**
@@ -36,6 +49,7 @@ public class GenerationController {
 
     private GenerationServiceImpl generationServiceImpl;
     private FileValidator fileValidator;
+    private BulkRequestValidator bulkRequestValidator;
 
     /**
      * Upload a json file with a given format and saves it in a database.
@@ -46,9 +60,10 @@ public class GenerationController {
     @PostMapping(path = "v1/api/generation/upload", consumes = MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<GenerationFileResponse> uploadGenerationFile(@RequestParam("file") MultipartFile file) throws Exception {
         log.info("Uploading {}", file.getOriginalFilename());
-        fileValidator.validateFile(file);
+        ValidatedGenerationFile validatedGenerationFile = fileValidator.validateFile(file);
 
-        GenerationFileResponse generationFileResponse = generationServiceImpl.uploadGenerationFile(file);
+        GenerationFileResponse generationFileResponse = generationServiceImpl.uploadGenerationFile(validatedGenerationFile);
+        GenerationRequestEventInterceptor.recordFileId(generationFileResponse.getId());
 
         log.info("File {} with id {} uploaded successfully", file.getOriginalFilename(), generationFileResponse.getId());
 
@@ -57,32 +72,181 @@ public class GenerationController {
                 .body(generationFileResponse);
     }
 
+    /**
+     * Upload a batch of json files and saves them in a database in a single transaction.
+     * @param files to upload.
+     * @return a Response Entity with the ids of the uploaded files, in the same order.
+     * @throws Exception
+     */
+    @PostMapping(path = "v1/api/generation/upload/batch", consumes = MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<GenerationBatchResponse> uploadGenerationFiles(@RequestParam("files") List<MultipartFile> files) throws Exception {
+        log.info("Uploading batch of {} files", files.size());
+        List<ValidatedGenerationFile> validatedGenerationFiles = fileValidator.validateFiles(files);
+
+        return uploadGenerationFileBatch(validatedGenerationFiles);
+    }
+
+    /**
+     * Upload a json array of generation file contents and saves them in a database in a single transaction.
+     * @param body the json array.
+     * @return a Response Entity with the ids of the uploaded files, in the same order as the array.
+     * @throws IOException
+     */
+    @PostMapping(path = "v1/api/generation/upload/batch", consumes = APPLICATION_JSON_VALUE)
+    public ResponseEntity<GenerationBatchResponse> uploadGenerationContents(InputStream body) throws IOException {
+        List<ValidatedGenerationFile> validatedGenerationFiles = fileValidator.validateContents(body);
+        log.info("Uploading batch of {} contents", validatedGenerationFiles.size());
+
+        return uploadGenerationFileBatch(validatedGenerationFiles);
+    }
+
+    /**
+     * Ingest a newline delimited json stream of generation file contents, committing them in chunks.
+     * The records that cannot be deserialized are reported in the response without aborting the stream.
+     * @param body the newline delimited json stream.
+     * @return a Response Entity with the number of records saved and rejected, along with the first errors.
+     * @throws IOException
+     */
+    @PostMapping(path = "v1/api/generation/upload/ndjson", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<GenerationIngestionResponse> ingestGenerationContents(InputStream body) throws IOException {
+        log.info("Ingesting stream of contents");
+
+        GenerationIngestionResponse generationIngestionResponse = generationServiceImpl.ingestGenerationContents(body);
+
+        log.info("Stream ingested, {} records saved and {} rejected", generationIngestionResponse.getAccepted(), generationIngestionResponse.getRejected());
+
+        return ResponseEntity
+                .status(OK)
+                .body(generationIngestionResponse);
+    }
+
     /**
      * Retrieve the uploaded file with, in addition, the result calculated from the info in the uploaded file.
+     * A large result is sent compressed with gzip to the clients accepting it, under a weak entity tag.
      * @param fileId id of the file to be retrieved
-     * @return a file with the result calculated from the info in the uploaded file.
+     * @param ifNoneMatch entity tags of the file already held by the client, if any.
+     * @param acceptEncoding content codings accepted by the client, if any.
+     * @return a file with the result calculated from the info in the uploaded file, or 304 if the client already holds it.
      * @throws IOException
      */
     @GetMapping(path = "v1/api/generation/{fileId}")
-    public ResponseEntity<Resource> getGenerationFile(@Valid @PathVariable @NotNull @Positive Long fileId) throws IOException {
+    public ResponseEntity<Resource> getGenerationFile(
+            @Valid @PathVariable @NotNull @Positive Long fileId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) throws IOException {
         log.info("Retrieving {}", fileId);
 
+        if (ifNoneMatch != null) {
+            Optional<String> contentHash = generationServiceImpl.getGenerationFileContentHash(fileId);
+            List<String> tags = EntityTags.parse(ifNoneMatch, true);
+            if (contentHash.isPresent() && (tags.contains(EntityTags.ANY) || tags.contains(contentHash.get()))) {
+                log.info("File with id: {} not modified", fileId);
+                return ResponseEntity
+                        .status(NOT_MODIFIED)
+                        .eTag(EntityTags.format(contentHash.get()))
+                        .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                        .build();
+            }
+        }
+
         GetGenerationFileResponse getGenerationFileResponse = generationServiceImpl.getGenerationFile(fileId);
 
         HttpHeaders headers = httpHeaders(getGenerationFileResponse);
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        Resource resource = getGenerationFileResponse.getResource();
+
+        if (acceptEncoding != null && ContentCodings.acceptsGzip(acceptEncoding)) {
+            Optional<Resource> gzipResource = generationServiceImpl.getGzipResource(getGenerationFileResponse);
+            if (gzipResource.isPresent()) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, ContentCodings.GZIP);
+                headers.setETag(EntityTags.formatWeak(getGenerationFileResponse.getContentHash()));
+                resource = gzipResource.get();
+            }
+        }
 
         log.info("Retrieved file {} with id: {}", getGenerationFileResponse.getName(), fileId);
 
         return ResponseEntity
                 .status(OK)
                 .headers(headers)
-                .body(getGenerationFileResponse.getResource());
+                .body(resource);
+    }
+
+    /**
+     * Retrieve the uploaded file as it was stored, streamed from the database without loading it in memory.
+     * @param fileId id of the file to be retrieved.
+     * @return the uploaded file.
+     */
+    @GetMapping(path = "v1/api/generation/{fileId}/content")
+    public ResponseEntity<StreamingResponseBody> getGenerationFileContent(@Valid @PathVariable @NotNull @Positive Long fileId) {
+        log.info("Retrieving content of {}", fileId);
+
+        String name = generationServiceImpl.getGenerationFileName(fileId);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDispositionFormData("attachment", name);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.add("file-id", fileId.toString());
+
+        return ResponseEntity
+                .status(OK)
+                .headers(headers)
+                .body(outputStream -> generationServiceImpl.writeGenerationFileContent(fileId, outputStream));
+    }
+
+    /**
+     * Retrieve the result of many files at once, given either as a list of ids or as a range of ids.
+     * The results are streamed as a json array ordered by id, and the files that cannot be retrieved are reported inline.
+     * @param ids ids of the files to be retrieved.
+     * @param from first id of the range of files to be retrieved.
+     * @param to last id of the range of files to be retrieved.
+     * @return a json array with, for every file, its result or the reason why it could not be retrieved.
+     */
+    @GetMapping(path = "v1/api/generation/bulk")
+    public ResponseEntity<StreamingResponseBody> getGenerationFiles(
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to
+    ) {
+        bulkRequestValidator.validateSelection(ids, from, to);
+
+        StreamingResponseBody body = ids != null
+                ? outputStream -> generationServiceImpl.writeGenerationFiles(ids, outputStream)
+                : outputStream -> generationServiceImpl.writeGenerationFiles(from, to, outputStream);
+
+        return ResponseEntity
+                .status(OK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * List a page of the stored files, ordered by id, with their name, the size of their content and their result.
+     * The next page is listed by passing the nextAfter of the response as after, along with the same name.
+     * @param after the files listed have an id greater than this one, 0 for the first page.
+     * @param name the exact name of the files listed, if any.
+     * @param limit the maximum number of files listed.
+     * @return a Response Entity with the files of the page and the id to list the next page after, if any.
+     */
+    @GetMapping(path = "v1/api/generation/list")
+    public ResponseEntity<GenerationListResponse> listGenerationFiles(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        bulkRequestValidator.validatePage(after, limit);
+
+        return ResponseEntity
+                .status(OK)
+                .body(generationServiceImpl.listGenerationFiles(after, name, limit));
     }
 
     /**
      * Update the content of the uploaded file.
      * @param fileId id of the file to be modified.
      * @param file new file that will update the existing one.
+     * @param ifMatch entity tags the file must currently have to be updated, if any.
      * @return a Response Entity with the info of the updated file.
      * @throws Exception
      */
@@ -93,12 +257,25 @@ public class GenerationController {
             @NotNull
             @Positive
             Long fileId,
-            @RequestParam("file") MultipartFile file
+            @RequestParam("file") MultipartFile file,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws Exception {
         log.info("Uploading {}", file.getOriginalFilename());
-        fileValidator.validateFile(file);
+        ValidatedGenerationFile validatedGenerationFile = fileValidator.validateFile(file);
+
+        List<String> expectedContentHashes = null;
+        if (ifMatch != null) {
+            List<String> tags = EntityTags.parse(ifMatch, false);
+            if (!tags.contains(EntityTags.ANY)) {
+                expectedContentHashes = tags;
+            }
+        }
+        if (expectedContentHashes != null && expectedContentHashes.isEmpty()) {
+            throw new PreconditionFailedException("If-Match does not hold any strong entity tag");
+        }
 
-        GenerationFileResponse generationFileResponse = generationServiceImpl.updateGenerationFile(fileId, file);
+        GenerationFileResponse generationFileResponse = generationServiceImpl.updateGenerationFile(
+                fileId, validatedGenerationFile, expectedContentHashes);
 
         log.info("File {} with id {} updated successfully", file.getOriginalFilename(), generationFileResponse.getId());
 
@@ -107,6 +284,35 @@ public class GenerationController {
                 .body(generationFileResponse);
     }
 
+    /**
+     * Change valueX and/or valueY of the uploaded file without uploading the whole file again. The result is served
+     * with the new operands, while the content of the file is still retrieved as it was uploaded.
+     * @param fileId id of the file to be modified.
+     * @param body json object with only the operands to change, e.g. {"valueY": 7}.
+     * @return an empty Response Entity.
+     * @throws IOException
+     */
+    @PatchMapping(path = "v1/api/generation/update/{fileId}", consumes = APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> patchGenerationFile(
+            @Valid
+            @PathVariable
+            @NotNull
+            @Positive
+            Long fileId,
+            InputStream body
+    ) throws IOException {
+        log.info("Patching {}", fileId);
+        GenerationFileContent partialContent = fileValidator.validatePartialContent(body);
+
+        generationServiceImpl.patchGenerationFile(fileId, partialContent);
+
+        log.info("File with id {} patched successfully", fileId);
+
+        return ResponseEntity
+                .noContent()
+                .build();
+    }
+
     /**
      * Delete the file with a given file id. If the file is not found an exception is thrown.
      * @param fileId id of the file to be deleted.
@@ -130,11 +336,44 @@ public class GenerationController {
                 .body("File with id " + fileId + ", deleted successfully");
     }
 
+    /**
+     * Retrieve the hit, miss and eviction counters of the cache of rendered results.
+     * @return a Response entity with the statistics of the result cache.
+     */
+    @GetMapping(path = "v1/api/generation/cache/stats")
+    public ResponseEntity<GenerationResultCacheStats> getResultCacheStats() {
+        return ResponseEntity
+                .status(OK)
+                .body(generationServiceImpl.getResultCacheStats());
+    }
+
+    /**
+     * Retrieve the count, total, minimum and maximum of the results of all the stored files, without reading them.
+     * @return a Response entity with the statistics of the results.
+     */
+    @GetMapping(path = "v1/api/generation/stats")
+    public ResponseEntity<GenerationResultStats> getResultStats() {
+        return ResponseEntity
+                .status(OK)
+                .body(generationServiceImpl.getResultStats());
+    }
+
+    private ResponseEntity<GenerationBatchResponse> uploadGenerationFileBatch(List<ValidatedGenerationFile> validatedGenerationFiles) {
+        List<Long> ids = generationServiceImpl.uploadGenerationFiles(validatedGenerationFiles);
+
+        log.info("Batch of {} files uploaded successfully", ids.size());
+
+        return ResponseEntity
+                .status(CREATED)
+                .body(new GenerationBatchResponse(ids));
+    }
+
     private static HttpHeaders httpHeaders(GetGenerationFileResponse getGenerationFileResponse) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentDispositionFormData("attachment", getGenerationFileResponse.getName());
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.add("file-id", getGenerationFileResponse.getId().toString());
+        headers.setETag(EntityTags.format(getGenerationFileResponse.getContentHash()));
         return headers;
     }
 }
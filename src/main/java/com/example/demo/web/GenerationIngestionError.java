@@ -0,0 +1,19 @@
+package com.example.demo.web;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Getter
+public class GenerationIngestionError {
+
+    @JsonProperty
+    private long line;
+    @JsonProperty
+    private String errorMessage;
+}
@@ -0,0 +1,23 @@
+package com.example.demo.web;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Getter
+public class GenerationIngestionResponse {
+
+    @JsonProperty
+    private long accepted;
+    @JsonProperty
+    private long rejected;
+    @JsonProperty
+    private List<GenerationIngestionError> errors;
+}
@@ -0,0 +1,25 @@
+package com.example.demo.web;
+
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Getter
+public class GenerationListResponse {
+
+    @JsonProperty
+    private List<GenerationFileSummaryView> files;
+    /**
+     * The id to list the next page after, or null if this is the last page.
+     */
+    @JsonProperty
+    private Long nextAfter;
+}
@@ -0,0 +1,99 @@
+package com.example.demo.web;
+
+import com.example.demo.metrics.GenerationRequestEvent;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Interceptor that records each request to the generation endpoints as a {@link GenerationRequestEvent} for the flight
+ * recorder. Nothing is recorded unless a recording has the event enabled.
+ * <p>
+ * A streamed response is dispatched twice, the event begins with the first dispatch and is committed at the end of the
+ * second one.
+ */
+public class GenerationRequestEventInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String EVENT_ATTRIBUTE = GenerationRequestEventInterceptor.class.getName() + ".event";
+    private static final String FILE_ID_ATTRIBUTE = GenerationRequestEventInterceptor.class.getName() + ".fileId";
+    private static final String FILE_ID_VARIABLE = "fileId";
+
+    /**
+     * Record the id of the file a request is about, when it is not a path variable, e.g. the id of an uploaded file.
+     * Does nothing outside a request.
+     * @param fileId the id of the file.
+     */
+    public static void recordFileId(Long fileId) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null && fileId != null) {
+            requestAttributes.setAttribute(FILE_ID_ATTRIBUTE, fileId, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod && request.getAttribute(EVENT_ATTRIBUTE) == null) {
+            GenerationRequestEvent event = new GenerationRequestEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                request.setAttribute(EVENT_ATTRIBUTE, event);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(EVENT_ATTRIBUTE) instanceof GenerationRequestEvent event)) {
+            return;
+        }
+        request.removeAttribute(EVENT_ATTRIBUTE);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = ((HandlerMethod) handler).getMethod().getName();
+            event.fileId = fileId(request);
+            event.requestSize = Math.max(request.getContentLengthLong(), 0);
+            event.responseSize = responseSize(response);
+            event.status = response.getStatus();
+            HttpStatus.Series series = HttpStatus.Series.resolve(response.getStatus());
+            event.outcome = series != null ? series.name() : "UNKNOWN";
+            event.commit();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long fileId(HttpServletRequest request) {
+        if (request.getAttribute(FILE_ID_ATTRIBUTE) instanceof Long fileId) {
+            return fileId;
+        }
+        Map<String, String> uriVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (uriVariables == null || uriVariables.get(FILE_ID_VARIABLE) == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(uriVariables.get(FILE_ID_VARIABLE));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static long responseSize(HttpServletResponse response) {
+        String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(contentLength);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.example.demo.web;
 import com.example.demo.error.EmptyFileException;
 import com.example.demo.error.ErrorResponse;
 import com.example.demo.error.GenerationFileNotFoundException;
+import com.example.demo.error.InvalidRequestException;
+import com.example.demo.error.PreconditionFailedException;
 import com.example.demo.error.WrongContentFileFormatException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
@@ -11,6 +13,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ServerHttpObservationFilter;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
@@ -19,12 +25,17 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Mapping of the exceptions to error responses. Each handled exception is also recorded on the observation of the
+ * request, so that the http.server.requests timers are tagged with it along with the status it is mapped to.
+ */
 @Slf4j
 @RestControllerAdvice
 public class GlobalControllerAdvice {
 
     @ExceptionHandler(MaxUploadSizeExceededException.class)
     public ResponseEntity<ErrorResponse> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException ex) {
+        recordError(ex);
         log.error("MaxUploadSizeExceededException: {}", ex.getMessage());
         return ResponseEntity
                 .status(HttpStatus.PAYLOAD_TOO_LARGE)
@@ -33,6 +44,7 @@ public class GlobalControllerAdvice {
 
     @ExceptionHandler(IOException.class)
     public ResponseEntity<ErrorResponse> handleIOException(IOException ex) {
+        recordError(ex);
         log.error("IOException: {}", ex.getMessage());
         return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -41,6 +53,7 @@ public class GlobalControllerAdvice {
 
     @ExceptionHandler(EmptyFileException.class)
     public ResponseEntity<ErrorResponse> handleEmptyFileException(EmptyFileException ex) {
+        recordError(ex);
         log.error("Empty File Exception: {}", ex.getMessage());
         return ResponseEntity
                 .status(HttpStatus.BAD_REQUEST)
@@ -49,22 +62,43 @@ public class GlobalControllerAdvice {
 
     @ExceptionHandler(WrongContentFileFormatException.class)
     public ResponseEntity<ErrorResponse> handleWrongContentFileFormatException(WrongContentFileFormatException ex) {
+        recordError(ex);
         log.error("Wrong Content File Format Exception: {}", ex.getMessage());
         return ResponseEntity
                 .status(HttpStatus.BAD_REQUEST)
                 .body(new ErrorResponse(ex.getMessage()));
     }
 
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequestException(InvalidRequestException ex) {
+        recordError(ex);
+        log.error("Invalid Request Exception: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(ex.getMessage()));
+    }
+
     @ExceptionHandler(GenerationFileNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleGenerationFileNotFoundException(GenerationFileNotFoundException ex) {
+        recordError(ex);
         log.error("Generation File Not FoundException Exception: {}", ex.getMessage());
         return ResponseEntity
                 .status(HttpStatus.NOT_FOUND)
                 .body(new ErrorResponse(ex.getMessage()));
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailedException(PreconditionFailedException ex) {
+        recordError(ex);
+        log.error("Precondition Failed Exception: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(new ErrorResponse(ex.getMessage()));
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ErrorResponse> handleConstraintViolationExceptions(Exception ex) {
+        recordError(ex);
         log.error("Constraint Violation Exception: {}", ex.getMessage());
 
         List<String> errorMessages = new ArrayList<>();
@@ -83,6 +117,7 @@ public class GlobalControllerAdvice {
 
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<ErrorResponse> handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        recordError(ex);
         String errorMessage = ex.getMessage();
 
         ErrorResponse errorResponse = new ErrorResponse(errorMessage);
@@ -93,10 +128,18 @@ public class GlobalControllerAdvice {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
+        recordError(ex);
         log.error("Generic Exception: {}", ex.getMessage());
         return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ErrorResponse(ex.getMessage()));
     }
-}
 
+    private static void recordError(Exception ex) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes servletRequestAttributes) {
+            ServerHttpObservationFilter.findObservationContext(servletRequestAttributes.getRequest())
+                    .ifPresent(context -> context.setError(ex));
+        }
+    }
+}
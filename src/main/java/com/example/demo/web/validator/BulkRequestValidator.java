@@ -0,0 +1,77 @@
+package com.example.demo.web.validator;
+
+import com.example.demo.config.GenerationProperties;
+import com.example.demo.error.InvalidRequestException;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Class that validates the selection of files of a bulk request, given either as a list of ids or as a range of ids,
+ * and the pages of a listing.
+ */
+@Component
+@AllArgsConstructor
+public class BulkRequestValidator {
+    private GenerationProperties generationProperties;
+
+    /**
+     * Validate that exactly one of the list of ids or the range of ids is given, and that it does not select too many files.
+     * @param ids list of ids, or null if a range is given.
+     * @param from first id of the range, or null if a list is given.
+     * @param to last id of the range, or null if a list is given.
+     */
+    public void validateSelection(List<Long> ids, Long from, Long to) {
+        int maxIds = generationProperties.getBulk().getMaxIds();
+        if (ids != null) {
+            if (from != null || to != null) {
+                throw new InvalidRequestException("Either ids or a range from-to must be given, not both");
+            }
+            validateIds(ids, maxIds);
+        } else {
+            validateRange(from, to, maxIds);
+        }
+    }
+
+    /**
+     * Validate that a page of a listing starts after a valid id and does not list too many files.
+     * @param after the id the page starts after, 0 for the first page.
+     * @param limit the maximum number of files of the page.
+     */
+    public void validatePage(long after, int limit) {
+        int maxPageSize = generationProperties.getBulk().getMaxPageSize();
+        if (after < 0) {
+            throw new InvalidRequestException("The id to list the files after cannot be negative");
+        }
+        if (limit <= 0 || limit > maxPageSize) {
+            throw new InvalidRequestException("The limit must be between 1 and " + maxPageSize);
+        }
+    }
+
+    private void validateIds(List<Long> ids, int maxIds) {
+        if (ids.isEmpty()) {
+            throw new InvalidRequestException("At least one id must be given");
+        }
+        if (ids.size() > maxIds) {
+            throw new InvalidRequestException("At most " + maxIds + " ids can be requested at once");
+        }
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new InvalidRequestException("The ids must be positive");
+            }
+        }
+    }
+
+    private void validateRange(Long from, Long to, int maxIds) {
+        if (from == null || to == null) {
+            throw new InvalidRequestException("Either ids or a range from-to must be given");
+        }
+        if (from <= 0 || to < from) {
+            throw new InvalidRequestException("The range must be positive and from cannot be greater than to");
+        }
+        if (to - from >= maxIds) {
+            throw new InvalidRequestException("At most " + maxIds + " ids can be requested at once");
+        }
+    }
+}
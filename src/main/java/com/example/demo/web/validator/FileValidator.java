@@ -2,15 +2,21 @@ package com.example.demo.web.validator;
 
 import com.example.demo.dao.domain.GenerationFileContent;
 import com.example.demo.error.EmptyFileException;
-import com.example.demo.error.WrongContentFileFormatException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.example.demo.metrics.GenerationMetrics;
+import com.example.demo.service.codec.GenerationFileCodec;
+import com.example.demo.service.domain.ValidatedGenerationFile;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.demo.metrics.GenerationMetrics.Stage.PARSE;
+import static com.example.demo.metrics.GenerationMetrics.Stage.READ;
+import static com.example.demo.metrics.GenerationMetrics.Stage.VALIDATE;
 
 /**
  * Class that validates if the file is empty or if the format of the file in input is not valid.
@@ -18,28 +24,80 @@ import java.io.IOException;
 @Component
 @AllArgsConstructor
 public class FileValidator {
-    private ObjectMapper objectMapper;
+    private GenerationFileCodec generationFileCodec;
+    private GenerationMetrics generationMetrics;
 
     /**
      * Validate if the file is empty or if the format of the file in input is not valid.
      * @param file to be validated.
+     * @return the validated file along with its deserialized content.
      * @throws Exception
      */
-    public void validateFile(MultipartFile file) throws Exception {
-        validateEmptyFile(file);
-        validateGenerationFileContent(file);
+    public ValidatedGenerationFile validateFile(MultipartFile file) throws Exception {
+        return generationMetrics.time(VALIDATE, () -> {
+            validateEmptyFile(file);
+            byte[] data = generationMetrics.time(READ, file::getBytes);
+            generationMetrics.recordRequestSize(data.length);
+            GenerationFileContent generationFileContent = validateGenerationFileContent(data);
+            return new ValidatedGenerationFile(file.getOriginalFilename(), data, generationFileContent);
+        });
     }
+
+    /**
+     * Validate every file of a batch. The first file that is empty or has a wrong format fails the whole batch.
+     * @param files to be validated.
+     * @return the validated files along with their deserialized content, in the same order.
+     * @throws Exception
+     */
+    public List<ValidatedGenerationFile> validateFiles(List<MultipartFile> files) throws Exception {
+        validateEmptyBatch(files.size());
+        List<ValidatedGenerationFile> validatedGenerationFiles = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            validatedGenerationFiles.add(validateFile(file));
+        }
+        return validatedGenerationFiles;
+    }
+
+    /**
+     * Validate a json array of generation file contents. Each content becomes a file named after its position in the array.
+     * @param inputStream the json array.
+     * @return the validated files along with their deserialized content, in the same order.
+     * @throws IOException
+     */
+    public List<ValidatedGenerationFile> validateContents(InputStream inputStream) throws IOException {
+        List<GenerationFileContent> generationFileContents = generationMetrics.time(PARSE, () -> generationFileCodec.readContents(inputStream));
+        validateEmptyBatch(generationFileContents.size());
+        List<ValidatedGenerationFile> validatedGenerationFiles = new ArrayList<>(generationFileContents.size());
+        for (int i = 0; i < generationFileContents.size(); i++) {
+            GenerationFileContent generationFileContent = generationFileContents.get(i);
+            byte[] data = generationFileCodec.writeContent(generationFileContent);
+            validatedGenerationFiles.add(new ValidatedGenerationFile("document-" + i + ".json", data, generationFileContent));
+        }
+        return validatedGenerationFiles;
+    }
+
+    /**
+     * Validate a partial content of a generation file, in which each operand is optional but at least one is present.
+     * @param inputStream the json content.
+     * @return the operands present, the others being null.
+     * @throws IOException
+     */
+    public GenerationFileContent validatePartialContent(InputStream inputStream) throws IOException {
+        return generationMetrics.time(PARSE, () -> generationFileCodec.readPartialContent(inputStream));
+    }
+
+    private void validateEmptyBatch(int size) {
+        if (size == 0) {
+            throw new EmptyFileException("The batch is empty");
+        }
+    }
+
     private void validateEmptyFile(MultipartFile file) {
         if (file.isEmpty()) {
             throw new EmptyFileException("The file is empty");
         }
     }
-    private void validateGenerationFileContent(MultipartFile file) throws IOException {
-        try {
-            objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
-            objectMapper.readValue(file.getBytes(), GenerationFileContent.class);
-        } catch (UnrecognizedPropertyException ex) {
-            throw new WrongContentFileFormatException("Error deserializing the file");
-        }
+    private GenerationFileContent validateGenerationFileContent(byte[] data) throws IOException {
+        return generationMetrics.time(PARSE, () -> generationFileCodec.readContent(data));
     }
 }
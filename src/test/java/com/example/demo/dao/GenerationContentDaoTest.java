@@ -0,0 +1,138 @@
+package com.example.demo.dao;
+
+import com.example.demo.service.codec.PayloadCompressor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class GenerationContentDaoTest {
+
+    private GenerationContentDao underTest;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Mock
+    private Savepoint savepoint;
+
+    private final byte[] largeData = ("{\"valuesX\": [" + "1, ".repeat(1_000) + "1], \"valuesY\": [" + "2, ".repeat(1_000) + "2]}").getBytes();
+
+    @BeforeEach
+    public void beforeTest() throws SQLException {
+        openMocks(this);
+        underTest = new GenerationContentDao(jdbcTemplate, new PayloadCompressor(true, 64, -1));
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(jdbcTemplate.getExceptionTranslator()).thenReturn(new SQLErrorCodeSQLExceptionTranslator("H2"));
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(connection.prepareStatement(startsWith("insert"))).thenReturn(preparedStatement);
+    }
+
+    @Test
+    void shouldStoreANewContentCompressed() throws SQLException {
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenReturn(new int[]{0});
+
+        underTest.addReferences(Map.of("hash", 2L), Map.of("hash", largeData));
+
+        verify(preparedStatement).setString(1, "hash");
+        verify(preparedStatement).setBytes(eq(2), argThat(data -> data.length < largeData.length));
+        verify(preparedStatement).setBoolean(3, true);
+        verify(preparedStatement).setLong(4, 2L);
+        verify(preparedStatement).executeUpdate();
+        verify(connection).releaseSavepoint(savepoint);
+    }
+
+    @Test
+    void shouldOnlyCountTheReferencesToAContentAlreadyStored() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenReturn(new int[]{1});
+
+        underTest.addReferences(Map.of("hash", 1L), Map.of("hash", largeData));
+
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void shouldReferenceAContentStoredByAConcurrentTransaction() throws SQLException {
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenReturn(new int[]{0});
+        when(preparedStatement.executeUpdate()).thenThrow(duplicateKey());
+        when(jdbcTemplate.update(startsWith("update"), eq(1L), eq("hash"))).thenReturn(1);
+
+        underTest.addReferences(Map.of("hash", 1L), Map.of("hash", largeData));
+
+        verify(connection).rollback(savepoint);
+        verify(connection, never()).releaseSavepoint(savepoint);
+        verify(jdbcTemplate).update(startsWith("update"), eq(1L), eq("hash"));
+    }
+
+    @Test
+    void shouldGiveUpOnAContentKeptBeingStoredAndDeletedConcurrently() throws SQLException {
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenReturn(new int[]{0});
+        when(preparedStatement.executeUpdate()).thenThrow(duplicateKey());
+
+        assertThrows(ConcurrencyFailureException.class, () -> underTest.addReferences(Map.of("hash", 1L), Map.of("hash", largeData)));
+
+        verify(connection, times(3)).rollback(savepoint);
+        verify(jdbcTemplate, times(3)).update(startsWith("update"), eq(1L), eq("hash"));
+    }
+
+    @Test
+    void shouldUpdateAFileAndReadItsPreviousRowWithASingleStatement() {
+        assertEquals(Optional.empty(), underTest.updateById(1L, "test.json", 2, "hash", 8L, 5L, null, 13L, "new", List.of()));
+        underTest.updateById(1L, "test.json", 2, "hash", 8L, 5L, null, 13L, "new", List.of("a", "b"));
+
+        verify(jdbcTemplate).query(argThat((String sql) -> sql.startsWith("select") && sql.endsWith("content_hash in (?, ?))")),
+                any(RowMapper.class), eq("test.json"), eq(2), eq("hash"), eq(8L), eq(5L), isNull(), eq(13L), eq("new"), eq(1L),
+                eq("a"), eq("b"));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void shouldDeleteAContentOnlyOnceItsReferenceIsRemoved() {
+        when(jdbcTemplate.update(startsWith("update"), eq("hash"))).thenReturn(1);
+
+        underTest.removeReference("hash");
+        underTest.removeReference("missing");
+
+        verify(jdbcTemplate).update(startsWith("delete"), eq("hash"));
+        verify(jdbcTemplate, never()).update(startsWith("delete"), eq("missing"));
+    }
+
+    private static SQLException duplicateKey() {
+        return new SQLException("Unique index or primary key violation", "23505", 23505);
+    }
+}
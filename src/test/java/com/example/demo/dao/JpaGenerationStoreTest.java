@@ -0,0 +1,185 @@
+package com.example.demo.dao;
+
+import com.example.demo.dao.domain.GenerationFileDataEntity;
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.service.codec.PayloadCompressor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class JpaGenerationStoreTest {
+
+    private static final Long FILE_ID = 1L;
+
+    private JpaGenerationStore underTest;
+
+    @Mock
+    private GenerationDao generationDao;
+
+    @Mock
+    private GenerationDataDao generationDataDao;
+
+    @Mock
+    private GenerationContentDao generationContentDao;
+
+    private final byte[] data = "{\"valueX\": 8, \"valueY\": 5}".getBytes();
+
+    @BeforeEach
+    public void beforeTest() {
+        openMocks(this);
+        underTest = new JpaGenerationStore(generationDao, generationDataDao, generationContentDao, new PayloadCompressor(true, 64, -1));
+    }
+
+    @Test
+    void shouldReferenceTheContentOfANewFile() throws Exception {
+        GenerationFileEntity generationFileEntity = new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash");
+
+        when(generationDao.save(generationFileEntity)).thenReturn(generationFileEntity);
+
+        GenerationFileEntity actual = underTest.save(generationFileEntity);
+
+        verify(generationContentDao).addReferences(Map.of(dataHash(), 1L), Map.of(dataHash(), data));
+        verify(generationContentDao, never()).findByIdForUpdate(any());
+        assertSame(generationFileEntity, actual);
+        assertEquals(dataHash(), actual.getDataHash());
+        assertEquals(data.length, actual.getDataSize());
+    }
+
+    @Test
+    void shouldReferenceTheContentsOfAllTheFilesInASingleBatch() throws Exception {
+        List<GenerationFileEntity> generationFileEntities = List.of(
+                new GenerationFileEntity("first.json", data, 8L, 5L, 13L, null),
+                new GenerationFileEntity("second.json", data, 8L, 5L, 13L, null)
+        );
+
+        when(generationDao.saveAll(generationFileEntities)).thenReturn(generationFileEntities);
+
+        assertSame(generationFileEntities, underTest.saveAll(generationFileEntities));
+        verify(generationContentDao, times(1)).addReferences(Map.of(dataHash(), 2L), Map.of(dataHash(), data));
+        assertEquals(dataHash(), generationFileEntities.get(1).getDataHash());
+    }
+
+    @Test
+    void shouldReadTheContentOfTheFilesToBackfillDecompressed() {
+        byte[] largeData = ("{\"valuesX\": [" + "1, ".repeat(1_000) + "1], \"valuesY\": [" + "2, ".repeat(1_000) + "2]}").getBytes();
+        GenerationFileEntity generationFileEntity = new GenerationFileEntity(FILE_ID, "large.json", null, null, null, 3_003L, null);
+        generationFileEntity.setDataHash("large");
+
+        when(generationDao.findWithoutContentHashAfter(0L, PageRequest.of(0, 10))).thenReturn(List.of(generationFileEntity));
+        when(generationDataDao.findAllById(List.of("large")))
+                .thenReturn(List.of(new GenerationFileDataEntity("large", new PayloadCompressor(true, 0, -1).deflate(largeData), true)));
+
+        List<GenerationFileEntity> actual = underTest.findWithoutContentHashAfter(0L, 10);
+
+        assertEquals(1, actual.size());
+        assertEquals(FILE_ID, actual.get(0).getId());
+        assertArrayEquals(largeData, actual.get(0).getData());
+    }
+
+    @Test
+    void shouldReleaseThePreviousContentOfAnExistingFile() throws Exception {
+        GenerationFileEntity generationFileEntity = new GenerationFileEntity(FILE_ID, "test.json", data, 8L, 5L, 13L, "hash");
+
+        when(generationContentDao.findByIdForUpdate(FILE_ID)).thenReturn(Optional.of(lockedFile("previous")));
+        when(generationDao.save(generationFileEntity)).thenReturn(new GenerationFileEntity(FILE_ID, "test.json", null, 8L, 5L, 13L, "hash"));
+
+        GenerationFileEntity actual = underTest.save(generationFileEntity);
+
+        verify(generationContentDao).addReferences(Map.of(dataHash(), 1L), Map.of(dataHash(), data));
+        verify(generationContentDao).removeReference("previous");
+        assertArrayEquals(data, actual.getData());
+    }
+
+    @Test
+    void shouldReplaceTheContentOnlyIfTheMetadataIsUpdated() throws Exception {
+        when(generationContentDao.updateById(FILE_ID, "test.json", data.length, dataHash(), 8L, 5L, null, 13L, "new",
+                List.of("other"))).thenReturn(Optional.empty());
+        when(generationContentDao.updateById(FILE_ID, "test.json", data.length, dataHash(), 8L, 5L, null, 13L, "new", null))
+                .thenReturn(Optional.of(lockedFile("previous")));
+
+        assertEquals(Optional.empty(),
+                underTest.updateByIdAndContentHashIn(FILE_ID, "test.json", data, 8L, 5L, null, 13L, "new", List.of("other")));
+        verify(generationContentDao, never()).addReferences(any(), any());
+        verify(generationContentDao, never()).removeReference(any());
+
+        assertEquals(Optional.of(new GenerationFileResultChange(3L, 13L)),
+                underTest.updateById(FILE_ID, "test.json", data, 8L, 5L, null, 13L, "new"));
+        verify(generationContentDao).addReferences(Map.of(dataHash(), 1L), Map.of(dataHash(), data));
+        verify(generationContentDao).removeReference("previous");
+        verify(generationContentDao, never()).findByIdForUpdate(any());
+    }
+
+    @Test
+    void shouldReleaseTheContentOfADeletedFile() {
+        when(generationContentDao.deleteById(FILE_ID)).thenReturn(Optional.of(lockedFile("previous")));
+
+        assertEquals(Optional.of(new GenerationFileResultChange(3L, null)), underTest.deleteFileById(FILE_ID));
+
+        InOrder inOrder = inOrder(generationContentDao);
+        inOrder.verify(generationContentDao).deleteById(FILE_ID);
+        inOrder.verify(generationContentDao).removeReference("previous");
+        verify(generationContentDao, never()).findByIdForUpdate(any());
+    }
+
+    @Test
+    void shouldNotReleaseAnythingWhenNoFileIsDeleted() {
+        when(generationContentDao.deleteById(FILE_ID)).thenReturn(Optional.empty());
+
+        assertEquals(Optional.empty(), underTest.deleteFileById(FILE_ID));
+        verify(generationContentDao, never()).removeReference(any());
+    }
+
+    @Test
+    void shouldPatchALockedFileWithASingleUpdate() {
+        when(generationContentDao.findByIdForUpdate(FILE_ID))
+                .thenReturn(Optional.of(new GenerationFileEntity(FILE_ID, "test.json", null, 8L, 5L, 13L, "hash")));
+
+        Optional<GenerationFileResultChange> actual = underTest.updateValuesById(FILE_ID, current ->
+                new GenerationFileResultView(current.getId(), current.getName(), current.getValueX(), 7L, 15L, "new-hash"));
+
+        assertEquals(Optional.of(new GenerationFileResultChange(13L, 15L)), actual);
+        InOrder inOrder = inOrder(generationContentDao, generationDao);
+        inOrder.verify(generationContentDao).findByIdForUpdate(FILE_ID);
+        inOrder.verify(generationDao).updateValuesById(FILE_ID, 8L, 7L, 15L, "new-hash");
+    }
+
+    @Test
+    void shouldNotPatchAFileDeclaringAnOperation() {
+        when(generationContentDao.findByIdForUpdate(FILE_ID))
+                .thenReturn(Optional.of(new GenerationFileEntity(FILE_ID, "test.json", null, 8L, 5L, "product", 40L, "hash")));
+
+        assertEquals(Optional.empty(), underTest.updateValuesById(FILE_ID, current -> current));
+        verify(generationDao, never()).updateValuesById(any(), any(), any(), any(), any());
+    }
+
+    private static GenerationFileEntity lockedFile(String dataHash) {
+        GenerationFileEntity generationFileEntity = new GenerationFileEntity(FILE_ID, "test.json", null, 1L, 2L, 3L, "hash");
+        generationFileEntity.setDataHash(dataHash);
+        return generationFileEntity;
+    }
+
+    private String dataHash() throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.demo.dao;
+
+import com.example.demo.config.GenerationProperties;
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import com.example.demo.error.WrongContentFileFormatException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogStructuredGenerationStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private GenerationProperties generationProperties;
+
+    private LogStructuredGenerationStore underTest;
+
+    private final byte[] data = "{\"valueX\": 8, \"valueY\": 5}".getBytes();
+
+    @BeforeEach
+    public void beforeTest() throws IOException {
+        generationProperties = new GenerationProperties();
+        generationProperties.getStorage().setDirectory(directory);
+        generationProperties.getStorage().setSegmentSize(DataSize.ofBytes(256));
+        underTest = new LogStructuredGenerationStore(generationProperties);
+    }
+
+    @AfterEach
+    public void afterTest() throws IOException {
+        underTest.close();
+    }
+
+    @Test
+    void shouldSaveAndRetrieveFile() {
+        GenerationFileEntity saved = underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+
+        assertEquals(1L, saved.getId());
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 5L, 13L, "hash");
+        assertEquals(Optional.of("test.json"), underTest.findNameById(1L));
+        assertEquals(Optional.of("hash"), underTest.findContentHashById(1L));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertTrue(underTest.transferDataById(1L, outputStream));
+        assertArrayEquals(data, outputStream.toByteArray());
+        assertFalse(underTest.transferDataById(2L, outputStream));
+    }
+
+    @Test
+    void shouldUpdateAndDeleteFiles() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+        underTest.save(new GenerationFileEntity("other.json", data, 9L, 6L, 15L, "other"));
+
+        assertEquals(Optional.of(new GenerationFileResultChange(13L, 15L)), underTest.updateValuesById(1L, patchValues(null, 7L)));
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 7L, 15L, "new-hash");
+        assertEquals(Optional.empty(), underTest.updateByIdAndContentHashIn(1L, "put.json", data, 1L, 1L, null, 2L, "put", List.of("hash")));
+        assertEquals(Optional.of(new GenerationFileResultChange(15L, 2L)),
+                underTest.updateByIdAndContentHashIn(1L, "put.json", data, 1L, 1L, null, 2L, "put", List.of("new-hash")));
+
+        assertEquals(Optional.of(new GenerationFileResultChange(15L, null)), underTest.deleteFileById(2L));
+        assertEquals(Optional.empty(), underTest.deleteFileById(2L));
+        assertFalse(underTest.existsById(2L));
+        assertEquals(List.of(1L), underTest.streamResultViewsByIdBetween(1L, 10L).map(GenerationFileResultView::getId).toList());
+    }
+
+    @Test
+    void shouldWriteNothingWhenThePatchIsRejected() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.updateValuesById(1L, current -> {
+            throw new WrongContentFileFormatException("rejected");
+        }));
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 5L, 13L, "hash");
+    }
+
+    @Test
+    void shouldListSummariesAfterAnId() {
+        String longName = "first_" + "x".repeat(1_000) + ".json";
+        underTest.save(new GenerationFileEntity("first.json", data, 8L, 5L, 13L, "first"));
+        underTest.save(new GenerationFileEntity("second.json", data, 9L, 6L, 15L, "second"));
+        underTest.save(new GenerationFileEntity(longName, data, 1L, 2L, 3L, "long"));
+        underTest.deleteFileById(1L);
+
+        assertEquals(List.of(
+                new GenerationFileSummaryView(2L, "second.json", data.length, 15L),
+                new GenerationFileSummaryView(3L, longName, data.length, 3L)
+        ), underTest.findSummaryViewsAfter(0L, null, 10));
+        assertEquals(List.of(new GenerationFileSummaryView(3L, longName, data.length, 3L)),
+                underTest.findSummaryViewsAfter(2L, null, 10));
+    }
+
+    @Test
+    void shouldListSummariesWithAName() throws IOException {
+        String longName = "test_" + "x".repeat(1_000) + ".json";
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "first"));
+        underTest.save(new GenerationFileEntity(longName, data, 9L, 6L, 15L, "second"));
+        underTest.save(new GenerationFileEntity("test.json", data, 1L, 2L, 3L, "third"));
+        underTest.save(new GenerationFileEntity("test.json", data, 4L, 5L, 9L, "fourth"));
+        underTest.updateById(1L, "renamed.json", data, 8L, 5L, null, 13L, "first");
+        underTest.updateById(2L, "test.json", data, 9L, 6L, null, 15L, "second");
+        underTest.deleteFileById(4L);
+
+        List<GenerationFileSummaryView> expected = List.of(
+                new GenerationFileSummaryView(2L, "test.json", data.length, 15L),
+                new GenerationFileSummaryView(3L, "test.json", data.length, 3L)
+        );
+        assertEquals(expected, underTest.findSummaryViewsAfter(0L, "test.json", 10));
+        assertEquals(expected.subList(1, 2), underTest.findSummaryViewsAfter(2L, "test.json", 10));
+        assertEquals(expected.subList(0, 1), underTest.findSummaryViewsAfter(0L, "test.json", 1));
+        assertTrue(underTest.findSummaryViewsAfter(0L, longName, 10).isEmpty());
+        underTest.compact();
+        underTest.close();
+
+        underTest = new LogStructuredGenerationStore(generationProperties);
+
+        assertEquals(expected, underTest.findSummaryViewsAfter(0L, "test.json", 10));
+        assertEquals(List.of(new GenerationFileSummaryView(1L, "renamed.json", data.length, 13L)),
+                underTest.findSummaryViewsAfter(0L, "renamed.json", 10));
+    }
+
+    @Test
+    void shouldTransferTheContentOfLargeRecords() {
+        String longName = "test_" + "x".repeat(1_000) + ".json";
+        byte[] largeData = ("{\"valuesX\": [" + "1, ".repeat(10_000) + "1], \"valuesY\": [" + "2, ".repeat(10_000) + "2]}").getBytes();
+        underTest.save(new GenerationFileEntity(longName, data, 8L, 5L, 13L, "hash"));
+        underTest.save(new GenerationFileEntity("arrays.json", largeData, null, null, 30_003L, "hash"));
+        underTest.save(new GenerationFileEntity("empty.json", null, 8L, 5L, 13L, "hash"));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertTrue(underTest.transferDataById(1L, outputStream));
+        assertArrayEquals(data, outputStream.toByteArray());
+
+        outputStream.reset();
+        assertTrue(underTest.transferDataById(2L, outputStream));
+        assertArrayEquals(largeData, outputStream.toByteArray());
+
+        outputStream.reset();
+        assertTrue(underTest.transferDataById(3L, outputStream));
+        assertEquals(0, outputStream.size());
+    }
+
+    @Test
+    void shouldKeepTheDeclaredOperation() throws IOException {
+        underTest.save(new GenerationFileEntity(null, "test.json", data, 8L, 5L, "product", 40L, "hash"));
+
+        assertTrue(underTest.updateValuesById(1L, patchValues(null, 7L)).isEmpty());
+        underTest.close();
+
+        underTest = new LogStructuredGenerationStore(generationProperties);
+
+        GenerationFileResultView actual = underTest.findResultViewById(1L).orElseThrow();
+        assertResultView(actual, "test.json", 8L, 5L, 40L, "hash");
+        assertEquals("product", actual.getOperation());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        underTest.transferDataById(1L, outputStream);
+        assertArrayEquals(data, outputStream.toByteArray());
+    }
+
+    @Test
+    void shouldRebuildIndexWhenReopened() throws IOException {
+        underTest.save(new GenerationFileEntity("first.json", data, 8L, 5L, 13L, "first"));
+        underTest.save(new GenerationFileEntity("second.json", data, 9L, 6L, 15L, "second"));
+        underTest.updateValuesById(1L, patchValues(1L, null));
+        underTest.deleteFileById(2L);
+        underTest.close();
+
+        underTest = new LogStructuredGenerationStore(generationProperties);
+
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "first.json", 1L, 5L, 6L, "new-hash");
+        assertFalse(underTest.existsById(2L));
+        assertEquals(3L, underTest.save(new GenerationFileEntity("third.json", data, 1L, 1L, 2L, "third")).getId());
+    }
+
+    @Test
+    void shouldDropIncompleteRecordWhenReopened() throws IOException {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+        underTest.close();
+        Path activeSegment = segments().get(segments().size() - 1);
+        long size = Files.size(activeSegment);
+        Files.write(activeSegment, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        underTest = new LogStructuredGenerationStore(generationProperties);
+
+        assertEquals(size, Files.size(activeSegment));
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 5L, 13L, "hash");
+        assertEquals(2L, underTest.save(new GenerationFileEntity("other.json", data, 9L, 6L, 15L, "other")).getId());
+    }
+
+    @Test
+    void shouldCompactSealedSegments() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            underTest.save(new GenerationFileEntity(1L, "test.json", data, (long) i, 5L, i + 5L, "hash"));
+        }
+        underTest.save(new GenerationFileEntity("deleted.json", data, 9L, 6L, 15L, "other"));
+        underTest.deleteFileById(2L);
+        underTest.save(new GenerationFileEntity("last.json", data, 1L, 1L, 2L, "last"));
+        underTest.deleteFileById(3L);
+        long sizeBefore = totalSize();
+
+        underTest.compact();
+
+        assertTrue(totalSize() < sizeBefore);
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 9L, 5L, 14L, "hash");
+
+        underTest.close();
+        underTest = new LogStructuredGenerationStore(generationProperties);
+
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 9L, 5L, 14L, "hash");
+        assertFalse(underTest.existsById(2L));
+        assertFalse(underTest.existsById(3L));
+        assertEquals(4L, underTest.save(new GenerationFileEntity("next.json", data, 1L, 1L, 2L, "next")).getId());
+    }
+
+    @Test
+    void shouldShareSyncsBetweenConcurrentWriters() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<Long>> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(executorService.submit(() -> underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash")).getId()));
+        }
+        List<Long> saved = new ArrayList<>();
+        for (Future<Long> id : ids) {
+            saved.add(id.get());
+        }
+        executorService.shutdown();
+        underTest.close();
+
+        underTest = new LogStructuredGenerationStore(generationProperties);
+
+        assertEquals(200, saved.stream().distinct().count());
+        assertEquals(200, underTest.streamResultViewsByIdBetween(1L, 200L).count());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(LogStructuredGenerationStore.SEGMENT_PREFIX))
+                    .sorted(Comparator.comparingInt(path -> Integer.parseInt(path.getFileName().toString()
+                            .replace(LogStructuredGenerationStore.SEGMENT_PREFIX, "")
+                            .replace(LogStructuredGenerationStore.SUFFIX, ""))))
+                    .toList();
+        }
+    }
+
+    private long totalSize() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long size = 0;
+            for (Path path : files.toList()) {
+                size += Files.size(path);
+            }
+            return size;
+        }
+    }
+
+    @Test
+    void shouldKeepServingOtherThreadsWhenAWriterIsInterrupted() throws IOException {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(RuntimeException.class, () -> underTest.save(new GenerationFileEntity("other.json", data, 9L, 6L, 15L, "other")));
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 5L, 13L, "hash");
+        assertEquals(2L, underTest.save(new GenerationFileEntity("other.json", data, 9L, 6L, 15L, "other")).getId());
+        underTest.close();
+        underTest = new LogStructuredGenerationStore(generationProperties);
+        assertEquals(List.of(1L, 2L), underTest.streamResultViewsByIdBetween(1L, 10L).map(GenerationFileResultView::getId).toList());
+    }
+
+    private static UnaryOperator<GenerationFileResultView> patchValues(Long valueX, Long valueY) {
+        return current -> {
+            long newValueX = valueX != null ? valueX : current.getValueX();
+            long newValueY = valueY != null ? valueY : current.getValueY();
+            return new GenerationFileResultView(current.getId(), current.getName(), newValueX, newValueY, newValueX + newValueY, "new-hash");
+        };
+    }
+
+    private static void assertResultView(GenerationFileResultView actual, String name, Long valueX, Long valueY, Long result, String contentHash) {
+        assertEquals(name, actual.getName());
+        assertEquals(valueX, actual.getValueX());
+        assertEquals(valueY, actual.getValueY());
+        assertEquals(result, actual.getResult());
+        assertEquals(contentHash, actual.getContentHash());
+    }
+}
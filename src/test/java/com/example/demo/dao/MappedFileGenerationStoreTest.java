@@ -0,0 +1,255 @@
+package com.example.demo.dao;
+
+import com.example.demo.config.GenerationProperties;
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import com.example.demo.error.WrongContentFileFormatException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFileGenerationStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private GenerationProperties generationProperties;
+
+    private MappedFileGenerationStore underTest;
+
+    private final byte[] data = "{\"valueX\": 8, \"valueY\": 5}".getBytes();
+
+    @BeforeEach
+    public void beforeTest() throws IOException {
+        generationProperties = new GenerationProperties();
+        generationProperties.getStorage().setDirectory(directory);
+        generationProperties.getStorage().setInitialSize(DataSize.ofBytes(64));
+        underTest = new MappedFileGenerationStore(generationProperties);
+    }
+
+    @AfterEach
+    public void afterTest() throws IOException {
+        underTest.close();
+    }
+
+    @Test
+    void shouldSaveAndRetrieveFile() {
+        GenerationFileEntity saved = underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+
+        assertEquals(1L, saved.getId());
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 5L, 13L, "hash");
+        assertEquals(Optional.of("test.json"), underTest.findNameById(1L));
+        assertEquals(Optional.of("hash"), underTest.findContentHashById(1L));
+    }
+
+    @Test
+    void shouldGrowTheFileWhenItIsFull() {
+        List<GenerationFileEntity> saved = underTest.saveAll(List.of(
+                new GenerationFileEntity("first.json", data, 8L, 5L, 13L, "first"),
+                new GenerationFileEntity("second.json", new byte[1000], 9L, 6L, 15L, "second")
+        ));
+
+        assertEquals(List.of(1L, 2L), saved.stream().map(GenerationFileEntity::getId).toList());
+        assertEquals(List.of(1L, 2L), underTest.streamResultViewsByIdBetween(1L, 10L).map(GenerationFileResultView::getId).toList());
+    }
+
+    @Test
+    void shouldTransferStoredContent() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertTrue(underTest.transferDataById(1L, outputStream));
+        assertArrayEquals(data, outputStream.toByteArray());
+        assertFalse(underTest.transferDataById(2L, outputStream));
+    }
+
+    @Test
+    void shouldUpdateValuesAndKeepContent() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+
+        assertEquals(Optional.of(new GenerationFileResultChange(13L, 15L)), underTest.updateValuesById(1L, patchValues(null, 7L)));
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 7L, 15L, "new-hash");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        underTest.transferDataById(1L, outputStream);
+        assertArrayEquals(data, outputStream.toByteArray());
+    }
+
+    @Test
+    void shouldWriteNothingWhenThePatchIsRejected() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.updateValuesById(1L, current -> {
+            throw new WrongContentFileFormatException("rejected");
+        }));
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 5L, 13L, "hash");
+    }
+
+    @Test
+    void shouldNotUpdateValuesOfFileNotMaterialized() {
+        underTest.save(new GenerationFileEntity("test.json", data, null, null, null, null));
+
+        assertTrue(underTest.updateValuesById(1L, patchValues(1L, 1L)).isEmpty());
+        assertEquals(List.of(1L), underTest.findWithoutContentHashAfter(0L, 100).stream().map(GenerationFileEntity::getId).toList());
+    }
+
+    @Test
+    void shouldKeepTheDeclaredOperation() throws IOException {
+        underTest.save(new GenerationFileEntity(null, "test.json", data, 8L, 5L, "product", 40L, "hash"));
+
+        assertTrue(underTest.updateValuesById(1L, patchValues(null, 7L)).isEmpty());
+        underTest.close();
+
+        underTest = new MappedFileGenerationStore(generationProperties);
+
+        GenerationFileResultView actual = underTest.findResultViewById(1L).orElseThrow();
+        assertResultView(actual, "test.json", 8L, 5L, 40L, "hash");
+        assertEquals("product", actual.getOperation());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        underTest.transferDataById(1L, outputStream);
+        assertArrayEquals(data, outputStream.toByteArray());
+    }
+
+    @Test
+    void shouldUpdateOnlyIfContentHashIsExpected() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+
+        assertEquals(Optional.empty(), underTest.updateByIdAndContentHashIn(1L, "put.json", data, 9L, 6L, null, 15L, "new-hash", List.of("stale")));
+        assertEquals(Optional.of(new GenerationFileResultChange(13L, 15L)),
+                underTest.updateByIdAndContentHashIn(1L, "put.json", data, 9L, 6L, null, 15L, "new-hash", List.of("hash")));
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "put.json", 9L, 6L, 15L, "new-hash");
+        assertEquals(Optional.empty(), underTest.updateById(2L, "put.json", data, 9L, 6L, null, 15L, "new-hash"));
+    }
+
+    @Test
+    void shouldListSummariesAfterAnId() {
+        underTest.saveAll(List.of(
+                new GenerationFileEntity("first.json", data, 8L, 5L, 13L, "first"),
+                new GenerationFileEntity("second.json", data, 9L, 6L, 15L, "second"),
+                new GenerationFileEntity("first_copy.json", null, null, null, null, null)
+        ));
+
+        assertEquals(List.of(
+                new GenerationFileSummaryView(1L, "first.json", data.length, 13L),
+                new GenerationFileSummaryView(2L, "second.json", data.length, 15L)
+        ), underTest.findSummaryViewsAfter(0L, null, 2));
+        assertEquals(List.of(new GenerationFileSummaryView(3L, "first_copy.json", null, null)),
+                underTest.findSummaryViewsAfter(2L, null, 10));
+    }
+
+    @Test
+    void shouldListSummariesWithAName() throws IOException {
+        underTest.saveAll(List.of(
+                new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "first"),
+                new GenerationFileEntity("other.json", data, 9L, 6L, 15L, "second"),
+                new GenerationFileEntity("test.json", data, 1L, 2L, 3L, "third"),
+                new GenerationFileEntity("test.json", data, 4L, 5L, 9L, "fourth")
+        ));
+        underTest.updateById(1L, "renamed.json", data, 8L, 5L, null, 13L, "first");
+        underTest.deleteFileById(4L);
+
+        assertEquals(List.of(new GenerationFileSummaryView(3L, "test.json", data.length, 3L)),
+                underTest.findSummaryViewsAfter(0L, "test.json", 10));
+        assertEquals(List.of(new GenerationFileSummaryView(1L, "renamed.json", data.length, 13L)),
+                underTest.findSummaryViewsAfter(0L, "renamed.json", 10));
+        assertTrue(underTest.findSummaryViewsAfter(3L, "test.json", 10).isEmpty());
+        assertTrue(underTest.findSummaryViewsAfter(0L, "test", 10).isEmpty());
+        underTest.close();
+
+        underTest = new MappedFileGenerationStore(generationProperties);
+
+        assertEquals(List.of(new GenerationFileSummaryView(3L, "test.json", data.length, 3L)),
+                underTest.findSummaryViewsAfter(0L, "test.json", 10));
+        assertEquals(List.of(new GenerationFileSummaryView(1L, "renamed.json", data.length, 13L)),
+                underTest.findSummaryViewsAfter(0L, "renamed.json", 10));
+    }
+
+    @Test
+    void shouldDeleteFile() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "hash"));
+
+        assertEquals(Optional.of(new GenerationFileResultChange(13L, null)), underTest.deleteFileById(1L));
+        assertEquals(Optional.empty(), underTest.deleteFileById(1L));
+        assertFalse(underTest.existsById(1L));
+        assertTrue(underTest.findResultViewById(1L).isEmpty());
+    }
+
+    @Test
+    void shouldRebuildIndexWhenReopened() throws IOException {
+        underTest.save(new GenerationFileEntity("first.json", data, 8L, 5L, 13L, "first"));
+        underTest.save(new GenerationFileEntity("second.json", data, 9L, 6L, 15L, "second"));
+        underTest.updateValuesById(1L, patchValues(1L, null));
+        underTest.deleteFileById(2L);
+        underTest.close();
+
+        underTest = new MappedFileGenerationStore(generationProperties);
+
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "first.json", 1L, 5L, 6L, "new-hash");
+        assertFalse(underTest.existsById(2L));
+        assertEquals(3L, underTest.save(new GenerationFileEntity("third.json", data, 1L, 1L, 2L, "third")).getId());
+    }
+
+    @Test
+    void shouldCompactOldVersionsWhenReopened() throws IOException {
+        underTest.save(new GenerationFileEntity("first.json", data, 8L, 5L, 13L, "first"));
+        underTest.save(new GenerationFileEntity("second.json", data, 9L, 6L, 15L, "second"));
+        for (long valueY = 1; valueY <= 20; valueY++) {
+            underTest.updateById(1L, "first.json", data, 8L, valueY, null, 8L + valueY, "first");
+        }
+        underTest.deleteFileById(2L);
+        underTest.close();
+        Path path = directory.resolve(MappedFileGenerationStore.FILE_NAME);
+        long size = Files.size(path);
+
+        underTest = new MappedFileGenerationStore(generationProperties);
+
+        assertTrue(Files.size(path) < size / 4);
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "first.json", 8L, 20L, 28L, "first");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        underTest.transferDataById(1L, outputStream);
+        assertArrayEquals(data, outputStream.toByteArray());
+        assertFalse(underTest.existsById(2L));
+        assertEquals(List.of(1L), underTest.findSummaryViewsAfter(0L, "first.json", 10).stream()
+                .map(GenerationFileSummaryView::getId).toList());
+        assertEquals(3L, underTest.save(new GenerationFileEntity("third.json", data, 1L, 1L, 2L, "third")).getId());
+        underTest.close();
+
+        underTest = new MappedFileGenerationStore(generationProperties);
+
+        assertEquals(List.of(1L, 3L), underTest.streamResultViewsByIdBetween(1L, 10L).map(GenerationFileResultView::getId).toList());
+    }
+
+    private static UnaryOperator<GenerationFileResultView> patchValues(Long valueX, Long valueY) {
+        return current -> {
+            long newValueX = valueX != null ? valueX : current.getValueX();
+            long newValueY = valueY != null ? valueY : current.getValueY();
+            return new GenerationFileResultView(current.getId(), current.getName(), newValueX, newValueY, newValueX + newValueY, "new-hash");
+        };
+    }
+
+    private static void assertResultView(GenerationFileResultView actual, String name, Long valueX, Long valueY, Long result, String contentHash) {
+        assertEquals(name, actual.getName());
+        assertEquals(valueX, actual.getValueX());
+        assertEquals(valueY, actual.getValueY());
+        assertEquals(result, actual.getResult());
+        assertEquals(contentHash, actual.getContentHash());
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.demo.dao;
+
+import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import com.example.demo.error.WrongContentFileFormatException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapGenerationStoreTest {
+
+    private static final String HASH = "a".repeat(64);
+    private static final String NEW_HASH = "b".repeat(64);
+
+    private OffHeapGenerationStore underTest;
+
+    private final byte[] data = "{\"valueX\": 8, \"valueY\": 5}".getBytes();
+
+    @BeforeEach
+    public void beforeTest() {
+        underTest = new OffHeapGenerationStore();
+    }
+
+    @Test
+    void shouldSaveAndRetrieveFile() {
+        GenerationFileEntity saved = underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH));
+
+        assertEquals(1L, saved.getId());
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 5L, 13L, HASH);
+        assertEquals(Optional.of("test.json"), underTest.findNameById(1L));
+        assertEquals(Optional.of(HASH), underTest.findContentHashById(1L));
+        assertTrue(underTest.findResultViewById(2L).isEmpty());
+    }
+
+    @Test
+    void shouldShareNamesAndGrowSegments() {
+        underTest.save(new GenerationFileEntity(20_000L, "test.json", data, 1L, 2L, 3L, HASH));
+        List<GenerationFileEntity> saved = underTest.saveAll(List.of(
+                new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH),
+                new GenerationFileEntity("other.json", data, 9L, 6L, 15L, NEW_HASH)
+        ));
+
+        assertEquals(List.of(20_001L, 20_002L), saved.stream().map(GenerationFileEntity::getId).toList());
+        assertEquals(List.of(20_000L, 20_001L, 20_002L),
+                underTest.streamResultViewsByIdBetween(1L, 30_000L).map(GenerationFileResultView::getId).toList());
+        assertEquals(Optional.of("test.json"), underTest.findNameById(20_001L));
+        assertEquals(Optional.of("other.json"), underTest.findNameById(20_002L));
+    }
+
+    @Test
+    void shouldTransferCanonicalContent() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, -5L, 3L, HASH));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertTrue(underTest.transferDataById(1L, outputStream));
+        assertEquals("{\"valueX\":8,\"valueY\":-5}", outputStream.toString());
+        assertFalse(underTest.transferDataById(2L, outputStream));
+    }
+
+    @Test
+    void shouldUpdateValuesAndContentHash() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH));
+
+        assertEquals(Optional.of(new GenerationFileResultChange(13L, 15L)), underTest.updateValuesById(1L, current ->
+                new GenerationFileResultView(current.getId(), current.getName(), current.getValueX(), 7L, current.getValueX() + 7L, NEW_HASH)));
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 7L, 15L, NEW_HASH);
+        assertTrue(underTest.findWithoutContentHashAfter(0L, 100).isEmpty());
+        assertTrue(underTest.updateValuesById(2L, current -> current).isEmpty());
+    }
+
+    @Test
+    void shouldWriteNothingWhenThePatchIsRejected() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH));
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.updateValuesById(1L, current -> {
+            throw new WrongContentFileFormatException("rejected");
+        }));
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "test.json", 8L, 5L, 13L, HASH);
+    }
+
+    @Test
+    void shouldUpdateOnlyIfContentHashIsExpected() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH));
+
+        assertEquals(Optional.empty(), underTest.updateByIdAndContentHashIn(1L, "put.json", data, 9L, 6L, null, 15L, NEW_HASH, List.of(NEW_HASH)));
+        assertEquals(Optional.of(new GenerationFileResultChange(13L, 15L)),
+                underTest.updateByIdAndContentHashIn(1L, "put.json", data, 9L, 6L, null, 15L, NEW_HASH, List.of(HASH)));
+        assertResultView(underTest.findResultViewById(1L).orElseThrow(), "put.json", 9L, 6L, 15L, NEW_HASH);
+        assertEquals(Optional.empty(), underTest.updateById(2L, "put.json", data, 9L, 6L, null, 15L, NEW_HASH));
+    }
+
+    @Test
+    void shouldListSummariesWithTheSizeOfTheCanonicalContent() {
+        underTest.save(new GenerationFileEntity("first.json", data, 8L, -5L, 3L, HASH));
+        underTest.save(new GenerationFileEntity("second.json", data, 10L, 6L, 16L, NEW_HASH));
+        underTest.save(new GenerationFileEntity("first_copy.json", data, 1L, 2L, 3L, HASH));
+
+        assertEquals(List.of(
+                new GenerationFileSummaryView(1L, "first.json", "{\"valueX\":8,\"valueY\":-5}".length(), 3L),
+                new GenerationFileSummaryView(2L, "second.json", "{\"valueX\":10,\"valueY\":6}".length(), 16L),
+                new GenerationFileSummaryView(3L, "first_copy.json", "{\"valueX\":1,\"valueY\":2}".length(), 3L)
+        ), underTest.findSummaryViewsAfter(0L, null, 10));
+        assertEquals(List.of(new GenerationFileSummaryView(2L, "second.json", "{\"valueX\":10,\"valueY\":6}".length(), 16L)),
+                underTest.findSummaryViewsAfter(1L, null, 1));
+    }
+
+    @Test
+    void shouldListSummariesWithAName() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH));
+        underTest.save(new GenerationFileEntity("other.json", data, 9L, 6L, 15L, HASH));
+        underTest.save(new GenerationFileEntity("test.json", data, 1L, 2L, 3L, HASH));
+        underTest.save(new GenerationFileEntity("test.json", data, 4L, 5L, 9L, HASH));
+        underTest.updateById(1L, "renamed.json", data, 8L, 5L, null, 13L, HASH);
+        underTest.deleteFileById(4L);
+
+        assertEquals(List.of(new GenerationFileSummaryView(3L, "test.json", "{\"valueX\":1,\"valueY\":2}".length(), 3L)),
+                underTest.findSummaryViewsAfter(0L, "test.json", 10));
+        assertEquals(List.of(1L), underTest.findSummaryViewsAfter(0L, "renamed.json", 10).stream()
+                .map(GenerationFileSummaryView::getId).toList());
+        assertTrue(underTest.findSummaryViewsAfter(3L, "test.json", 10).isEmpty());
+    }
+
+    @Test
+    void shouldReleaseNamesNoLongerUsedAndReuseTheirCodes() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH));
+        underTest.save(new GenerationFileEntity("test.json", data, 1L, 2L, 3L, HASH));
+        underTest.save(new GenerationFileEntity("other.json", data, 9L, 6L, 15L, HASH));
+        underTest.deleteFileById(1L);
+        underTest.updateById(3L, "renamed.json", data, 9L, 6L, null, 15L, HASH);
+        underTest.updateById(2L, "last.json", data, 1L, 2L, null, 3L, HASH);
+        underTest.save(new GenerationFileEntity("new.json", data, 4L, 5L, 9L, HASH));
+
+        assertEquals(3, underTest.nameCodeCount());
+        assertEquals(Optional.of("last.json"), underTest.findNameById(2L));
+        assertEquals(Optional.of("new.json"), underTest.findNameById(4L));
+        assertEquals(Optional.of("renamed.json"), underTest.findNameById(3L));
+        assertTrue(underTest.findSummaryViewsAfter(0L, "test.json", 10).isEmpty());
+    }
+
+    @Test
+    void shouldDeleteFile() {
+        underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH));
+
+        assertEquals(Optional.of(new GenerationFileResultChange(13L, null)), underTest.deleteFileById(1L));
+        assertEquals(Optional.empty(), underTest.deleteFileById(1L));
+        assertFalse(underTest.existsById(1L));
+        assertTrue(underTest.findResultViewById(1L).isEmpty());
+        assertEquals(2L, underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH)).getId());
+    }
+
+    @Test
+    void shouldRejectContentHashWhichIsNotSha256() {
+        assertThrows(IllegalArgumentException.class,
+                () -> underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, "abcd")));
+    }
+
+    @Test
+    void shouldRejectFilesDeclaringAnOperation() {
+        assertThrows(WrongContentFileFormatException.class,
+                () -> underTest.save(new GenerationFileEntity(null, "test.json", data, 8L, 5L, "product", 40L, HASH)));
+    }
+
+    @Test
+    void shouldRejectABatchWithFilesWithOperandArraysBeforeSavingAnyFile() {
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.saveAll(List.of(
+                new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH),
+                new GenerationFileEntity("arrays.json", data, null, null, 21L, HASH)
+        )));
+
+        assertFalse(underTest.existsById(1L));
+        assertEquals(1L, underTest.save(new GenerationFileEntity("test.json", data, 8L, 5L, 13L, HASH)).getId());
+    }
+
+    @Test
+    void shouldRejectIdsBeyondTheCapacity() {
+        assertThrows(WrongContentFileFormatException.class,
+                () -> underTest.save(new GenerationFileEntity(1L + Integer.MAX_VALUE, "test.json", data, 8L, 5L, 13L, HASH)));
+    }
+
+    private static void assertResultView(GenerationFileResultView actual, String name, Long valueX, Long valueY, Long result, String contentHash) {
+        assertEquals(name, actual.getName());
+        assertEquals(valueX, actual.getValueX());
+        assertEquals(valueY, actual.getValueY());
+        assertEquals(result, actual.getResult());
+        assertEquals(contentHash, actual.getContentHash());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GenerationMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private GenerationMetrics underTest;
+
+    @BeforeEach
+    public void beforeTest() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new GenerationMetrics(meterRegistry);
+    }
+
+    @Test
+    void shouldTimeStageEvenWhenItFails() {
+        assertEquals("result", underTest.time(GenerationMetrics.Stage.RENDER, () -> "result"));
+        assertThrows(IOException.class, () -> underTest.time(GenerationMetrics.Stage.RENDER, () -> {
+            throw new IOException("failure");
+        }));
+
+        assertEquals(2, meterRegistry.get("generation.stage").tag("stage", "render").timer().count());
+        assertEquals(0, meterRegistry.get("generation.stage").tag("stage", "store").timer().count());
+    }
+
+    @Test
+    void shouldSummarizePayloadSizes() {
+        underTest.recordRequestSize(30);
+        underTest.recordRequestSize(50);
+        underTest.recordResponseSize(40);
+
+        assertEquals(80.0, meterRegistry.get("generation.payload.size").tag("direction", "request").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("generation.payload.size").tag("direction", "response").summary().count());
+    }
+
+    @Test
+    void shouldRecordStageEvents() throws IOException {
+        Path recordingFile = directory.resolve("generation.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.example.demo.GenerationStage");
+            recording.start();
+            underTest.time(GenerationMetrics.Stage.READ, () -> new byte[12]);
+            assertThrows(IOException.class, () -> underTest.time(GenerationMetrics.Stage.STORE, 7L, () -> {
+                throw new IOException("failure");
+            }));
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+        assertEquals(2, events.size());
+        assertEquals("read", events.get(0).getString("stage"));
+        assertEquals(12L, events.get(0).getLong("payloadSize"));
+        assertEquals("success", events.get(0).getString("outcome"));
+        assertEquals("store", events.get(1).getString("stage"));
+        assertEquals(7L, events.get(1).getLong("fileId"));
+        assertEquals("IOException", events.get(1).getString("outcome"));
+    }
+}
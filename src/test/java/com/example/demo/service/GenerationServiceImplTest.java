@@ -1,40 +1,87 @@
 package com.example.demo.service;
 
-import com.example.demo.dao.GenerationDao;
+import com.example.demo.config.GenerationProperties;
+import com.example.demo.dao.GenerationStore;
+import com.example.demo.dao.OffHeapGenerationStore;
 import com.example.demo.dao.domain.GenerationFileEntity;
+import com.example.demo.dao.domain.GenerationFileContent;
 import com.example.demo.dao.domain.GenerationFileContentResult;
+import com.example.demo.dao.domain.GenerationFileResultChange;
+import com.example.demo.dao.domain.GenerationFileResultView;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
 import com.example.demo.error.GenerationFileNotFoundException;
+import com.example.demo.error.PreconditionFailedException;
 import com.example.demo.error.WrongContentFileFormatException;
+import com.example.demo.metrics.GenerationMetrics;
+import com.example.demo.service.aggregate.GenerationResultAggregates;
+import com.example.demo.service.aggregate.GenerationResultStats;
+import com.example.demo.service.cache.GenerationResultCache;
+import com.example.demo.service.codec.GenerationFileCodec;
+import com.example.demo.service.codec.PayloadCompressor;
+import com.example.demo.service.compute.GenerationComputeEngine;
+import com.example.demo.service.operation.OperationCompiler;
 import com.example.demo.web.GenerationFileResponse;
+import com.example.demo.web.GenerationIngestionError;
+import com.example.demo.web.GenerationIngestionResponse;
+import com.example.demo.web.GenerationListResponse;
 import com.example.demo.service.domain.GetGenerationFileResponse;
+import com.example.demo.service.domain.ValidatedGenerationFile;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
-import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.openMocks;
 
 class GenerationServiceImplTest {
 
-    private GenerationService underTest;
+    private GenerationServiceImpl underTest;
 
     @Mock
-    private GenerationDao generationDao;
+    private GenerationStore generationStore;
 
     private ObjectMapper objectMapper = new ObjectMapper();
 
+    private GenerationFileCodec generationFileCodec;
+
+    private GenerationResultCache generationResultCache;
+
+    private GenerationResultAggregates generationResultAggregates;
+
+    private GenerationProperties generationProperties;
+
     private static final Long FILE_ID = 1L;
     private byte[] dummyByteArray;
 
@@ -44,62 +91,433 @@ class GenerationServiceImplTest {
         openMocks(this);
         dummyByteArray = new byte[1];
         objectMapper = new ObjectMapper();
-        underTest = new GenerationServiceImpl(generationDao, objectMapper);
+        generationProperties = new GenerationProperties();
+        generationProperties.getIngest().setChunkSize(2);
+        generationFileCodec = new GenerationFileCodec(objectMapper);
+        generationResultCache = new GenerationResultCache(10, Duration.ofMinutes(1), Clock.systemUTC());
+        generationResultAggregates = new GenerationResultAggregates();
+        underTest = newServiceWith(generationStore);
+    }
+
+    private GenerationServiceImpl newServiceWith(GenerationStore generationStore) {
+        return new GenerationServiceImpl(
+                generationStore,
+                generationFileCodec,
+                generationResultCache,
+                generationProperties,
+                new GenerationMetrics(new SimpleMeterRegistry()),
+                new GenerationComputeEngine(ForkJoinPool.commonPool(), 4),
+                new OperationCompiler(10),
+                generationResultAggregates,
+                new PayloadCompressor(true, 64, -1)
+        );
     }
 
     @Test
     void shouldUploadGenerationFile() throws IOException {
         Path fileToUploadPath = Path.of("src/test/java/resources/test.json");
-        MockMultipartFile fileToUpload = new MockMultipartFile(
-                "file",
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile(
                 "test.json",
-                "application/json",
-                Files.readAllBytes(fileToUploadPath)
+                Files.readAllBytes(fileToUploadPath),
+                new GenerationFileContent(8L, 5L)
         );
 
-        GenerationFileEntity generationFileEntity = new GenerationFileEntity(FILE_ID, "generation_file", dummyByteArray);
+        GenerationFileEntity generationFileEntity = new GenerationFileEntity(FILE_ID, "generation_file", dummyByteArray, 8L, 5L, 13L, null);
         GenerationFileResponse generationFileResponse = new GenerationFileResponse(FILE_ID, "generation_file", dummyByteArray);
 
-        when(generationDao.save(any())).thenReturn(generationFileEntity);
+        when(generationStore.save(any())).thenReturn(generationFileEntity);
 
         GenerationFileResponse actual = underTest.uploadGenerationFile(fileToUpload);
 
-        verify(generationDao).save(any());
+        verify(generationStore).save(any());
         assertEquals(generationFileResponse, actual);
     }
 
+    @Test
+    void shouldKeepTheResultStatsOnEveryWrite() {
+        ValidatedGenerationFile first = new ValidatedGenerationFile("first.json", dummyByteArray, new GenerationFileContent(8L, 5L));
+        ValidatedGenerationFile second = new ValidatedGenerationFile("second.json", dummyByteArray, new GenerationFileContent(20L, 2L));
+        when(generationStore.save(any()))
+                .thenReturn(new GenerationFileEntity(1L, "first.json", dummyByteArray, 8L, 5L, 13L, null))
+                .thenReturn(new GenerationFileEntity(2L, "second.json", dummyByteArray, 20L, 2L, 22L, null));
+        when(generationStore.updateById(eq(1L), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Optional.of(new GenerationFileResultChange(13L, 3L)));
+        when(generationStore.deleteFileById(2L)).thenReturn(Optional.of(new GenerationFileResultChange(22L, null)));
+
+        underTest.uploadGenerationFile(first);
+        underTest.uploadGenerationFile(second);
+        assertEquals(new GenerationResultStats(2L, 35L, 13L, 22L), underTest.getResultStats());
+
+        underTest.updateGenerationFile(1L, new ValidatedGenerationFile("first.json", dummyByteArray, new GenerationFileContent(1L, 2L)));
+        assertEquals(new GenerationResultStats(2L, 25L, 3L, 22L), underTest.getResultStats());
+
+        underTest.deleteGenerationFile(2L);
+        assertEquals(new GenerationResultStats(1L, 3L, 3L, 3L), underTest.getResultStats());
+    }
+
+    @Test
+    void shouldApplyTheWritesOfAFileToTheStatsWhateverTheOrderTheyAreCommittedIn() {
+        generationResultAggregates.add(13L);
+        when(generationStore.updateById(eq(FILE_ID), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Optional.of(new GenerationFileResultChange(13L, 3L)));
+        when(generationStore.deleteFileById(FILE_ID)).thenReturn(Optional.of(new GenerationFileResultChange(3L, null)));
+
+        List<TransactionSynchronization> update = inTransaction(() -> underTest.updateGenerationFile(FILE_ID,
+                new ValidatedGenerationFile("first.json", dummyByteArray, new GenerationFileContent(1L, 2L))));
+        List<TransactionSynchronization> delete = inTransaction(() -> underTest.deleteGenerationFile(FILE_ID));
+        delete.forEach(TransactionSynchronization::afterCommit);
+        update.forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(new GenerationResultStats(0L, 0L, null, null), underTest.getResultStats());
+        verify(generationStore, never()).findResultViewById(any());
+    }
+
+    @Test
+    void shouldLoadTheResultsOfTheStoredFilesIntoTheStats() {
+        when(generationStore.streamResultViewsByIdBetween(1L, Long.MAX_VALUE)).thenReturn(Stream.of(
+                new GenerationFileResultView(1L, "first.json", 8L, 5L, 13L, null),
+                new GenerationFileResultView(2L, "second.json", null, null, null, null)
+        ));
+
+        long loaded = underTest.loadResultAggregates();
+
+        assertEquals(2L, loaded);
+        assertEquals(new GenerationResultStats(1L, 13L, 13L, 13L), underTest.getResultStats());
+    }
+
+    @Test
+    void shouldUploadGenerationFileBatch() {
+        List<ValidatedGenerationFile> files = List.of(
+                new ValidatedGenerationFile("first.json", dummyByteArray, new GenerationFileContent(8L, 5L)),
+                new ValidatedGenerationFile("second.json", dummyByteArray, new GenerationFileContent(9L, 6L))
+        );
+        List<GenerationFileEntity> savedEntities = List.of(
+                new GenerationFileEntity(1L, "first.json", dummyByteArray, 8L, 5L, 13L, null),
+                new GenerationFileEntity(2L, "second.json", dummyByteArray, 9L, 6L, 15L, null)
+        );
+
+        when(generationStore.saveAll(any())).thenReturn(savedEntities);
+
+        List<Long> actual = underTest.uploadGenerationFiles(files);
+
+        verify(generationStore).saveAll(any());
+        verify(generationStore, never()).save(any());
+        assertEquals(List.of(1L, 2L), actual);
+    }
+
+    @Test
+    void shouldIngestNdjsonStreamInChunksReportingRejectedLines() throws IOException {
+        String ndjson = "{\"valueX\": 8, \"valueY\": 5}\n" +
+                "{\"value\": 8, \"valueY\": 5}\n" +
+                "\n" +
+                "{\"valueX\": 9, \"valueY\": 6}\r\n" +
+                "{\"valueX\": 1, \"valueY\": 2}";
+        when(generationStore.saveAll(any())).thenReturn(List.of());
+
+        GenerationIngestionResponse actual = underTest.ingestGenerationContents(new ByteArrayInputStream(ndjson.getBytes()));
+
+        verify(generationStore, times(2)).saveAll(any());
+        assertEquals(new GenerationIngestionResponse(3, 1, List.of(new GenerationIngestionError(2, "Error deserializing the file"))), actual);
+    }
+
     @Test
     void shouldThrowIllegalArgumentExceptionIfTheFileIsNull() {
         var exception = assertThrows(IllegalArgumentException.class, () -> underTest.uploadGenerationFile(null));
         assertEquals("The file cannot be null", exception.getMessage());
-        verify(generationDao, never()).save(any());
+        verify(generationStore, never()).save(any());
     }
 
     @Test
-    void shouldRetrieveGenerationFile() throws IOException {
+    void shouldUploadGenerationFileWithMaterializedResult() throws IOException {
         Path fileToUploadPath = Path.of("src/test/java/resources/test.json");
-        GenerationFileEntity getGenerationFileEntity = new GenerationFileEntity(FILE_ID, "generation_file", Files.readAllBytes(fileToUploadPath));
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile(
+                "test.json",
+                Files.readAllBytes(fileToUploadPath),
+                new GenerationFileContent(8L, 5L)
+        );
+        GenerationFileEntity generationFileEntity = new GenerationFileEntity(FILE_ID, "generation_file", dummyByteArray, 8L, 5L, 13L, null);
+        ArgumentCaptor<GenerationFileEntity> savedEntity = ArgumentCaptor.forClass(GenerationFileEntity.class);
+
+        when(generationStore.save(savedEntity.capture())).thenReturn(generationFileEntity);
+
+        underTest.uploadGenerationFile(fileToUpload);
+
+        assertEquals(8L, savedEntity.getValue().getValueX());
+        assertEquals(5L, savedEntity.getValue().getValueY());
+        assertEquals(13L, savedEntity.getValue().getResult());
+        assertEquals(generationFileCodec.contentHash(8L, 5L, 13L), savedEntity.getValue().getContentHash());
+    }
+
+    @Test
+    void shouldUploadGenerationFileComputingItsDeclaredOperation() {
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile(
+                "product.json",
+                dummyByteArray,
+                new GenerationFileContent(8L, 5L, "2 * x * y - 1")
+        );
+        ArgumentCaptor<GenerationFileEntity> savedEntity = ArgumentCaptor.forClass(GenerationFileEntity.class);
+
+        when(generationStore.save(savedEntity.capture())).thenReturn(new GenerationFileEntity(FILE_ID, "product.json", dummyByteArray, 8L, 5L, 79L, null));
+
+        underTest.uploadGenerationFile(fileToUpload);
+
+        assertEquals("2 * x * y - 1", savedEntity.getValue().getOperation());
+        assertEquals(79L, savedEntity.getValue().getResult());
+        assertEquals(generationFileCodec.contentHash(8L, 5L, "2 * x * y - 1", 79L), savedEntity.getValue().getContentHash());
+    }
+
+    @Test
+    void uploadGenerationFileShouldRejectAResultOutOfRange() {
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile(
+                "overflow.json",
+                dummyByteArray,
+                new GenerationFileContent(Long.MAX_VALUE, 2L, "product")
+        );
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.uploadGenerationFile(fileToUpload));
+        verify(generationStore, never()).save(any());
+    }
+
+    @Test
+    void uploadGenerationFileShouldRejectFilesTheMemoryStorageCannotKeep() {
+        GenerationServiceImpl memoryService = newServiceWith(new OffHeapGenerationStore());
+        ValidatedGenerationFile fileWithOperation = new ValidatedGenerationFile(
+                "product.json",
+                dummyByteArray,
+                new GenerationFileContent(8L, 5L, "product")
+        );
+        ValidatedGenerationFile fileWithOperandArrays = new ValidatedGenerationFile(
+                "arrays.json",
+                dummyByteArray,
+                new GenerationFileContent(null, null, null, new long[]{1L, 2L}, new long[]{3L, 4L})
+        );
+
+        assertThrows(WrongContentFileFormatException.class, () -> memoryService.uploadGenerationFile(fileWithOperation));
+        assertThrows(WrongContentFileFormatException.class, () -> memoryService.uploadGenerationFiles(
+                List.of(new ValidatedGenerationFile("test.json", dummyByteArray, new GenerationFileContent(8L, 5L)), fileWithOperandArrays)));
+        assertEquals(0L, memoryService.getResultStats().getCount());
+    }
+
+    @Test
+    void ingestGenerationContentsShouldRejectTheLinesTheMemoryStorageCannotKeep() throws IOException {
+        GenerationServiceImpl memoryService = newServiceWith(new OffHeapGenerationStore());
+        String ndjson = "{\"valueX\": 8, \"valueY\": 5}\n" +
+                "{\"valueX\": 8, \"valueY\": 5, \"operation\": \"product\"}";
+
+        GenerationIngestionResponse actual = memoryService.ingestGenerationContents(new ByteArrayInputStream(ndjson.getBytes()));
+
+        assertEquals(new GenerationIngestionResponse(1, 1,
+                List.of(new GenerationIngestionError(2, "Files declaring an operation cannot be stored in memory"))), actual);
+    }
+
+    @Test
+    void uploadGenerationFileShouldRejectAnInvalidOperation() {
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile(
+                "invalid.json",
+                dummyByteArray,
+                new GenerationFileContent(8L, 5L, "x ^ y")
+        );
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.uploadGenerationFile(fileToUpload));
+        verify(generationStore, never()).save(any());
+    }
+
+    @Test
+    void shouldRetrieveGenerationFileWithItsDeclaredOperation() throws IOException {
+        when(generationStore.findResultViewById(FILE_ID))
+                .thenReturn(Optional.of(new GenerationFileResultView(FILE_ID, "product.json", 8L, 5L, "product", 40L, null)));
+
+        GetGenerationFileResponse actual = underTest.getGenerationFile(FILE_ID);
+
+        assertEquals("{\"valueX\":8,\"valueY\":5,\"operation\":\"product\",\"result\":40}",
+                actual.getResource().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldUploadGenerationFileWithOperandArraysMaterializingTheirTotal() {
+        byte[] data = "{\"valueX\": [1, 2, 3], \"valueY\": [4, 5, 6]}".getBytes(StandardCharsets.UTF_8);
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile(
+                "arrays.json",
+                data,
+                new GenerationFileContent(null, null, null, new long[]{1, 2, 3}, new long[]{4, 5, 6})
+        );
+        ArgumentCaptor<GenerationFileEntity> savedEntity = ArgumentCaptor.forClass(GenerationFileEntity.class);
+
+        when(generationStore.save(savedEntity.capture())).thenReturn(new GenerationFileEntity(FILE_ID, "arrays.json", data, null, null, 21L, null));
+
+        underTest.uploadGenerationFile(fileToUpload);
+
+        assertNull(savedEntity.getValue().getValueX());
+        assertNull(savedEntity.getValue().getValueY());
+        assertEquals(21L, savedEntity.getValue().getResult());
+        assertEquals(64, savedEntity.getValue().getContentHash().length());
+    }
+
+    @Test
+    void uploadGenerationFileShouldRejectOperandArraysWhoseSumsOverflow() {
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile(
+                "arrays.json",
+                dummyByteArray,
+                new GenerationFileContent(null, null, null, new long[]{1, Long.MAX_VALUE}, new long[]{4, 1})
+        );
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.uploadGenerationFile(fileToUpload));
+        verify(generationStore, never()).save(any());
+    }
+
+    @Test
+    void shouldRetrieveGenerationFileWithOperandArrays() throws IOException {
+        byte[] data = "{\"valueX\": [1, 2, 3], \"valueY\": [4, 5, 6]}".getBytes(StandardCharsets.UTF_8);
+        when(generationStore.findResultViewById(FILE_ID))
+                .thenReturn(Optional.of(new GenerationFileResultView(FILE_ID, "arrays.json", null, null, 21L, null)));
+        when(generationStore.transferDataById(eq(FILE_ID), any())).thenAnswer(invocation -> {
+            invocation.getArgument(1, ByteArrayOutputStream.class).write(data);
+            return true;
+        });
+
+        GetGenerationFileResponse actual = underTest.getGenerationFile(FILE_ID);
+
+        assertEquals("{\"valueX\":[1,2,3],\"valueY\":[4,5,6],\"result\":[5,7,9],\"total\":21}",
+                actual.getResource().getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(generationFileCodec.contentHash(actual.getResource().getContentAsByteArray()), actual.getContentHash());
+    }
+
+    @Test
+    void shouldRetrieveGenerationFile() throws IOException {
+        GenerationFileResultView generationFileResultView = new GenerationFileResultView(FILE_ID, "generation_file", 8L, 5L, 13L, null);
 
         GenerationFileContentResult expectedGenerationFileContentResult = getExpectedGenerationFileResultFromResource();
 
-        when(generationDao.findById(FILE_ID)).thenReturn(Optional.of(getGenerationFileEntity));
+        when(generationStore.findResultViewById(FILE_ID)).thenReturn(Optional.of(generationFileResultView));
 
         GetGenerationFileResponse actual = underTest.getGenerationFile(FILE_ID);
 
         GenerationFileContentResult actualGenerationFileContentResult = getActualGenerationFileResult(actual);
 
-        verify(generationDao).findById(FILE_ID);
+        verify(generationStore).findResultViewById(FILE_ID);
         assertEquals(expectedGenerationFileContentResult, actualGenerationFileContentResult);
         assertEquals(FILE_ID, actual.getId());
-        assertEquals(getGenerationFileEntity.getName(), actual.getName());
+        assertEquals(generationFileResultView.getName(), actual.getName());
+        assertEquals(generationFileCodec.contentHash(actual.getResource().getContentAsByteArray()), actual.getContentHash());
+    }
+
+    @Test
+    void shouldWriteGenerationFileContentFromTheDatabaseStream() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        when(generationStore.transferDataById(FILE_ID, outputStream)).thenReturn(true);
+
+        boolean actual = underTest.writeGenerationFileContent(FILE_ID, outputStream);
+
+        assertTrue(actual);
+        verify(generationStore).transferDataById(FILE_ID, outputStream);
     }
 
     @Test
-    void shouldThrowWrongContentFileFormatExceptionWhenRetrievedGenerationFileIsWrong() throws IOException {
-        Path fileToUploadPath = Path.of("src/test/java/resources/wrong_format.json");
-        GenerationFileEntity getGenerationFileEntity = new GenerationFileEntity(FILE_ID, "generation_file", Files.readAllBytes(fileToUploadPath));
+    void writeGenerationFileContentShouldRethrowTheCauseOfAFailedCopy() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        IOException cause = new IOException("Broken pipe");
+        when(generationStore.transferDataById(FILE_ID, outputStream)).thenThrow(new UncheckedIOException(cause));
+
+        IOException exception = assertThrows(IOException.class, () -> underTest.writeGenerationFileContent(FILE_ID, outputStream));
 
-        when(generationDao.findById(FILE_ID)).thenReturn(Optional.of(getGenerationFileEntity));
+        assertSame(cause, exception);
+    }
+
+    @Test
+    void getGenerationFileNameShouldThrowFileNotFoundExceptionWhenFileIsNotPresent() {
+        when(generationStore.findNameById(FILE_ID)).thenReturn(Optional.empty());
+
+        GenerationFileNotFoundException exception = assertThrows(GenerationFileNotFoundException.class, () -> underTest.getGenerationFileName(FILE_ID));
+
+        assertEquals("File with id: " + FILE_ID + " not found", exception.getMessage());
+    }
+
+    @Test
+    void shouldRetrieveGenerationFileContentHashWithoutRenderingIt() {
+        when(generationStore.findContentHashById(FILE_ID)).thenReturn(Optional.of("hash"));
+
+        Optional<String> actual = underTest.getGenerationFileContentHash(FILE_ID);
+
+        assertEquals(Optional.of("hash"), actual);
+        verify(generationStore, never()).findResultViewById(any());
+    }
+
+    @Test
+    void shouldServeRetrievedGenerationFileFromCache() throws IOException {
+        GenerationFileResultView generationFileResultView = new GenerationFileResultView(FILE_ID, "generation_file", 8L, 5L, 13L, null);
+
+        when(generationStore.findResultViewById(FILE_ID)).thenReturn(Optional.of(generationFileResultView));
+
+        GetGenerationFileResponse first = underTest.getGenerationFile(FILE_ID);
+        GetGenerationFileResponse second = underTest.getGenerationFile(FILE_ID);
+
+        verify(generationStore, times(1)).findResultViewById(FILE_ID);
+        assertSame(first, second);
+        assertEquals(1, underTest.getResultCacheStats().getHits());
+        assertEquals(1, underTest.getResultCacheStats().getMisses());
+    }
+
+    @Test
+    void shouldCompressALargeResultOnceWhileItIsCached() throws IOException {
+        byte[] result = ("{\"result\": \"" + "1".repeat(1_000) + "\"}").getBytes(StandardCharsets.UTF_8);
+        GetGenerationFileResponse getGenerationFileResponse = new GetGenerationFileResponse(FILE_ID, "generation_file", new ByteArrayResource(result), "hash");
+
+        Resource first = underTest.getGzipResource(getGenerationFileResponse).orElseThrow();
+        Resource second = underTest.getGzipResource(getGenerationFileResponse).orElseThrow();
+
+        assertSame(first, second);
+        try (InputStream inputStream = new GZIPInputStream(first.getInputStream())) {
+            assertArrayEquals(result, inputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void shouldNotCompressASmallResult() throws IOException {
+        GetGenerationFileResponse getGenerationFileResponse = new GetGenerationFileResponse(FILE_ID, "generation_file", new ByteArrayResource(dummyByteArray), "hash");
+
+        assertEquals(Optional.empty(), underTest.getGzipResource(getGenerationFileResponse));
+        assertNull(getGenerationFileResponse.getGzipResource());
+    }
+
+    @Test
+    void shouldInvalidateCachedGenerationFileWhenDeleted() throws IOException {
+        GenerationFileResultView generationFileResultView = new GenerationFileResultView(FILE_ID, "generation_file", 8L, 5L, 13L, null);
+
+        when(generationStore.findResultViewById(FILE_ID)).thenReturn(Optional.of(generationFileResultView));
+        when(generationStore.deleteFileById(FILE_ID)).thenReturn(Optional.of(new GenerationFileResultChange(13L, null)));
+
+        underTest.getGenerationFile(FILE_ID);
+        underTest.deleteGenerationFile(FILE_ID);
+
+        when(generationStore.findResultViewById(FILE_ID)).thenReturn(Optional.empty());
+
+        assertThrows(GenerationFileNotFoundException.class, () -> underTest.getGenerationFile(FILE_ID));
+    }
+
+    @Test
+    void shouldInvalidateCachedGenerationFileAgainOnceTheWriteIsCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            when(generationStore.deleteFileById(FILE_ID)).thenReturn(Optional.of(new GenerationFileResultChange(13L, null)));
+
+            underTest.deleteGenerationFile(FILE_ID);
+            generationResultCache.put(FILE_ID, new GetGenerationFileResponse(FILE_ID, "generation_file",
+                    new ByteArrayResource(dummyByteArray), "stale"), generationResultCache.stamp(FILE_ID));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+            assertEquals(Optional.empty(), generationResultCache.get(FILE_ID));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldThrowWrongContentFileFormatExceptionWhenRetrievedGenerationFileIsNotMaterialized() {
+        GenerationFileResultView generationFileResultView = new GenerationFileResultView(FILE_ID, "generation_file", null, null, null, null);
+
+        when(generationStore.findResultViewById(FILE_ID)).thenReturn(Optional.of(generationFileResultView));
 
         WrongContentFileFormatException exception = assertThrows(
                 WrongContentFileFormatException.class,
@@ -111,7 +529,7 @@ class GenerationServiceImplTest {
 
     @Test
     void getGenerationFileshouldThrowFileNotFoundExceptionWhenFileIsNotPresent() {
-        when(generationDao.findById(FILE_ID)).thenReturn(Optional.empty());
+        when(generationStore.findResultViewById(FILE_ID)).thenReturn(Optional.empty());
 
         GenerationFileNotFoundException exception = assertThrows(GenerationFileNotFoundException.class, () -> underTest.getGenerationFile(FILE_ID));
 
@@ -122,42 +540,104 @@ class GenerationServiceImplTest {
     void postFileShouldThrowIllegalArgumentExceptionIfTheFileIdIsNull() {
         var exception = assertThrows(IllegalArgumentException.class, () -> underTest.getGenerationFile(null));
         assertEquals("The file id cannot be null", exception.getMessage());
-        verify(generationDao, never()).findById(any());
+        verify(generationStore, never()).findResultViewById(any());
+    }
+
+    @Test
+    void shouldWriteGenerationFilesReportingMissingOnesInline() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        when(generationStore.streamResultViewsByIdIn(List.of(3L, FILE_ID, 2L, 4L))).thenReturn(Stream.of(
+                new GenerationFileResultView(FILE_ID, "generation_file", 8L, 5L, 13L, null),
+                new GenerationFileResultView(3L, "legacy_file", null, null, null, null),
+                new GenerationFileResultView(4L, "other_file", 9L, 6L, 15L, null)
+        ));
+
+        underTest.writeGenerationFiles(List.of(3L, FILE_ID, 2L, 4L), outputStream);
+
+        assertEquals(
+                "[{\"id\":1,\"name\":\"generation_file\",\"valueX\":8,\"valueY\":5,\"result\":13}," +
+                        "{\"id\":2,\"error\":\"File with id: 2 not found\"}," +
+                        "{\"id\":3,\"error\":\"Error deserializing the file\"}," +
+                        "{\"id\":4,\"name\":\"other_file\",\"valueX\":9,\"valueY\":6,\"result\":15}]",
+                outputStream.toString()
+        );
+    }
+
+    @Test
+    void shouldWriteGenerationFilesOfARange() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        when(generationStore.streamResultViewsByIdBetween(FILE_ID, 2L)).thenReturn(Stream.of(
+                new GenerationFileResultView(2L, "generation_file", 8L, 5L, 13L, null)
+        ));
+
+        underTest.writeGenerationFiles(FILE_ID, 2L, outputStream);
+
+        assertEquals(
+                "[{\"id\":1,\"error\":\"File with id: 1 not found\"}," +
+                        "{\"id\":2,\"name\":\"generation_file\",\"valueX\":8,\"valueY\":5,\"result\":13}]",
+                outputStream.toString()
+        );
+    }
+
+    @Test
+    void shouldListGenerationFilesWithTheIdOfTheNextPage() {
+        when(generationStore.findSummaryViewsAfter(0L, null, 3)).thenReturn(List.of(
+                new GenerationFileSummaryView(1L, "first.json", 26, 13L),
+                new GenerationFileSummaryView(2L, "second.json", 26, 15L),
+                new GenerationFileSummaryView(5L, "third.json", 26, 17L)
+        ));
+
+        GenerationListResponse actual = underTest.listGenerationFiles(0L, null, 2);
+
+        assertEquals(List.of(1L, 2L), actual.getFiles().stream().map(GenerationFileSummaryView::getId).toList());
+        assertEquals(2L, actual.getNextAfter());
+    }
+
+    @Test
+    void shouldListTheLastPageOfGenerationFilesWithoutNextPage() {
+        when(generationStore.findSummaryViewsAfter(2L, "third.json", 3))
+                .thenReturn(List.of(new GenerationFileSummaryView(5L, "third.json", 26, 17L)));
+
+        GenerationListResponse actual = underTest.listGenerationFiles(2L, "third.json", 2);
+
+        assertEquals(List.of(new GenerationFileSummaryView(5L, "third.json", 26, 17L)), actual.getFiles());
+        assertNull(actual.getNextAfter());
     }
 
     @Test
     void shouldUpdateGenerationFile() throws IOException {
         Path fileToUploadPath = Path.of("src/test/java/resources/put_test.json");
-        MockMultipartFile fileToUpload = new MockMultipartFile(
-                "file",
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile(
                 "test.json",
-                "application/json",
-                Files.readAllBytes(fileToUploadPath)
+                Files.readAllBytes(fileToUploadPath),
+                new GenerationFileContent(9L, 6L)
         );
 
-        GenerationFileEntity generationFileEntity = new GenerationFileEntity(FILE_ID, "generation_file", dummyByteArray);
-        GenerationFileResponse generationFileResponse = new GenerationFileResponse(FILE_ID, "generation_file", dummyByteArray);
+        GenerationFileResponse generationFileResponse = new GenerationFileResponse(FILE_ID, "test.json", fileToUpload.getData());
+
+        String contentHash = generationFileCodec.contentHash(9L, 6L, 15L);
 
-        when(generationDao.findById(FILE_ID)).thenReturn(Optional.of(generationFileEntity));
-        when(generationDao.save(any())).thenReturn(generationFileEntity);
+        when(generationStore.updateById(FILE_ID, "test.json", fileToUpload.getData(), 9L, 6L, null, 15L, contentHash))
+                .thenReturn(Optional.of(new GenerationFileResultChange(13L, 15L)));
 
         GenerationFileResponse actual = underTest.updateGenerationFile(FILE_ID, fileToUpload);
 
-        verify(generationDao).findById(FILE_ID);
-        verify(generationDao).save(any());
+        verify(generationStore).updateById(FILE_ID, "test.json", fileToUpload.getData(), 9L, 6L, null, 15L, contentHash);
+        verify(generationStore, never()).save(any());
         assertEquals(generationFileResponse, actual);
     }
 
     @Test
     void updateGenerationFileShouldThrowFileNotFoundExceptionWhenFileIsNotPresent() throws IOException {
         Path fileToUploadPath = Path.of("src/test/java/resources/put_test.json");
-        MockMultipartFile fileToUpload = new MockMultipartFile(
-                "file",
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile(
                 "test.json",
-                "application/json",
-                Files.readAllBytes(fileToUploadPath)
+                Files.readAllBytes(fileToUploadPath),
+                new GenerationFileContent(9L, 6L)
         );
-        when(generationDao.findById(FILE_ID)).thenReturn(Optional.empty());
+        when(generationStore.updateById(eq(FILE_ID), any(), any(), any(), any(), any(), any(), any())).thenReturn(Optional.empty());
 
         GenerationFileNotFoundException exception = assertThrows(
                 GenerationFileNotFoundException.class,
@@ -165,45 +645,130 @@ class GenerationServiceImplTest {
         );
 
         assertEquals("File with id: " + FILE_ID + " not found", exception.getMessage());
-        verify(generationDao, never()).delete(any());
+    }
+
+    @Test
+    void shouldUpdateGenerationFileIfItsContentHashIsExpected() {
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile("test.json", dummyByteArray, new GenerationFileContent(9L, 6L));
+        String contentHash = generationFileCodec.contentHash(9L, 6L, 15L);
+        List<String> expectedContentHashes = List.of(generationFileCodec.contentHash(8L, 5L, 13L));
+
+        when(generationStore.updateByIdAndContentHashIn(FILE_ID, "test.json", dummyByteArray, 9L, 6L, null, 15L, contentHash, expectedContentHashes))
+                .thenReturn(Optional.of(new GenerationFileResultChange(13L, 15L)));
+
+        underTest.updateGenerationFile(FILE_ID, fileToUpload, expectedContentHashes);
+
+        verify(generationStore).updateByIdAndContentHashIn(FILE_ID, "test.json", dummyByteArray, 9L, 6L, null, 15L, contentHash, expectedContentHashes);
+        verify(generationStore, never()).updateById(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void updateGenerationFileShouldThrowPreconditionFailedExceptionWhenItsContentHashIsNotExpected() {
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile("test.json", dummyByteArray, new GenerationFileContent(9L, 6L));
+
+        when(generationStore.updateByIdAndContentHashIn(eq(FILE_ID), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(Optional.empty());
+        when(generationStore.existsById(FILE_ID)).thenReturn(true);
+
+        PreconditionFailedException exception = assertThrows(
+                PreconditionFailedException.class,
+                () -> underTest.updateGenerationFile(FILE_ID, fileToUpload, List.of("stale"))
+        );
+
+        assertEquals("File with id: " + FILE_ID + " has been modified", exception.getMessage());
     }
 
     @Test
     void updateFileShouldThrowIllegalArgumentExceptionIfTheFileIdIsNull() throws IOException {
         Path fileToUploadPath = Path.of("src/test/java/resources/put_test.json");
-        MockMultipartFile fileToUpload = new MockMultipartFile(
-                "file",
+        ValidatedGenerationFile fileToUpload = new ValidatedGenerationFile(
                 "test.json",
-                "application/json",
-                Files.readAllBytes(fileToUploadPath)
+                Files.readAllBytes(fileToUploadPath),
+                new GenerationFileContent(9L, 6L)
         );
         var exception = assertThrows(IllegalArgumentException.class, () -> underTest.updateGenerationFile(null, fileToUpload));
         assertEquals("The file id cannot be null", exception.getMessage());
-        verify(generationDao, never()).findById(any());
+        verify(generationStore, never()).updateById(any(), any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
     void updateFileShouldThrowIllegalArgumentExceptionIfTheFileIsNull() {
         var exception = assertThrows(IllegalArgumentException.class, () -> underTest.updateGenerationFile(FILE_ID, null));
         assertEquals("The file cannot be null", exception.getMessage());
-        verify(generationDao, never()).findById(any());
+        verify(generationStore, never()).updateById(any(), any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
-    void shouldDeleteGenerationFile() {
-        GenerationFileEntity generationFileEntity = new GenerationFileEntity();
-        when(generationDao.findById(FILE_ID)).thenReturn(Optional.of(generationFileEntity));
+    @SuppressWarnings("unchecked")
+    void shouldPatchGenerationFile() {
+        ArgumentCaptor<UnaryOperator<GenerationFileResultView>> patch = ArgumentCaptor.forClass(UnaryOperator.class);
+        generationResultAggregates.add(13L);
+        GenerationFileResultView current = new GenerationFileResultView(FILE_ID, "generation_file", 8L, 5L, 13L, "hash");
+        when(generationStore.updateValuesById(eq(FILE_ID), any())).thenAnswer(invocation -> applyPatch(invocation, current));
+
+        underTest.patchGenerationFile(FILE_ID, new GenerationFileContent(null, 7L));
+
+        verify(generationStore).updateValuesById(eq(FILE_ID), patch.capture());
+        GenerationFileResultView patched = patch.getValue().apply(current);
+        assertEquals(8L, patched.getValueX());
+        assertEquals(7L, patched.getValueY());
+        assertEquals(15L, patched.getResult());
+        assertEquals(generationFileCodec.contentHash(8L, 7L, 15L), patched.getContentHash());
+        assertEquals(new GenerationResultStats(1L, 15L, 15L, 15L), underTest.getResultStats());
+        verify(generationStore, never()).findResultViewById(any());
+        verify(generationStore, never()).save(any());
+        verify(generationStore, never()).updateById(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void patchGenerationFileShouldThrowFileNotFoundExceptionWhenFileIsNotPresent() {
+        when(generationStore.updateValuesById(eq(FILE_ID), any())).thenReturn(Optional.empty());
+        when(generationStore.existsById(FILE_ID)).thenReturn(false);
+
+        GenerationFileNotFoundException exception = assertThrows(
+                GenerationFileNotFoundException.class,
+                () -> underTest.patchGenerationFile(FILE_ID, new GenerationFileContent(9L, null))
+        );
+
+        assertEquals("File with id: " + FILE_ID + " not found", exception.getMessage());
+    }
 
-        doNothing().when(generationDao).delete(generationFileEntity);
+    @Test
+    void patchGenerationFileShouldThrowWrongContentFileFormatExceptionWhenFileIsNotMaterialized() {
+        when(generationStore.updateValuesById(eq(FILE_ID), any())).thenReturn(Optional.empty());
+        when(generationStore.existsById(FILE_ID)).thenReturn(true);
+
+        WrongContentFileFormatException exception = assertThrows(
+                WrongContentFileFormatException.class,
+                () -> underTest.patchGenerationFile(FILE_ID, new GenerationFileContent(9L, null))
+        );
+
+        assertTrue(exception.getMessage().startsWith("File with id: " + FILE_ID + " cannot be patched"));
+    }
+
+    @Test
+    void patchGenerationFileShouldRejectAResultThatOverflows() {
+        GenerationFileResultView current = new GenerationFileResultView(FILE_ID, "generation_file", 8L, 5L, 13L, "hash");
+        when(generationStore.updateValuesById(eq(FILE_ID), any())).thenAnswer(invocation -> applyPatch(invocation, current));
+
+        assertThrows(
+                WrongContentFileFormatException.class,
+                () -> underTest.patchGenerationFile(FILE_ID, new GenerationFileContent(Long.MAX_VALUE, null))
+        );
+        assertEquals(0, underTest.getResultStats().getCount());
+    }
+
+    @Test
+    void shouldDeleteGenerationFile() {
+        when(generationStore.deleteFileById(FILE_ID)).thenReturn(Optional.of(new GenerationFileResultChange(13L, null)));
 
         underTest.deleteGenerationFile(FILE_ID);
 
-        verify(generationDao).delete(generationFileEntity);
+        verify(generationStore).deleteFileById(FILE_ID);
     }
 
     @Test
     void shouldThrowFileNotFoundExceptionWhenDeletingGenerationFileIfFileNotFound() {
-        when(generationDao.findById(FILE_ID)).thenReturn(Optional.empty());
+        when(generationStore.deleteFileById(FILE_ID)).thenReturn(Optional.empty());
 
         GenerationFileNotFoundException exception = assertThrows(
                 GenerationFileNotFoundException.class,
@@ -211,7 +776,42 @@ class GenerationServiceImplTest {
         );
 
         assertEquals("File with id: " + FILE_ID + " not found", exception.getMessage());
-        verify(generationDao, never()).delete(new GenerationFileEntity());
+    }
+
+    @Test
+    void shouldBackfillFilesWithoutMaterializedResult() throws IOException {
+        Path filePath = Path.of("src/test/java/resources/test.json");
+        GenerationFileEntity generationFileEntity = new GenerationFileEntity(FILE_ID, "generation_file", Files.readAllBytes(filePath), null, null, null, null);
+        ArgumentCaptor<GenerationFileEntity> savedEntity = ArgumentCaptor.forClass(GenerationFileEntity.class);
+
+        when(generationStore.findWithoutContentHashAfter(0L, 100)).thenReturn(List.of(generationFileEntity));
+        when(generationStore.findWithoutContentHashAfter(FILE_ID, 100)).thenReturn(List.of());
+
+        int updated = underTest.backfillMaterializedResults();
+
+        verify(generationStore).save(savedEntity.capture());
+        assertEquals(1, updated);
+        assertEquals(FILE_ID, savedEntity.getValue().getId());
+        assertEquals(13L, savedEntity.getValue().getResult());
+        assertEquals(generationFileCodec.contentHash(8L, 5L, 13L), savedEntity.getValue().getContentHash());
+    }
+
+    /**
+     * Run a write in a transaction that is left uncommitted, returning its synchronizations to commit it later.
+     */
+    private static List<TransactionSynchronization> inTransaction(Runnable write) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            write.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Optional<GenerationFileResultChange> applyPatch(InvocationOnMock invocation, GenerationFileResultView current) {
+        UnaryOperator<GenerationFileResultView> patch = invocation.getArgument(1);
+        return Optional.of(new GenerationFileResultChange(current.getResult(), patch.apply(current).getResult()));
     }
 
     private GenerationFileContentResult getActualGenerationFileResult(GetGenerationFileResponse actual) throws IOException {
@@ -0,0 +1,83 @@
+package com.example.demo.service.aggregate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GenerationResultAggregatesTest {
+
+    private GenerationResultAggregates underTest;
+
+    @BeforeEach
+    public void beforeTest() {
+        underTest = new GenerationResultAggregates();
+    }
+
+    @Test
+    void shouldHaveNoStatsWithoutResults() {
+        assertEquals(new GenerationResultStats(0L, 0L, null, null), underTest.stats());
+    }
+
+    @Test
+    void shouldAggregateTheResults() {
+        underTest.add(13L);
+        underTest.add(-4L);
+        underTest.add(13L);
+        underTest.add(null);
+
+        assertEquals(new GenerationResultStats(3L, 22L, -4L, 13L), underTest.stats());
+    }
+
+    @Test
+    void shouldReplaceThePreviousResultOfAFile() {
+        underTest.add(13L);
+        underTest.replace(13L, 7L);
+
+        assertEquals(new GenerationResultStats(1L, 7L, 7L, 7L), underTest.stats());
+    }
+
+    @Test
+    void shouldStopCountingAFileWithoutResult() {
+        underTest.add(13L);
+        underTest.add(7L);
+        underTest.replace(13L, null);
+
+        assertEquals(new GenerationResultStats(1L, 7L, 7L, 7L), underTest.stats());
+    }
+
+    @Test
+    void shouldKeepTheMinimumAndMaximumWhenRemovingOneOfTheirOccurrences() {
+        underTest.add(13L);
+        underTest.add(13L);
+        underTest.add(2L);
+        underTest.remove(13L);
+
+        assertEquals(new GenerationResultStats(2L, 15L, 2L, 13L), underTest.stats());
+
+        underTest.remove(13L);
+
+        assertEquals(new GenerationResultStats(1L, 2L, 2L, 2L), underTest.stats());
+    }
+
+    @Test
+    void shouldIgnoreTheRemovalOfAFileWithoutResult() {
+        underTest.add(13L);
+        underTest.remove(null);
+
+        assertEquals(new GenerationResultStats(1L, 13L, 13L, 13L), underTest.stats());
+    }
+
+    @Test
+    void shouldApplyTheWritesOfAFileInAnyOrder() {
+        underTest.add(13L);
+        underTest.add(2L);
+        underTest.remove(20L);
+
+        assertEquals(new GenerationResultStats(1L, -5L, 2L, 13L), underTest.stats());
+
+        underTest.replace(13L, 20L);
+
+        assertEquals(new GenerationResultStats(1L, 2L, 2L, 2L), underTest.stats());
+    }
+}
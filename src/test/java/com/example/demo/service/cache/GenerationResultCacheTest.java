@@ -0,0 +1,117 @@
+package com.example.demo.service.cache;
+
+import com.example.demo.service.domain.GetGenerationFileResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationResultCacheTest {
+
+    private GenerationResultCache underTest;
+
+    private MutableClock clock;
+
+    @BeforeEach
+    public void beforeTest() {
+        clock = new MutableClock();
+        underTest = new GenerationResultCache(2, Duration.ofSeconds(10), clock);
+    }
+
+    @Test
+    void shouldReturnCachedResult() {
+        GetGenerationFileResponse response = response(1L);
+
+        underTest.put(1L, response, underTest.stamp(1L));
+
+        assertEquals(response, underTest.get(1L).orElseThrow());
+        assertEquals(new GenerationResultCacheStats(1, 0, 0, 1), underTest.stats());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedResultWhenFull() {
+        underTest.put(1L, response(1L), underTest.stamp(1L));
+        underTest.put(2L, response(2L), underTest.stamp(2L));
+        underTest.get(1L);
+        underTest.put(3L, response(3L), underTest.stamp(3L));
+
+        assertTrue(underTest.get(2L).isEmpty());
+        assertTrue(underTest.get(1L).isPresent());
+        assertEquals(1, underTest.stats().getEvictions());
+    }
+
+    @Test
+    void shouldDiscardExpiredResult() {
+        underTest.put(1L, response(1L), underTest.stamp(1L));
+
+        clock.advance(Duration.ofSeconds(10));
+
+        assertTrue(underTest.get(1L).isEmpty());
+        assertEquals(new GenerationResultCacheStats(0, 1, 1, 0), underTest.stats());
+    }
+
+    @Test
+    void shouldNotCacheResultReadBeforeAnInvalidation() {
+        long stamp = underTest.stamp(1L);
+        underTest.invalidate(1L);
+
+        underTest.put(1L, response(1L), stamp);
+
+        assertTrue(underTest.get(1L).isEmpty());
+    }
+
+    @Test
+    void shouldCacheResultReadBeforeAnInvalidationOfAnotherStripe() {
+        long stamp = underTest.stamp(1L);
+        underTest.invalidate(2L);
+
+        underTest.put(1L, response(1L), stamp);
+
+        assertTrue(underTest.get(1L).isPresent());
+    }
+
+    @Test
+    void shouldRemoveInvalidatedResult() {
+        underTest.put(1L, response(1L), underTest.stamp(1L));
+
+        underTest.invalidate(1L);
+
+        assertTrue(underTest.get(1L).isEmpty());
+    }
+
+    private static GetGenerationFileResponse response(Long id) {
+        return new GetGenerationFileResponse(id, "generation_file", new ByteArrayResource(new byte[1]), "hash");
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.EPOCH;
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
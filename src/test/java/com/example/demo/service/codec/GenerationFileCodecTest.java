@@ -0,0 +1,208 @@
+package com.example.demo.service.codec;
+
+import com.example.demo.dao.domain.GenerationFileContent;
+import com.example.demo.dao.domain.GenerationFileContentResult;
+import com.example.demo.error.WrongContentFileFormatException;
+import com.example.demo.service.compute.OperandSums;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GenerationFileCodecTest {
+
+    private GenerationFileCodec underTest;
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void beforeTest() {
+        objectMapper = new ObjectMapper();
+        underTest = new GenerationFileCodec(objectMapper);
+    }
+
+    @Test
+    void shouldReadContent() throws IOException {
+        GenerationFileContent actual = underTest.readContent(Files.readAllBytes(Path.of("src/test/java/resources/test.json")));
+
+        assertEquals(new GenerationFileContent(8L, 5L), actual);
+    }
+
+    @Test
+    void shouldRejectUnknownProperties() throws IOException {
+        byte[] data = Files.readAllBytes(Path.of("src/test/java/resources/wrong_format.json"));
+
+        var exception = assertThrows(WrongContentFileFormatException.class, () -> underTest.readContent(data));
+        assertEquals("Error deserializing the file", exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectOperandsThatAreNotIntegers() {
+        byte[] data = "{\"valueX\": \"8\", \"valueY\": 5}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readContent(data));
+    }
+
+    @Test
+    void shouldRejectOperandsOutOfRange() {
+        byte[] data = "{\"valueX\": 92233720368547758070, \"valueY\": 5}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readContent(data));
+    }
+
+    @Test
+    void shouldReadOperandArrays() throws IOException {
+        byte[] data = "{\"valueX\": [1, -2, 3], \"valueY\": [4, 5, 6]}".getBytes();
+
+        GenerationFileContent actual = underTest.readContent(data);
+
+        assertArrayEquals(new long[]{1, -2, 3}, actual.getValuesX());
+        assertArrayEquals(new long[]{4, 5, 6}, actual.getValuesY());
+    }
+
+    @Test
+    void shouldRejectOperandArraysOfDifferentLengths() {
+        byte[] data = "{\"valueX\": [1, 2, 3], \"valueY\": [4, 5]}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readContent(data));
+    }
+
+    @Test
+    void shouldRejectAnOperandArrayWithASingleOperand() {
+        byte[] data = "{\"valueX\": [1, 2], \"valueY\": 5}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readContent(data));
+    }
+
+    @Test
+    void shouldRejectOperandArraysThatAreNotIntegers() {
+        byte[] data = "{\"valueX\": [1, \"2\"], \"valueY\": [4, 5]}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readContent(data));
+    }
+
+    @Test
+    void shouldReadDeclaredOperation() throws IOException {
+        byte[] data = "{\"valueX\": 8, \"valueY\": 5, \"operation\": \"2 * x + y\"}".getBytes();
+
+        GenerationFileContent actual = underTest.readContent(data);
+
+        assertEquals(new GenerationFileContent(8L, 5L, "2 * x + y"), actual);
+    }
+
+    @Test
+    void shouldRejectOperationThatIsNotAString() {
+        byte[] data = "{\"valueX\": 8, \"valueY\": 5, \"operation\": 1}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readContent(data));
+    }
+
+    @Test
+    void shouldRejectOperationOfOperandArrays() {
+        byte[] data = "{\"valueX\": [1, 2], \"valueY\": [4, 5], \"operation\": \"product\"}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readContent(data));
+    }
+
+    @Test
+    void shouldRejectPartialContentWithOperation() {
+        byte[] data = "{\"valueY\": 7, \"operation\": \"product\"}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readPartialContent(new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    void shouldRejectPartialContentWithOperandArrays() {
+        byte[] data = "{\"valueY\": [7]}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readPartialContent(new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    void shouldReadPartialContent() throws IOException {
+        byte[] data = "{\"valueY\": 7}".getBytes();
+
+        GenerationFileContent actual = underTest.readPartialContent(new ByteArrayInputStream(data));
+
+        assertEquals(new GenerationFileContent(null, 7L), actual);
+    }
+
+    @Test
+    void shouldRejectPartialContentWithoutOperands() {
+        byte[] data = "{}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readPartialContent(new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    void shouldReadContentsOfAnArray() throws IOException {
+        byte[] data = "[{\"valueX\": 8, \"valueY\": 5}, {\"valueY\": 6, \"valueX\": 9}]".getBytes();
+
+        List<GenerationFileContent> actual = underTest.readContents(new ByteArrayInputStream(data));
+
+        assertEquals(List.of(new GenerationFileContent(8L, 5L), new GenerationFileContent(9L, 6L)), actual);
+    }
+
+    @Test
+    void shouldRejectContentsThatAreNotAnArray() {
+        byte[] data = "{\"valueX\": 8, \"valueY\": 5}".getBytes();
+
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.readContents(new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    void shouldWriteContent() throws IOException {
+        assertEquals("{\"valueX\":8,\"valueY\":5}", new String(underTest.writeContent(8L, 5L)));
+    }
+
+    @Test
+    void shouldWriteContentWithOperandArrays() throws IOException {
+        GenerationFileContent generationFileContent = new GenerationFileContent(null, null, null, new long[]{1, 2}, new long[]{4, 5});
+
+        assertEquals("{\"valueX\":[1,2],\"valueY\":[4,5]}", new String(underTest.writeContent(generationFileContent)));
+    }
+
+    @Test
+    void shouldWriteResultWithDeclaredOperation() throws IOException {
+        byte[] actual = underTest.writeResult(8L, 5L, "product", 40L);
+
+        assertEquals("{\"valueX\":8,\"valueY\":5,\"operation\":\"product\",\"result\":40}", new String(actual));
+    }
+
+    @Test
+    void shouldWriteResult() throws IOException {
+        byte[] actual = underTest.writeResult(8L, 5L, 13L);
+
+        assertEquals(
+                objectMapper.readValue(Files.readAllBytes(Path.of("src/test/java/resources/result.json")), GenerationFileContentResult.class),
+                objectMapper.readValue(actual, GenerationFileContentResult.class)
+        );
+    }
+
+    @Test
+    void shouldWriteResultIntoStream() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        underTest.writeResult(8L, 5L, 13L, outputStream);
+        outputStream.write('\n');
+
+        assertEquals("{\"valueX\":8,\"valueY\":5,\"result\":13}\n", outputStream.toString());
+    }
+
+    @Test
+    void shouldWriteResultOfOperandArrays() throws IOException {
+        byte[] actual = underTest.writeResult(new long[]{1, 2}, new long[]{4, 5}, new OperandSums(new long[]{5, 7}, 12L));
+
+        assertEquals("{\"valueX\":[1,2],\"valueY\":[4,5],\"result\":[5,7],\"total\":12}", new String(actual));
+    }
+}
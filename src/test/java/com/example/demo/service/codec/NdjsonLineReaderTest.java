@@ -0,0 +1,45 @@
+package com.example.demo.service.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NdjsonLineReaderTest {
+
+    @Test
+    void shouldReadEveryLineWithItsNumber() throws IOException {
+        NdjsonLineReader underTest = new NdjsonLineReader(new ByteArrayInputStream("first\r\n\nthird".getBytes()), 16);
+
+        assertTrue(underTest.nextLine());
+        assertEquals("first", currentLine(underTest));
+        assertEquals(1, underTest.getLineNumber());
+        assertTrue(underTest.nextLine());
+        assertTrue(underTest.isLineBlank());
+        assertTrue(underTest.nextLine());
+        assertEquals("third", currentLine(underTest));
+        assertEquals(3, underTest.getLineNumber());
+        assertFalse(underTest.nextLine());
+    }
+
+    @Test
+    void shouldSkipTheContentOfLinesThatAreTooLong() throws IOException {
+        NdjsonLineReader underTest = new NdjsonLineReader(new ByteArrayInputStream("0123456789\nshort\n".getBytes()), 8);
+
+        assertTrue(underTest.nextLine());
+        assertTrue(underTest.isLineTooLong());
+        assertTrue(underTest.nextLine());
+        assertFalse(underTest.isLineTooLong());
+        assertEquals("short", currentLine(underTest));
+        assertFalse(underTest.nextLine());
+    }
+
+    private static String currentLine(NdjsonLineReader lineReader) {
+        return new String(Arrays.copyOf(lineReader.getLine(), lineReader.getLineLength()));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.service.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayloadCompressorTest {
+
+    private final PayloadCompressor underTest = new PayloadCompressor(true, 1_024, -1);
+
+    private final byte[] data = ("{\"valuesX\": [" + "8, ".repeat(1_000) + "8], \"valuesY\": [" + "5, ".repeat(1_000) + "5]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void shouldOnlyCompressFromTheThreshold() {
+        assertFalse(underTest.isCompressible(1_023));
+        assertTrue(underTest.isCompressible(1_024));
+        assertFalse(new PayloadCompressor(false, 1_024, -1).isCompressible(1_024));
+    }
+
+    @Test
+    void shouldInflateWhatItDeflates() throws IOException {
+        byte[] compressed = underTest.deflate(data);
+
+        assertTrue(compressed.length < data.length);
+        assertArrayEquals(data, underTest.inflate(compressed));
+        try (InputStream inputStream = underTest.inflating(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(data, inputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void shouldCompressWithGzip() throws IOException {
+        byte[] compressed = new PayloadCompressor(true, 1_024, 9).gzip(data);
+
+        assertTrue(compressed.length < data.length);
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(data, inputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new PayloadCompressor(true, -1, -1));
+        assertThrows(IllegalArgumentException.class, () -> new PayloadCompressor(true, 1_024, 10));
+    }
+}
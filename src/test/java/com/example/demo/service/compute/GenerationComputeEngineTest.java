@@ -0,0 +1,105 @@
+package com.example.demo.service.compute;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GenerationComputeEngineTest {
+
+    private GenerationComputeEngine underTest;
+
+    @BeforeEach
+    public void beforeTest() {
+        underTest = new GenerationComputeEngine(new ForkJoinPool(4), 1_000);
+    }
+
+    @AfterEach
+    public void afterTest() {
+        underTest.close();
+    }
+
+    @Test
+    void shouldSumSmallArraysElementByElement() {
+        OperandSums actual = underTest.sum(new long[]{1, -2, 3}, new long[]{4, 5, -6});
+
+        assertArrayEquals(new long[]{5, 3, -3}, actual.getSums());
+        assertEquals(5L, actual.getTotal());
+    }
+
+    @Test
+    void shouldSumLargeArraysInParallel() {
+        Random random = new Random(42);
+        long[] valuesX = random.longs(100_003, -1_000_000, 1_000_000).toArray();
+        long[] valuesY = random.longs(100_003, -1_000_000, 1_000_000).toArray();
+        long[] expectedSums = new long[valuesX.length];
+        long expectedTotal = 0;
+        for (int i = 0; i < valuesX.length; i++) {
+            expectedSums[i] = valuesX[i] + valuesY[i];
+            expectedTotal += expectedSums[i];
+        }
+
+        OperandSums actual = underTest.sum(valuesX, valuesY);
+
+        assertArrayEquals(expectedSums, actual.getSums());
+        assertEquals(expectedTotal, actual.getTotal());
+    }
+
+    @Test
+    void shouldSumEmptyArrays() {
+        OperandSums actual = underTest.sum(new long[0], new long[0]);
+
+        assertEquals(0, actual.getSums().length);
+        assertEquals(0L, actual.getTotal());
+    }
+
+    @Test
+    void shouldSumSingleOperandsExactly() {
+        assertEquals(13L, underTest.sum(8L, 5L));
+        assertThrows(ArithmeticException.class, () -> underTest.sum(Long.MAX_VALUE, 1L));
+        assertThrows(ArithmeticException.class, () -> underTest.sum(Long.MIN_VALUE, -1L));
+    }
+
+    @Test
+    void shouldRejectASumThatOverflows() {
+        assertThrows(ArithmeticException.class, () -> underTest.sum(new long[]{1, Long.MAX_VALUE}, new long[]{2, 1}));
+        assertThrows(ArithmeticException.class, () -> underTest.sum(new long[]{Long.MIN_VALUE}, new long[]{-1}));
+    }
+
+    @Test
+    void shouldRejectATotalThatOverflows() {
+        assertThrows(ArithmeticException.class,
+                () -> underTest.sum(new long[]{Long.MAX_VALUE, 1}, new long[]{0, 0}));
+        assertThrows(ArithmeticException.class,
+                () -> underTest.sum(new long[]{Long.MIN_VALUE, -1}, new long[]{0, 0}));
+    }
+
+    @Test
+    void shouldKeepATotalThatFitsWhateverItsPartialTotals() {
+        OperandSums actual = underTest.sum(new long[]{Long.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 2},
+                new long[]{0, 0, 0, 0});
+
+        assertEquals(0L, actual.getTotal());
+    }
+
+    @Test
+    void shouldRejectATotalThatOverflowsAcrossParallelRanges() {
+        long[] valuesX = new long[100_000];
+        Arrays.fill(valuesX, Long.MAX_VALUE / 50_000);
+
+        assertThrows(ArithmeticException.class, () -> underTest.sum(valuesX, new long[valuesX.length]));
+        assertEquals(Long.MAX_VALUE / 50_000 * 40_000, underTest.sum(Arrays.copyOf(valuesX, 40_000), new long[40_000]).getTotal());
+    }
+
+    @Test
+    void shouldRejectArraysOfDifferentLengths() {
+        assertThrows(IllegalArgumentException.class, () -> underTest.sum(new long[2], new long[3]));
+    }
+}
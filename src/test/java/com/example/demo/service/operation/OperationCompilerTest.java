@@ -0,0 +1,88 @@
+package com.example.demo.service.operation;
+
+import com.example.demo.error.WrongContentFileFormatException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OperationCompilerTest {
+
+    private OperationCompiler underTest;
+
+    @BeforeEach
+    public void beforeTest() {
+        underTest = new OperationCompiler(2);
+    }
+
+    @Test
+    void shouldSumWithoutOperation() {
+        assertEquals(13L, underTest.compile(null).apply(8L, 5L));
+    }
+
+    @Test
+    void shouldCompileNamedOperations() {
+        assertEquals(13L, underTest.compile("sum").apply(8L, 5L));
+        assertEquals(3L, underTest.compile("difference").apply(8L, 5L));
+        assertEquals(40L, underTest.compile("product").apply(8L, 5L));
+    }
+
+    @Test
+    void shouldCompileExpressionsWithPrecedenceAndParentheses() {
+        assertEquals(31L, underTest.compile("2 * x + 3 * y").apply(8L, 5L));
+        assertEquals(-39L, underTest.compile("-(x + y) * 3").apply(8L, 5L));
+        assertEquals(5L, underTest.compile("x / 2 + x % 3 - y / 5").apply(8L, 5L));
+    }
+
+    @Test
+    void shouldKeepTheDeclaredOperation() {
+        assertEquals("product", underTest.compile("product").getOperation());
+    }
+
+    @Test
+    void shouldCompileEachOperationOnce() {
+        CompiledOperation first = underTest.compile("x * y");
+
+        assertSame(first, underTest.compile("x * y"));
+        assertEquals(1, underTest.getCacheSize());
+    }
+
+    @Test
+    void shouldCompileWithoutCachingOnceTheCacheIsFull() {
+        underTest.compile("x + 1");
+        underTest.compile("x + 2");
+
+        assertEquals(9L, underTest.compile("x + y - 4").apply(8L, 5L));
+        assertEquals(2, underTest.getCacheSize());
+    }
+
+    @Test
+    void shouldFallBackToBigIntegerWhenAnIntermediateValueOverflows() {
+        assertEquals(Long.MAX_VALUE, underTest.compile("x * y / y").apply(Long.MAX_VALUE, 2L));
+    }
+
+    @Test
+    void shouldRejectAResultOutOfRange() {
+        CompiledOperation compiledOperation = underTest.compile(null);
+
+        assertThrows(ArithmeticException.class, () -> compiledOperation.apply(Long.MAX_VALUE, 1L));
+    }
+
+    @Test
+    void shouldRejectADivisionByZero() {
+        CompiledOperation compiledOperation = underTest.compile("x / y");
+
+        assertThrows(ArithmeticException.class, () -> compiledOperation.apply(8L, 0L));
+    }
+
+    @Test
+    void shouldRejectInvalidOperations() {
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.compile("x ^ y"));
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.compile("(x + y"));
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.compile("x + z"));
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.compile("x + 99999999999999999999"));
+        assertThrows(WrongContentFileFormatException.class, () -> underTest.compile("x + " + "1".repeat(OperationCompiler.MAX_OPERATION_LENGTH)));
+    }
+}
@@ -1,9 +1,16 @@
 package com.example.demo.web;
 
+import com.example.demo.config.GenerationProperties;
+import com.example.demo.dao.domain.GenerationFileContent;
+import com.example.demo.dao.domain.GenerationFileSummaryView;
+import com.example.demo.metrics.GenerationMetrics;
 import com.example.demo.service.GenerationServiceImpl;
+import com.example.demo.service.codec.GenerationFileCodec;
 import com.example.demo.service.domain.GetGenerationFileResponse;
+import com.example.demo.web.validator.BulkRequestValidator;
 import com.example.demo.web.validator.FileValidator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -13,15 +20,29 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.HttpStatus.NO_CONTENT;
 import static org.springframework.http.HttpStatus.OK;
 
 class GenerationControllerTest {
@@ -37,7 +58,11 @@ class GenerationControllerTest {
     public void beforeTest() {
         openMocks(this);
         dummyByteArray = new byte[1];
-        underTest = new GenerationController(generationServiceImpl, new FileValidator(new ObjectMapper()));
+        underTest = new GenerationController(
+                generationServiceImpl,
+                new FileValidator(new GenerationFileCodec(new ObjectMapper()), new GenerationMetrics(new SimpleMeterRegistry())),
+                new BulkRequestValidator(new GenerationProperties())
+        );
     }
 
     @Test
@@ -51,7 +76,7 @@ class GenerationControllerTest {
         );
         GenerationFileResponse generationFileResponse = new GenerationFileResponse(FILE_ID, "generation_file", dummyByteArray);
 
-        when(generationServiceImpl.uploadGenerationFile(multipartFile)).thenReturn(generationFileResponse);
+        when(generationServiceImpl.uploadGenerationFile(any())).thenReturn(generationFileResponse);
 
         ResponseEntity<GenerationFileResponse> actual = underTest.uploadGenerationFile(multipartFile);
 
@@ -59,6 +84,35 @@ class GenerationControllerTest {
         assertEquals(generationFileResponse, actual.getBody());
     }
 
+    @Test
+    void shouldPostGenerationJsonFileBatch() throws Exception {
+        MockMultipartFile multipartFile = new MockMultipartFile(
+                "files",
+                "test.json",
+                "application/json",
+                Files.readAllBytes(Path.of("src/test/java/resources/test.json"))
+        );
+
+        when(generationServiceImpl.uploadGenerationFiles(any())).thenReturn(List.of(FILE_ID, 2L));
+
+        ResponseEntity<GenerationBatchResponse> actual = underTest.uploadGenerationFiles(List.of(multipartFile, multipartFile));
+
+        assertEquals(CREATED, actual.getStatusCode());
+        assertEquals(new GenerationBatchResponse(List.of(FILE_ID, 2L)), actual.getBody());
+    }
+
+    @Test
+    void shouldPostGenerationJsonArray() throws Exception {
+        InputStream body = new ByteArrayInputStream("[{\"valueX\": 8, \"valueY\": 5}, {\"valueX\": 9, \"valueY\": 6}]".getBytes());
+
+        when(generationServiceImpl.uploadGenerationFiles(any())).thenReturn(List.of(FILE_ID, 2L));
+
+        ResponseEntity<GenerationBatchResponse> actual = underTest.uploadGenerationContents(body);
+
+        assertEquals(CREATED, actual.getStatusCode());
+        assertEquals(new GenerationBatchResponse(List.of(FILE_ID, 2L)), actual.getBody());
+    }
+
     @Test
     void shouldGetGenerationJsonFile() throws Exception {
         Path filePath = Path.of("src/test/java/resources/test.json");
@@ -70,19 +124,112 @@ class GenerationControllerTest {
         );
         Long id = 1L;
         Resource resource = new ByteArrayResource(dummyByteArray);
-        GetGenerationFileResponse getGenerationFileResponse = new GetGenerationFileResponse(FILE_ID, "generation_file", resource);
+        GetGenerationFileResponse getGenerationFileResponse = new GetGenerationFileResponse(FILE_ID, "generation_file", resource, "hash");
 
         when(generationServiceImpl.getGenerationFile(id)).thenReturn(getGenerationFileResponse);
 
-        ResponseEntity<Resource> actual = underTest.getGenerationFile(id);
+        ResponseEntity<Resource> actual = underTest.getGenerationFile(id, null, null);
         HttpHeaders expectedHeaders = new HttpHeaders();
         expectedHeaders.setContentDispositionFormData("attachment", getGenerationFileResponse.getName());
         expectedHeaders.setContentType(MediaType.APPLICATION_JSON);
         expectedHeaders.add("file-id", FILE_ID.toString());
+        expectedHeaders.setETag("\"hash\"");
+        expectedHeaders.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
 
         assertEquals(OK, actual.getStatusCode());
         assertEquals(resource, actual.getBody());
         assertEquals(expectedHeaders, actual.getHeaders());
+        verify(generationServiceImpl, never()).getGzipResource(any());
+    }
+
+    @Test
+    void shouldGetGenerationJsonFileCompressedWhenGzipIsAccepted() throws Exception {
+        Resource resource = new ByteArrayResource(dummyByteArray);
+        Resource gzipResource = new ByteArrayResource(new byte[2]);
+        GetGenerationFileResponse getGenerationFileResponse = new GetGenerationFileResponse(FILE_ID, "generation_file", resource, "hash");
+
+        when(generationServiceImpl.getGenerationFile(FILE_ID)).thenReturn(getGenerationFileResponse);
+        when(generationServiceImpl.getGzipResource(getGenerationFileResponse)).thenReturn(Optional.of(gzipResource));
+
+        ResponseEntity<Resource> actual = underTest.getGenerationFile(FILE_ID, null, "deflate, gzip;q=0.8");
+
+        assertEquals(OK, actual.getStatusCode());
+        assertEquals(gzipResource, actual.getBody());
+        assertEquals("gzip", actual.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("W/\"hash\"", actual.getHeaders().getETag());
+    }
+
+    @Test
+    void shouldGetGenerationJsonFileUncompressedWhenGzipIsRefused() throws Exception {
+        Resource resource = new ByteArrayResource(dummyByteArray);
+        GetGenerationFileResponse getGenerationFileResponse = new GetGenerationFileResponse(FILE_ID, "generation_file", resource, "hash");
+
+        when(generationServiceImpl.getGenerationFile(FILE_ID)).thenReturn(getGenerationFileResponse);
+
+        ResponseEntity<Resource> actual = underTest.getGenerationFile(FILE_ID, null, "*, gzip;q=0");
+
+        assertEquals(resource, actual.getBody());
+        assertNull(actual.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        verify(generationServiceImpl, never()).getGzipResource(any());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhenTheGenerationJsonFileIsUnchanged() throws Exception {
+        when(generationServiceImpl.getGenerationFileContentHash(FILE_ID)).thenReturn(Optional.of("hash"));
+
+        ResponseEntity<Resource> actual = underTest.getGenerationFile(FILE_ID, "\"other\", W/\"hash\"", null);
+
+        assertEquals(NOT_MODIFIED, actual.getStatusCode());
+        assertEquals("\"hash\"", actual.getHeaders().getETag());
+        verify(generationServiceImpl, never()).getGenerationFile(any());
+    }
+
+    @Test
+    void shouldStreamStoredGenerationJsonFile() throws Exception {
+        when(generationServiceImpl.getGenerationFileName(FILE_ID)).thenReturn("test.json");
+
+        ResponseEntity<StreamingResponseBody> actual = underTest.getGenerationFileContent(FILE_ID);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        actual.getBody().writeTo(outputStream);
+
+        assertEquals(OK, actual.getStatusCode());
+        assertEquals(FILE_ID.toString(), actual.getHeaders().getFirst("file-id"));
+        verify(generationServiceImpl).writeGenerationFileContent(FILE_ID, outputStream);
+    }
+
+    @Test
+    void shouldStreamGenerationJsonFilesByIds() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        ResponseEntity<StreamingResponseBody> actual = underTest.getGenerationFiles(List.of(FILE_ID, 2L), null, null);
+        actual.getBody().writeTo(outputStream);
+
+        assertEquals(OK, actual.getStatusCode());
+        verify(generationServiceImpl).writeGenerationFiles(List.of(FILE_ID, 2L), outputStream);
+    }
+
+    @Test
+    void shouldStreamGenerationJsonFilesByRange() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        ResponseEntity<StreamingResponseBody> actual = underTest.getGenerationFiles(null, FILE_ID, 10L);
+        actual.getBody().writeTo(outputStream);
+
+        assertEquals(OK, actual.getStatusCode());
+        verify(generationServiceImpl).writeGenerationFiles(FILE_ID, 10L, outputStream);
+    }
+
+    @Test
+    void shouldListGenerationJsonFiles() {
+        GenerationListResponse generationListResponse = new GenerationListResponse(
+                List.of(new GenerationFileSummaryView(FILE_ID, "test.json", 26, 13L)), FILE_ID);
+
+        when(generationServiceImpl.listGenerationFiles(0L, "test.json", 1)).thenReturn(generationListResponse);
+
+        ResponseEntity<GenerationListResponse> actual = underTest.listGenerationFiles(0L, "test.json", 1);
+
+        assertEquals(OK, actual.getStatusCode());
+        assertEquals(generationListResponse, actual.getBody());
     }
 
     @Test
@@ -96,14 +243,42 @@ class GenerationControllerTest {
         );
         GenerationFileResponse generationFileResponse = new GenerationFileResponse(FILE_ID, "generation_file", dummyByteArray);
 
-        when(generationServiceImpl.updateGenerationFile(FILE_ID, multipartFile)).thenReturn(generationFileResponse);
+        when(generationServiceImpl.updateGenerationFile(eq(FILE_ID), any(), isNull())).thenReturn(generationFileResponse);
 
-        ResponseEntity<GenerationFileResponse> actual = underTest.updateGenerationFile(FILE_ID, multipartFile);
+        ResponseEntity<GenerationFileResponse> actual = underTest.updateGenerationFile(FILE_ID, multipartFile, null);
 
         assertEquals(OK, actual.getStatusCode());
         assertEquals(generationFileResponse, actual.getBody());
     }
 
+    @Test
+    void shouldPutGenerationJsonFileIfItMatches() throws Exception {
+        MockMultipartFile multipartFile = new MockMultipartFile(
+                "file",
+                "test.json",
+                "application/json",
+                Files.readAllBytes(Path.of("src/test/java/resources/put_test.json"))
+        );
+        GenerationFileResponse generationFileResponse = new GenerationFileResponse(FILE_ID, "generation_file", dummyByteArray);
+
+        when(generationServiceImpl.updateGenerationFile(eq(FILE_ID), any(), eq(List.of("hash")))).thenReturn(generationFileResponse);
+
+        ResponseEntity<GenerationFileResponse> actual = underTest.updateGenerationFile(FILE_ID, multipartFile, "\"hash\"");
+
+        assertEquals(OK, actual.getStatusCode());
+        verify(generationServiceImpl).updateGenerationFile(eq(FILE_ID), any(), eq(List.of("hash")));
+    }
+
+    @Test
+    void shouldPatchGenerationJsonFile() throws Exception {
+        InputStream body = new ByteArrayInputStream("{\"valueY\": 7}".getBytes());
+
+        ResponseEntity<Void> actual = underTest.patchGenerationFile(FILE_ID, body);
+
+        assertEquals(NO_CONTENT, actual.getStatusCode());
+        verify(generationServiceImpl).patchGenerationFile(FILE_ID, new GenerationFileContent(null, 7L));
+    }
+
     @Test
     void shouldDeleteGenerationJsonFile() {
         doNothing().when(generationServiceImpl).deleteGenerationFile(FILE_ID);
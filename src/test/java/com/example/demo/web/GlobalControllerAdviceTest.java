@@ -3,6 +3,8 @@ package com.example.demo.web;
 import com.example.demo.error.EmptyFileException;
 import com.example.demo.error.ErrorResponse;
 import com.example.demo.error.GenerationFileNotFoundException;
+import com.example.demo.error.InvalidRequestException;
+import com.example.demo.error.PreconditionFailedException;
 import com.example.demo.error.WrongContentFileFormatException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
@@ -94,6 +96,34 @@ class GlobalControllerAdviceTest {
         assertEquals(expectedErrorResponseEntity, actual);
     }
 
+    @Test
+    void handleInvalidRequestException() {
+        InvalidRequestException invalidRequestException = new InvalidRequestException("The request is invalid");
+        ErrorResponse errorResponse = new ErrorResponse(invalidRequestException.getMessage());
+
+        ResponseEntity<ErrorResponse> expectedErrorResponseEntity = ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(errorResponse);
+
+        ResponseEntity<ErrorResponse> actual = underTest.handleInvalidRequestException(invalidRequestException);
+
+        assertEquals(expectedErrorResponseEntity, actual);
+    }
+
+    @Test
+    void handlePreconditionFailedException() {
+        PreconditionFailedException preconditionFailedException = new PreconditionFailedException("The file has been modified");
+        ErrorResponse errorResponse = new ErrorResponse(preconditionFailedException.getMessage());
+
+        ResponseEntity<ErrorResponse> expectedErrorResponseEntity = ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(errorResponse);
+
+        ResponseEntity<ErrorResponse> actual = underTest.handlePreconditionFailedException(preconditionFailedException);
+
+        assertEquals(expectedErrorResponseEntity, actual);
+    }
+
     @Test
     void handleGenerationFileNotFoundException() {
         GenerationFileNotFoundException generationFileNotFoundException = new GenerationFileNotFoundException("Generation File Not Found");
@@ -0,0 +1,64 @@
+package com.example.demo.web.validator;
+
+import com.example.demo.config.GenerationProperties;
+import com.example.demo.error.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkRequestValidatorTest {
+
+    private BulkRequestValidator underTest;
+
+    @BeforeEach
+    public void beforeTest() {
+        GenerationProperties generationProperties = new GenerationProperties();
+        generationProperties.getBulk().setMaxIds(3);
+        generationProperties.getBulk().setMaxPageSize(10);
+        underTest = new BulkRequestValidator(generationProperties);
+    }
+
+    @Test
+    void shouldAcceptAListOfIds() {
+        assertDoesNotThrow(() -> underTest.validateSelection(List.of(1L, 2L, 3L), null, null));
+    }
+
+    @Test
+    void shouldAcceptARangeOfIds() {
+        assertDoesNotThrow(() -> underTest.validateSelection(null, 1L, 3L));
+    }
+
+    @Test
+    void shouldThrowInvalidRequestExceptionIfBothAListAndARangeAreGiven() {
+        var exception = assertThrows(InvalidRequestException.class, () -> underTest.validateSelection(List.of(1L), 1L, 3L));
+        assertEquals("Either ids or a range from-to must be given, not both", exception.getMessage());
+    }
+
+    @Test
+    void shouldThrowInvalidRequestExceptionIfNothingIsSelected() {
+        var exception = assertThrows(InvalidRequestException.class, () -> underTest.validateSelection(null, 1L, null));
+        assertEquals("Either ids or a range from-to must be given", exception.getMessage());
+    }
+
+    @Test
+    void shouldThrowInvalidRequestExceptionIfTooManyIdsAreSelected() {
+        assertThrows(InvalidRequestException.class, () -> underTest.validateSelection(List.of(1L, 2L, 3L, 4L), null, null));
+        assertThrows(InvalidRequestException.class, () -> underTest.validateSelection(null, 1L, 4L));
+    }
+
+    @Test
+    void shouldAcceptAPage() {
+        assertDoesNotThrow(() -> underTest.validatePage(0L, 10));
+    }
+
+    @Test
+    void shouldThrowInvalidRequestExceptionIfThePageIsInvalid() {
+        var exception = assertThrows(InvalidRequestException.class, () -> underTest.validatePage(0L, 11));
+        assertEquals("The limit must be between 1 and 10", exception.getMessage());
+        assertThrows(InvalidRequestException.class, () -> underTest.validatePage(0L, 0));
+        assertThrows(InvalidRequestException.class, () -> underTest.validatePage(-1L, 10));
+    }
+}
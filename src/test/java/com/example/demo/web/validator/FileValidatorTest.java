@@ -1,8 +1,13 @@
 package com.example.demo.web.validator;
 
+import com.example.demo.dao.domain.GenerationFileContent;
 import com.example.demo.error.EmptyFileException;
 import com.example.demo.error.WrongContentFileFormatException;
+import com.example.demo.metrics.GenerationMetrics;
+import com.example.demo.service.domain.ValidatedGenerationFile;
+import com.example.demo.service.codec.GenerationFileCodec;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockMultipartFile;
@@ -19,7 +24,24 @@ class FileValidatorTest {
 
     @BeforeEach
     public void beforeTest() {
-        underTest = new FileValidator(new ObjectMapper());
+        underTest = new FileValidator(new GenerationFileCodec(new ObjectMapper()), new GenerationMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void shouldReturnTheDeserializedContentOfAValidFile() throws Exception {
+        Path filePath = Path.of("src/test/java/resources/test.json");
+        MockMultipartFile multipartFile = new MockMultipartFile(
+                "file",
+                "test.json",
+                "application/json",
+                Files.readAllBytes(filePath)
+        );
+
+        ValidatedGenerationFile actual = underTest.validateFile(multipartFile);
+
+        assertEquals("test.json", actual.getName());
+        assertArrayEquals(multipartFile.getBytes(), actual.getData());
+        assertEquals(new GenerationFileContent(8L, 5L), actual.getContent());
     }
 
     @Test
@@ -49,4 +71,17 @@ class FileValidatorTest {
         var exception = assertThrows(EmptyFileException.class, () -> underTest.validateFile(multipartFile));
         assertEquals("The file is empty", exception.getMessage());
     }
+
+    @Test
+    void shouldThrowWrongFileFormatExceptionIfAnOperandIsMissing() {
+        MockMultipartFile multipartFile = new MockMultipartFile(
+                "file",
+                "test.json",
+                "application/json",
+                "{\"valueX\": 8}".getBytes()
+        );
+
+        var exception = assertThrows(WrongContentFileFormatException.class, () -> underTest.validateFile(multipartFile));
+        assertEquals("Error deserializing the file", exception.getMessage());
+    }
 }
\ No newline at end of file